@@ -0,0 +1,151 @@
+package com.example.mediasphere_initial.service;
+
+import com.example.mediasphere_initial.dto.FeedCursor;
+import com.example.mediasphere_initial.dto.ThreadRankingSnapshot;
+import com.example.mediasphere_initial.repository.ThreadRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The in-JVM part of each feed mode, one page of 20 at a time:
+ * the trending index behind /trending-style ranking and the personalized "other"
+ * segment, the engagement windows behind /hot and /rising, the home timeline
+ * behind the personalized "joined" segment, and cursor round trips.
+ * The database queries behind /new and the projection load are not measured here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FeedModesBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"10000", "100000", "1000000"})
+    private int threads;
+
+    private TrendingIndexService trendingIndexService;
+    private EngagementWindowService engagementWindowService;
+    private TimelineService.Timeline timeline;
+    private FeedCursor deepTrendingCursor;
+    private FeedCursor timelineCursor;
+    private Set<UUID> joinedClubIds;
+    private String encodedCursor;
+    private long nowMillis;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        nowMillis = now.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        List<ThreadRankingSnapshot> snapshots = SyntheticThreads.snapshots(threads, now, 42L);
+        SplittableRandom random = new SplittableRandom(7L);
+
+        // Trending index over the whole set
+        ThreadRepository threadRepository = mock(ThreadRepository.class);
+        when(threadRepository.findRankingSnapshots()).thenReturn(snapshots);
+        trendingIndexService = new TrendingIndexService();
+        ReflectionTestUtils.setField(trendingIndexService, "threadRepository", threadRepository);
+        ReflectionTestUtils.setField(trendingIndexService, "trendingService", new TrendingService());
+        ReflectionTestUtils.setField(trendingIndexService, "rebuildIntervalMinutes", 24L * 60);
+        ReflectionTestUtils.setField(trendingIndexService, "maxEntries", threads);
+        trendingIndexService.size();
+
+        List<TrendingIndexService.Entry> halfway = trendingIndexService.page(null, threads / 2, entry -> true);
+        TrendingIndexService.Entry middle = halfway.get(halfway.size() - 1);
+        deepTrendingCursor = FeedCursor.forScore("trending", middle.getScore(), middle.getScoredAt(),
+                middle.getThreadId());
+
+        // A user in 10 of the 200 clubs
+        joinedClubIds = new HashSet<>();
+        for (ThreadRankingSnapshot snapshot : snapshots) {
+            if (joinedClubIds.size() == 10) {
+                break;
+            }
+            joinedClubIds.add(snapshot.getClubId());
+        }
+
+        // Engagement windows: every thread saw some activity in the last 6 hours
+        engagementWindowService = new EngagementWindowService();
+        ReflectionTestUtils.setField(engagementWindowService, "bucketMinutes", 5);
+        ReflectionTestUtils.setField(engagementWindowService, "windowHours", 6);
+        ReflectionTestUtils.setField(engagementWindowService, "risingWindowMinutes", 60);
+        ReflectionTestUtils.setField(engagementWindowService, "hotMinPoints", 50);
+        for (ThreadRankingSnapshot snapshot : snapshots) {
+            long at = nowMillis - random.nextLong(6L * 3600 * 1000);
+            engagementWindowService.record(snapshot.getThreadId(),
+                    SyntheticThreads.pareto(random, 1.2, 1, 10_000), at);
+        }
+
+        // A full home timeline
+        timeline = new TimelineService.Timeline(500);
+        for (int i = 0; i < 500; i++) {
+            ThreadRankingSnapshot snapshot = snapshots.get(i);
+            timeline.push(new TimelineService.Item(snapshot.getThreadId(), snapshot.getClubId(),
+                    snapshot.getCreatedAt()));
+        }
+        TimelineService.Item probe = timeline.read(null, null, 250, item -> true).get(249);
+        timelineCursor = FeedCursor.forTime("personalized-joined", probe.getCreatedAt(), probe.getThreadId());
+
+        encodedCursor = deepTrendingCursor.encode();
+    }
+
+    @Benchmark
+    public Object trendingFirstPage() {
+        return trendingIndexService.page(null, PAGE_SIZE + 1, entry -> true);
+    }
+
+    @Benchmark
+    public Object trendingDeepPage() {
+        return trendingIndexService.page(deepTrendingCursor, PAGE_SIZE + 1, entry -> true);
+    }
+
+    @Benchmark
+    public Object personalizedOtherPage() {
+        return trendingIndexService.page(null, PAGE_SIZE + 1, entry -> !joinedClubIds.contains(entry.getClubId()));
+    }
+
+    @Benchmark
+    public Object personalizedJoinedPage() {
+        return timeline.read(timelineCursor.getTime(), timelineCursor.getThreadId(), PAGE_SIZE + 1,
+                item -> true);
+    }
+
+    @Benchmark
+    public Object hotPage() {
+        return engagementWindowService.rankHot(null, PAGE_SIZE + 1, nowMillis);
+    }
+
+    @Benchmark
+    public Object risingPage() {
+        return engagementWindowService.rankRising(null, PAGE_SIZE + 1, nowMillis);
+    }
+
+    @Benchmark
+    public Object cursorRoundTrip() {
+        return FeedCursor.decode(encodedCursor).encode();
+    }
+}
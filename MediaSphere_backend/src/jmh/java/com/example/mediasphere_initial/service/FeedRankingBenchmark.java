@@ -0,0 +1,63 @@
+package com.example.mediasphere_initial.service;
+
+import com.example.mediasphere_initial.dto.ThreadRankingSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded top-K selection (scores computed once) against the full sort with a
+ * scoring comparator that the feeds used before FeedRankingUtil.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FeedRankingBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int threads;
+
+    @Param({"50"})
+    private int k;
+
+    private TrendingService trendingService;
+    private List<ThreadRankingSnapshot> snapshots;
+    private LocalDateTime now;
+
+    @Setup
+    public void setUp() {
+        trendingService = new TrendingService();
+        now = LocalDateTime.now();
+        snapshots = SyntheticThreads.snapshots(threads, now, 42L);
+    }
+
+    @Benchmark
+    public FeedRankingUtil.Ranking<ThreadRankingSnapshot> topK() {
+        return FeedRankingUtil.topK(snapshots, snapshot -> trendingService.calculateTrendingScore(snapshot, now), k);
+    }
+
+    @Benchmark
+    public List<ThreadRankingSnapshot> fullSort() {
+        List<ThreadRankingSnapshot> sorted = new ArrayList<>(snapshots);
+        sorted.sort(Comparator.comparingDouble(
+                (ThreadRankingSnapshot snapshot) -> trendingService.calculateTrendingScore(snapshot, now)).reversed());
+        return sorted.subList(0, Math.min(k, sorted.size()));
+    }
+}
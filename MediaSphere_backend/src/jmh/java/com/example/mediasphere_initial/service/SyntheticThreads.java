@@ -0,0 +1,69 @@
+package com.example.mediasphere_initial.service;
+
+import com.example.mediasphere_initial.dto.ThreadRankingSnapshot;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Deterministic synthetic thread sets for the feed benchmarks.
+ *
+ * Engagement is heavy-tailed like real feeds: views follow a Pareto
+ * distribution (most threads get a handful, a few get hundreds of thousands),
+ * likes, comments and dislikes are small fractions of views, and threads are
+ * spread over 30 days across clubs whose sizes are themselves skewed.
+ */
+final class SyntheticThreads {
+
+    static final int CLUBS = 200;
+    static final int DAYS = 30;
+
+    private SyntheticThreads() {
+    }
+
+    static List<ThreadRankingSnapshot> snapshots(int count, LocalDateTime now, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<UUID> clubIds = clubIds(random);
+        List<ThreadRankingSnapshot> snapshots = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int views = pareto(random, 1.2, 5, 1_000_000);
+            int likes = (int) (views * random.nextDouble(0.0, 0.1));
+            int comments = (int) (views * random.nextDouble(0.0, 0.03));
+            int dislikes = (int) (likes * random.nextDouble(0.0, 0.2));
+            long ageSeconds = random.nextLong(DAYS * 24L * 3600);
+            LocalDateTime createdAt = now.minusSeconds(ageSeconds);
+            LocalDateTime lastActivityAt = createdAt.plusSeconds((long) (ageSeconds * random.nextDouble()));
+
+            snapshots.add(new ThreadRankingSnapshot(new UUID(random.nextLong(), random.nextLong()),
+                    clubIds.get(zipf(random, CLUBS)), likes, dislikes, comments, views, createdAt, lastActivityAt));
+        }
+        return snapshots;
+    }
+
+    static List<UUID> clubIds(SplittableRandom random) {
+        List<UUID> clubIds = new ArrayList<>(CLUBS);
+        for (int i = 0; i < CLUBS; i++) {
+            clubIds.add(new UUID(random.nextLong(), random.nextLong()));
+        }
+        return clubIds;
+    }
+
+    /**
+     * Pareto-distributed integer in [min, max]
+     */
+    static int pareto(SplittableRandom random, double alpha, int min, int max) {
+        double value = min / Math.pow(1.0 - random.nextDouble(), 1.0 / alpha);
+        return (int) Math.min(max, value);
+    }
+
+    /**
+     * Rank in [0, n) with probability roughly proportional to 1 / (rank + 1)
+     */
+    static int zipf(SplittableRandom random, int n) {
+        double harmonic = Math.log(n) + 0.5772;
+        return Math.min(n - 1, (int) Math.exp(random.nextDouble() * harmonic) - 1);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.mediasphere_initial.service;
+
+import com.example.mediasphere_initial.dto.ThreadRankingSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of scoring a whole thread set: the decaying trending score used by the
+ * trending index rebuild, and the decay-free hot rank written on every counter change.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TrendingScoreBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int threads;
+
+    private TrendingService trendingService;
+    private List<ThreadRankingSnapshot> snapshots;
+    private LocalDateTime now;
+
+    @Setup
+    public void setUp() {
+        trendingService = new TrendingService();
+        now = LocalDateTime.now();
+        snapshots = SyntheticThreads.snapshots(threads, now, 42L);
+    }
+
+    @Benchmark
+    public void trendingScore(Blackhole blackhole) {
+        for (ThreadRankingSnapshot snapshot : snapshots) {
+            blackhole.consume(trendingService.calculateTrendingScore(snapshot, now));
+        }
+    }
+
+    @Benchmark
+    public void hotRank(Blackhole blackhole) {
+        for (ThreadRankingSnapshot snapshot : snapshots) {
+            blackhole.consume(TrendingService.calculateHotRank(snapshot.getLikeCount(), snapshot.getDislikeCount(),
+                    snapshot.getCommentCount(), snapshot.getUniqueViewerCount(), snapshot.getCreatedAt()));
+        }
+    }
+}
@@ -16,6 +16,7 @@ public class CorsConfig {
                         .allowedOrigins("http://localhost:3000", "http://20.255.51.86:3000") // Frontend URL
                         .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                         .allowedHeaders("*")
+                        .exposedHeaders("ETag")
                         .allowCredentials(true)
                         .maxAge(3600); // Cache preflight response for 1 hour
             }
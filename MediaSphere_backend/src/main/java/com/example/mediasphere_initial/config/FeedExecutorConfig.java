@@ -0,0 +1,28 @@
+package com.example.mediasphere_initial.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class FeedExecutorConfig {
+    /**
+     * Bounded pool for the personalized feed's per-club fetches. The request blocks on these
+     * results anyway, so a fetch that does not fit the queue simply runs on the request thread.
+     */
+    @Bean(name = "feedMergeExecutor")
+    public ThreadPoolTaskExecutor feedMergeExecutor(
+            @Value("${feed.timeline.merge-threads:4}") int threads,
+            @Value("${feed.timeline.merge-queue-capacity:64}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("feed-merge-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+}
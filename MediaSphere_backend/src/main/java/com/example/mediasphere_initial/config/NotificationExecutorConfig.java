@@ -0,0 +1,49 @@
+package com.example.mediasphere_initial.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class NotificationExecutorConfig {
+    /**
+     * Bounded pool that writes and pushes club-wide notifications off the request thread. A job
+     * that does not fit the queue is rejected, and NotificationFanoutService drops and counts it:
+     * a post or join never waits on delivering to thousands of members, even in a burst.
+     */
+    @Bean(name = "notificationFanoutExecutor")
+    public ThreadPoolTaskExecutor notificationFanoutExecutor(
+            @Value("${notifications.fanout.threads:2}") int threads,
+            @Value("${notifications.fanout.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("notification-fanout-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Pool that drains the per-connection SSE queues. Each connection has at most one drain task
+     * queued at a time, so the queue is bounded by the number of open connections; a rejected
+     * drain leaves its frames queued for the next enqueue to reschedule.
+     */
+    @Bean(name = "notificationDispatchExecutor")
+    public ThreadPoolTaskExecutor notificationDispatchExecutor(
+            @Value("${notifications.dispatch.threads:4}") int threads,
+            @Value("${notifications.dispatch.queue-capacity:10000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("notification-dispatch-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+}
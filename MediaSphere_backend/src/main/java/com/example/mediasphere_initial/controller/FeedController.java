@@ -1,23 +1,33 @@
 package com.example.mediasphere_initial.controller;
 
+import com.example.mediasphere_initial.dto.EngagementEvent;
+import com.example.mediasphere_initial.dto.FeedCursor;
+import com.example.mediasphere_initial.dto.FeedPage;
+import com.example.mediasphere_initial.dto.FeedThreadDto;
 import com.example.mediasphere_initial.model.Thread;
 import com.example.mediasphere_initial.model.User;
 import com.example.mediasphere_initial.repository.UserRepository;
 import com.example.mediasphere_initial.repository.ThreadRepository;
+import com.example.mediasphere_initial.service.EngagementBatchService;
+import com.example.mediasphere_initial.service.FeedCacheService;
 import com.example.mediasphere_initial.service.FeedService;
+import com.example.mediasphere_initial.service.UniqueViewerService;
+import com.example.mediasphere_initial.service.ViewCountService;
 import com.example.mediasphere_initial.service.ReactionService;
 import com.example.mediasphere_initial.service.AuthService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.UUID;
+import java.util.function.Supplier;
 import jakarta.servlet.http.HttpServletRequest;
 
 @RestController
@@ -25,6 +35,8 @@ import jakarta.servlet.http.HttpServletRequest;
 @CrossOrigin(origins = "http://localhost:3000")
 public class FeedController {
 
+    private static final int MAX_PAGE_SIZE = 50;
+
     @Autowired
     private FeedService feedService;
 
@@ -40,18 +52,33 @@ public class FeedController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private FeedCacheService feedCacheService;
+
+    @Autowired
+    private ViewCountService viewCountService;
+
+    @Autowired
+    private UniqueViewerService uniqueViewerService;
+
+    @Autowired
+    private EngagementBatchService engagementBatchService;
+
+    @Value("${feed.events.max-batch-size:200}")
+    private int maxBatchSize;
+
     /**
      * Get personalized feed for authenticated user
      * If no user ID provided, returns trending feed
      */
     @GetMapping("/personalized")
-    public ResponseEntity<Page<Thread>> getPersonalizedFeed(
+    public ResponseEntity<FeedPage<FeedThreadDto>> getPersonalizedFeed(
             @RequestParam(value = "userId", required = false) String userId,
-            @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
         
         try {
-            Pageable pageable = PageRequest.of(page, size);
             User user = null;
 
             // Get user if userId is provided
@@ -61,10 +88,15 @@ public class FeedController {
                     user = userOpt.get();
                 }
             }
+            if (user == null) {
+                user = getUserFromToken(authHeader).orElse(null);
+            }
 
-            Page<Thread> feed = feedService.getPersonalizedFeed(user, pageable);
+            FeedPage<FeedThreadDto> feed = feedService.getPersonalizedFeed(user, FeedCursor.decode(cursor), clampPageSize(size));
             return ResponseEntity.ok(feed);
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).build();
@@ -75,15 +107,20 @@ public class FeedController {
      * Get trending feed (anonymous/public feed)
      */
     @GetMapping("/trending")
-    public ResponseEntity<Page<Thread>> getTrendingFeed(
-            @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+    public ResponseEntity<FeedPage<FeedThreadDto>> getTrendingFeed(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         
         try {
-            Pageable pageable = PageRequest.of(page, size);
-            Page<Thread> feed = feedService.getTrendingFeed(pageable);
-            return ResponseEntity.ok(feed);
+            User viewer = getUserFromToken(authHeader).orElse(null);
+            int pageSize = clampPageSize(size);
+            return publicFeed("trending", viewer, cursor, pageSize, ifNoneMatch,
+                    () -> feedService.getTrendingFeed(viewer, FeedCursor.decode(cursor), pageSize));
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).build();
@@ -91,18 +128,47 @@ public class FeedController {
     }
 
     /**
-     * Get hot threads (high recent activity)
+     * Get hot threads (most engagement in the sliding hot window)
      */
     @GetMapping("/hot")
-    public ResponseEntity<Page<Thread>> getHotFeed(
-            @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+    public ResponseEntity<FeedPage<FeedThreadDto>> getHotFeed(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         
         try {
-            Pageable pageable = PageRequest.of(page, size);
-            Page<Thread> feed = feedService.getHotFeed(pageable);
-            return ResponseEntity.ok(feed);
+            User viewer = getUserFromToken(authHeader).orElse(null);
+            int pageSize = clampPageSize(size);
+            return publicFeed("hot", viewer, cursor, pageSize, ifNoneMatch,
+                    () -> feedService.getHotFeed(viewer, FeedCursor.decode(cursor), pageSize));
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).build();
+        }
+    }
+
+    /**
+     * Get rising threads (engagement accelerating over the last hour)
+     */
+    @GetMapping("/rising")
+    public ResponseEntity<FeedPage<FeedThreadDto>> getRisingFeed(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        
+        try {
+            User viewer = getUserFromToken(authHeader).orElse(null);
+            int pageSize = clampPageSize(size);
+            return publicFeed("rising", viewer, cursor, pageSize, ifNoneMatch,
+                    () -> feedService.getRisingFeed(viewer, FeedCursor.decode(cursor), pageSize));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).build();
@@ -113,15 +179,20 @@ public class FeedController {
      * Get new threads (recently created)
      */
     @GetMapping("/new")
-    public ResponseEntity<Page<Thread>> getNewFeed(
-            @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+    public ResponseEntity<FeedPage<FeedThreadDto>> getNewFeed(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         
         try {
-            Pageable pageable = PageRequest.of(page, size);
-            Page<Thread> feed = feedService.getNewFeed(pageable);
-            return ResponseEntity.ok(feed);
+            User viewer = getUserFromToken(authHeader).orElse(null);
+            int pageSize = clampPageSize(size);
+            return publicFeed("new", viewer, cursor, pageSize, ifNoneMatch,
+                    () -> feedService.getNewFeed(viewer, FeedCursor.decode(cursor), pageSize));
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).build();
@@ -232,28 +303,89 @@ public class FeedController {
             // Try to get authenticated user for unique view tracking
             Optional<User> userOpt = getUserFromToken(authHeader);
             
+            boolean isNewView;
             if (userOpt.isPresent()) {
-                // Authenticated user - track unique view
-                boolean isNewView = reactionService.trackUserView(thread, userOpt.get());
-                Map<String, Object> response = new HashMap<>();
-                response.put("isNewView", isNewView);
-                response.put("viewCount", thread.getViewCount());
-                return ResponseEntity.ok(response);
+                // Authenticated user - unique by user id
+                isNewView = reactionService.trackUserView(thread, userOpt.get());
             } else {
-                // Anonymous user - just increment count
-                reactionService.incrementViewCount(thread);
-                Map<String, Object> response = new HashMap<>();
-                response.put("isNewView", true);
-                response.put("viewCount", thread.getViewCount());
-                return ResponseEntity.ok(response);
+                // Anonymous user - unique by hashed client address and user agent
+                isNewView = reactionService.trackView(thread,
+                        UniqueViewerService.anonymousKey(request.getRemoteAddr(), request.getHeader("User-Agent")));
             }
 
+            Map<String, Object> response = new HashMap<>();
+            response.put("isNewView", isNewView);
+            response.put("viewCount", viewCountService.currentViewCount(threadId, thread.getViewCount()));
+            response.put("uniqueViewers", uniqueViewerService.getUniqueViewers(threadId));
+            return ResponseEntity.ok(response);
+
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body("Failed to track view");
         }
     }
 
+    /**
+     * Apply a batch of view and like/dislike events from one client.
+     * The caller is authenticated once, and the whole batch runs in one transaction
+     * with one result per event, in request order.
+     */
+    @PostMapping("/events")
+    public ResponseEntity<?> trackEvents(@RequestBody List<EngagementEvent> events, HttpServletRequest request) {
+        try {
+            if (events == null || events.isEmpty()) {
+                return ResponseEntity.badRequest().body("No events");
+            }
+            if (events.size() > maxBatchSize) {
+                return ResponseEntity.badRequest().body("At most " + maxBatchSize + " events per batch");
+            }
+
+            Optional<User> userOpt = getUserFromToken(request.getHeader("Authorization"));
+            String viewerKey = userOpt.isPresent()
+                    ? UniqueViewerService.userKey(userOpt.get().getId())
+                    : UniqueViewerService.anonymousKey(request.getRemoteAddr(), request.getHeader("User-Agent"));
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("results", engagementBatchService.applyBatch(userOpt.orElse(null), viewerKey, events));
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Failed to apply events");
+        }
+    }
+
+    /**
+     * Serve a public feed page. Anonymous pages are identical for every caller, so they come
+     * from the shared page cache with a strong ETag; signed-in viewers get their own reaction state.
+     */
+    private ResponseEntity<FeedPage<FeedThreadDto>> publicFeed(String feed, User viewer, String cursor, int size,
+            String ifNoneMatch, Supplier<FeedPage<FeedThreadDto>> loader) {
+        if (viewer != null) {
+            return ResponseEntity.ok(loader.get());
+        }
+
+        String cacheCursor = cursor != null && !cursor.isBlank() ? cursor : null;
+        FeedCacheService.CachedPage cached = feedCacheService.get(feed, cacheCursor, size, loader);
+        if (cached.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(cached.getEtag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(cached.getEtag())
+                .cacheControl(CacheControl.noCache())
+                .body(cached.getPage());
+    }
+
+    /**
+     * Keep page sizes within what a single keyset query should serve
+     */
+    private int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
     /**
      * Helper method to extract user from JWT token
      */
@@ -3,16 +3,17 @@ package com.example.mediasphere_initial.controller;
 import com.example.mediasphere_initial.model.Notification;
 import com.example.mediasphere_initial.model.User;
 import com.example.mediasphere_initial.service.NotificationService;
-import com.example.mediasphere_initial.service.NotificationStreamService;
 import com.example.mediasphere_initial.service.AuthService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
-import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/notifications")
@@ -22,38 +23,9 @@ public class NotificationController {
     @Autowired
     private NotificationService notificationService;
 
-    @Autowired
-    private NotificationStreamService notificationStreamService;
-
     @Autowired
     private AuthService authService;
 
-    // Server-Sent Events endpoint for real-time notifications
-    @GetMapping("/stream")
-    public SseEmitter streamNotifications(@RequestParam String token) {
-        try {
-            Optional<User> userOpt = getUserFromToken("Bearer " + token);
-            if (!userOpt.isPresent()) {
-                throw new RuntimeException("Authentication required");
-            }
-
-            SseEmitter emitter = new SseEmitter(Long.MAX_VALUE);
-            UUID userId = userOpt.get().getId();
-
-            // Add emitter to the service
-            notificationStreamService.addEmitter(userId, emitter);
-
-            // Handle connection completion and timeout
-            emitter.onCompletion(() -> notificationStreamService.removeEmitter(userId, emitter));
-            emitter.onTimeout(() -> notificationStreamService.removeEmitter(userId, emitter));
-            emitter.onError((ex) -> notificationStreamService.removeEmitter(userId, emitter));
-
-            return emitter;
-        } catch (RuntimeException e) {
-            throw new RuntimeException("Authentication failed");
-        }
-    }
-
     // Get user notifications
     @GetMapping("/")
     public ResponseEntity<?> getUserNotifications(@RequestHeader("Authorization") String authHeader,
@@ -153,8 +125,37 @@ public class NotificationController {
                 return ResponseEntity.status(401).body("Authentication required");
             }
 
-            notificationService.markAllAsRead(userOpt.get());
-            return ResponseEntity.ok("All notifications marked as read");
+            int updated = notificationService.markAllAsRead(userOpt.get());
+            return ResponseEntity.ok(Map.of("message", "All notifications marked as read", "updated", updated));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Mark several notifications as read: {"ids": [...]} or {"before": "2025-01-01T00:00:00"}
+    @PostMapping("/mark-read")
+    public ResponseEntity<?> markAsRead(@RequestBody Map<String, Object> request,
+            @RequestHeader("Authorization") String authHeader) {
+        try {
+            Optional<User> userOpt = getUserFromToken(authHeader);
+            if (!userOpt.isPresent()) {
+                return ResponseEntity.status(401).body("Authentication required");
+            }
+
+            int updated;
+            if (request.get("ids") instanceof List<?> ids) {
+                updated = notificationService.markAsRead(userOpt.get(),
+                        ids.stream().map(id -> UUID.fromString(id.toString())).toList());
+            } else if (request.get("before") != null) {
+                updated = notificationService.markAsReadBefore(userOpt.get(),
+                        LocalDateTime.parse(request.get("before").toString()));
+            } else {
+                return ResponseEntity.badRequest().body("Either ids or before is required");
+            }
+
+            return ResponseEntity.ok(Map.of("updated", updated));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().body("Invalid request: " + e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -170,7 +171,7 @@ public class NotificationController {
             }
 
             long count = notificationService.getUnreadCount(userOpt.get());
-            return ResponseEntity.ok(java.util.Map.of("count", count));
+            return ResponseEntity.ok(Map.of("count", count));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -5,13 +5,17 @@ import com.example.mediasphere_initial.service.AuthService;
 import com.example.mediasphere_initial.service.NotificationStreamService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Optional;
 
+/**
+ * The single real-time notification stream. Connection limits, heartbeats and cleanup are handled by
+ * NotificationStreamService; /notifications/stream is kept as an alias for older clients.
+ */
 @RestController
-@RequestMapping("/api/notifications")
 @CrossOrigin(origins = "http://localhost:3000")
 public class NotificationStreamController {
 
@@ -21,45 +25,31 @@ public class NotificationStreamController {
     @Autowired
     private AuthService authService;
 
-    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter streamNotifications(@RequestParam String token) {
+    @GetMapping(value = { "/api/notifications/stream", "/notifications/stream" },
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamNotifications(@RequestParam String token,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
         try {
+            // EventSource only sends the header on its own retries; a client reconnecting with a
+            // new EventSource passes the id as a query parameter instead
+            String resumeFrom = lastEventId != null ? lastEventId : lastEventIdParam;
+
             // Validate token and get user
             Optional<User> userOpt = authService.getUserFromToken(token);
             if (!userOpt.isPresent()) {
-                SseEmitter emitter = new SseEmitter();
-                emitter.completeWithError(new RuntimeException("Invalid token"));
-                return emitter;
-            }
-
-            User user = userOpt.get();
-
-            // Create SSE emitter for this user
-            SseEmitter emitter = new SseEmitter(Long.MAX_VALUE); // No timeout
-
-            // Register the emitter for this user
-            notificationStreamService.addEmitter(user.getId(), emitter);
-
-            // Handle cleanup when connection closes
-            emitter.onCompletion(() -> notificationStreamService.removeEmitter(user.getId(), emitter));
-            emitter.onTimeout(() -> notificationStreamService.removeEmitter(user.getId(), emitter));
-            emitter.onError((ex) -> notificationStreamService.removeEmitter(user.getId(), emitter));
-
-            // Send initial connection confirmation
-            try {
-                emitter.send(SseEmitter.event()
-                        .name("connected")
-                        .data("{\"message\": \"Connected to real-time notifications\"}"));
-            } catch (Exception e) {
-                // Connection might be closed already
+                return ResponseEntity.status(401).build();
             }
 
-            return emitter;
+            // Register a connection; it sends the "connected" event and anything missed itself
+            return notificationStreamService.connect(userOpt.get().getId(), resumeFrom)
+                    .map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.status(503).build());
 
         } catch (Exception e) {
             SseEmitter emitter = new SseEmitter();
             emitter.completeWithError(e);
-            return emitter;
+            return ResponseEntity.ok(emitter);
         }
     }
 }
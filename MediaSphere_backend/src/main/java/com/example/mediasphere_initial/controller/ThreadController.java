@@ -5,6 +5,8 @@ import com.example.mediasphere_initial.model.Comment;
 import com.example.mediasphere_initial.model.User;
 import com.example.mediasphere_initial.service.ThreadService;
 import com.example.mediasphere_initial.service.AuthService;
+import com.example.mediasphere_initial.service.UniqueViewerService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -20,6 +22,9 @@ import java.util.HashMap;
 @CrossOrigin(origins = "http://localhost:3000")
 public class ThreadController {
 
+    // Likers and dislikers are paged straight out of the in-memory reaction index
+    private static final int MAX_REACTORS_PAGE_SIZE = 100;
+
     @Autowired
     private ThreadService threadService;
 
@@ -49,10 +54,16 @@ public class ThreadController {
 
     // Get detailed information about a specific thread
     @GetMapping("/{id}")
-    public ResponseEntity<Thread> getThread(@PathVariable UUID id) {
+    public ResponseEntity<Thread> getThread(@PathVariable UUID id,
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            HttpServletRequest request) {
         Optional<Thread> thread = threadService.getThreadById(id);
         if (thread.isPresent()) {
-            threadService.incrementViewCount(id);
+            String viewerKey = getUserFromToken(authHeader)
+                    .map(user -> UniqueViewerService.userKey(user.getId()))
+                    .orElseGet(() -> UniqueViewerService.anonymousKey(request.getRemoteAddr(),
+                            request.getHeader("User-Agent")));
+            threadService.incrementViewCount(id, viewerKey);
             return ResponseEntity.ok(thread.get());
         }
         return ResponseEntity.notFound().build();
@@ -225,9 +236,14 @@ public class ThreadController {
 
     // Get users who liked a thread
     @GetMapping("/{id}/likers")
-    public ResponseEntity<?> getThreadLikers(@PathVariable UUID id) {
+    public ResponseEntity<?> getThreadLikers(@PathVariable UUID id,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size) {
         try {
-            List<User> likers = threadService.getThreadLikers(id);
+            if (page < 0 || size < 1 || size > MAX_REACTORS_PAGE_SIZE) {
+                return ResponseEntity.badRequest().body("Error: size must be between 1 and " + MAX_REACTORS_PAGE_SIZE);
+            }
+            List<User> likers = threadService.getThreadLikers(id, page, size);
             // Return user information in a clean format
             List<Map<String, Object>> likersInfo = likers.stream().map(user -> {
                 Map<String, Object> userInfo = new HashMap<>();
@@ -241,7 +257,7 @@ public class ThreadController {
 
             Map<String, Object> response = new HashMap<>();
             response.put("likers", likersInfo);
-            response.put("count", likersInfo.size());
+            response.put("count", threadService.getLikerCount(id));
 
             return ResponseEntity.ok(response);
         } catch (RuntimeException e) {
@@ -251,9 +267,14 @@ public class ThreadController {
 
     // Get users who disliked a thread
     @GetMapping("/{id}/dislikers")
-    public ResponseEntity<?> getThreadDislikers(@PathVariable UUID id) {
+    public ResponseEntity<?> getThreadDislikers(@PathVariable UUID id,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size) {
         try {
-            List<User> dislikers = threadService.getThreadDislikers(id);
+            if (page < 0 || size < 1 || size > MAX_REACTORS_PAGE_SIZE) {
+                return ResponseEntity.badRequest().body("Error: size must be between 1 and " + MAX_REACTORS_PAGE_SIZE);
+            }
+            List<User> dislikers = threadService.getThreadDislikers(id, page, size);
             // Return user information in a clean format
             List<Map<String, Object>> dislikersInfo = dislikers.stream().map(user -> {
                 Map<String, Object> userInfo = new HashMap<>();
@@ -267,7 +288,7 @@ public class ThreadController {
 
             Map<String, Object> response = new HashMap<>();
             response.put("dislikers", dislikersInfo);
-            response.put("count", dislikersInfo.size());
+            response.put("count", threadService.getDislikerCount(id));
 
             return ResponseEntity.ok(response);
         } catch (RuntimeException e) {
@@ -0,0 +1,47 @@
+package com.example.mediasphere_initial.dto;
+
+import java.util.UUID;
+
+/**
+ * One client-side engagement event (a view or a like/dislike toggle) sent in a batch
+ */
+public class EngagementEvent {
+    private UUID threadId;
+    private String action;
+    private Long clientTimestamp;
+
+    // Default constructor
+    public EngagementEvent() {
+    }
+
+    public EngagementEvent(UUID threadId, String action, Long clientTimestamp) {
+        this.threadId = threadId;
+        this.action = action;
+        this.clientTimestamp = clientTimestamp;
+    }
+
+    // Getters and setters
+    public UUID getThreadId() {
+        return threadId;
+    }
+
+    public void setThreadId(UUID threadId) {
+        this.threadId = threadId;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public void setAction(String action) {
+        this.action = action;
+    }
+
+    public Long getClientTimestamp() {
+        return clientTimestamp;
+    }
+
+    public void setClientTimestamp(Long clientTimestamp) {
+        this.clientTimestamp = clientTimestamp;
+    }
+}
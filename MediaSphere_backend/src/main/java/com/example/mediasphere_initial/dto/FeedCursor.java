@@ -0,0 +1,93 @@
+package com.example.mediasphere_initial.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque keyset position in a feed: the sort key and id of the last thread a client has seen.
+ *
+ * Score feeds carry the score plus the time it was computed at, recency feeds carry the
+ * sort timestamp. A cursor without a thread id points at the start of its feed segment.
+ */
+public class FeedCursor {
+    private static final String SEPARATOR = "|";
+
+    private final String feed;
+    private final double score;
+    private final LocalDateTime time;
+    private final UUID threadId;
+
+    private FeedCursor(String feed, double score, LocalDateTime time, UUID threadId) {
+        this.feed = feed;
+        this.score = score;
+        this.time = time;
+        this.threadId = threadId;
+    }
+
+    public static FeedCursor forScore(String feed, double score, LocalDateTime scoredAt, UUID threadId) {
+        return new FeedCursor(feed, score, scoredAt, threadId);
+    }
+
+    public static FeedCursor forTime(String feed, LocalDateTime time, UUID threadId) {
+        return new FeedCursor(feed, 0.0, time, threadId);
+    }
+
+    public static FeedCursor startOf(String feed) {
+        return new FeedCursor(feed, 0.0, null, null);
+    }
+
+    /**
+     * Decode a token produced by {@link #encode()}; null or blank means "first page"
+     *
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static FeedCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 4 || parts[0].isEmpty()) {
+                throw new IllegalArgumentException("Invalid feed cursor");
+            }
+            return new FeedCursor(
+                    parts[0],
+                    Double.parseDouble(parts[1]),
+                    parts[2].isEmpty() ? null : LocalDateTime.parse(parts[2]),
+                    parts[3].isEmpty() ? null : UUID.fromString(parts[3]));
+        } catch (IllegalArgumentException | java.time.format.DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid feed cursor", e);
+        }
+    }
+
+    public String encode() {
+        String raw = feed + SEPARATOR
+                + score + SEPARATOR
+                + (time != null ? time.toString() : "") + SEPARATOR
+                + (threadId != null ? threadId.toString() : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getFeed() {
+        return feed;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public LocalDateTime getTime() {
+        return time;
+    }
+
+    public UUID getThreadId() {
+        return threadId;
+    }
+
+    public boolean isStartOfSegment() {
+        return threadId == null;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.mediasphere_initial.dto;
+
+import java.util.List;
+
+/**
+ * One page of a cursor-paginated feed. No total count is computed;
+ * clients follow {@code nextCursor} until {@code last} is true.
+ */
+public class FeedPage<T> {
+    private final List<T> content;
+    private final int size;
+    private final String nextCursor;
+
+    public FeedPage(List<T> content, int size, FeedCursor nextCursor) {
+        this.content = content;
+        this.size = size;
+        this.nextCursor = nextCursor != null ? nextCursor.encode() : null;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getNumberOfElements() {
+        return content.size();
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isLast() {
+        return nextCursor == null;
+    }
+}
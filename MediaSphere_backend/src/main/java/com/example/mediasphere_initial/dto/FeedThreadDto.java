@@ -3,6 +3,7 @@ package com.example.mediasphere_initial.dto;
 import com.example.mediasphere_initial.model.Thread;
 import com.example.mediasphere_initial.model.Club;
 import com.example.mediasphere_initial.model.User;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -33,9 +34,45 @@ public class FeedThreadDto {
     private Boolean isDisliked;
     private Double trendingScore;
 
+    // Keyset position for hot rank ordered feeds
+    @JsonIgnore
+    private Double hotRank;
+
     // Constructors
     public FeedThreadDto() {}
 
+    /**
+     * Projection constructor used by the feed queries in ThreadRepository
+     */
+    public FeedThreadDto(UUID id, String title, String content, UUID clubId, String clubName, String clubMediaId,
+                         UUID authorId, String authorUsername, String authorProfilePic,
+                         LocalDateTime createdAt, LocalDateTime updatedAt, LocalDateTime lastActivityAt,
+                         Integer viewCount, Integer likeCount, Integer dislikeCount, Integer commentCount,
+                         Double hotRank) {
+        this.id = id;
+        this.title = title;
+        this.content = content;
+        this.clubId = clubId != null ? clubId.toString() : null;
+        this.clubName = clubName;
+        this.clubMediaId = clubMediaId;
+        this.authorId = authorId != null ? authorId.toString() : null;
+        this.authorUsername = authorUsername;
+        this.authorProfilePic = authorProfilePic;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.lastActivityAt = lastActivityAt;
+        this.viewCount = viewCount;
+        this.likeCount = likeCount;
+        this.dislikeCount = dislikeCount;
+        this.commentCount = commentCount;
+        this.hotRank = hotRank;
+
+        // Reactions are filled in per page by FeedService
+        this.isLiked = false;
+        this.isDisliked = false;
+        this.trendingScore = 0.0;
+    }
+
     public FeedThreadDto(Thread thread) {
         this.id = thread.getId();
         this.title = thread.getTitle();
@@ -47,6 +84,7 @@ public class FeedThreadDto {
         this.likeCount = thread.getLikeCount();
         this.dislikeCount = thread.getDislikeCount();
         this.commentCount = thread.getCommentCount();
+        this.hotRank = thread.getHotRank();
         
         // Set club data
         if (thread.getClub() != null) {
@@ -224,4 +262,12 @@ public class FeedThreadDto {
     public void setTrendingScore(Double trendingScore) {
         this.trendingScore = trendingScore;
     }
+
+    public Double getHotRank() {
+        return hotRank;
+    }
+
+    public void setHotRank(Double hotRank) {
+        this.hotRank = hotRank;
+    }
 }
@@ -0,0 +1,106 @@
+package com.example.mediasphere_initial.dto;
+
+import com.example.mediasphere_initial.model.Notification;
+import com.example.mediasphere_initial.model.User;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Compact notification pushed over SSE. Carries only the actor's display fields,
+ * never the recipient, so rendering it does not walk the user graphs.
+ */
+public class NotificationEventDto {
+    private UUID id;
+    private String title;
+    private String content;
+    private String type;
+    private Boolean isRead;
+    private UUID referenceId;
+    private String referenceType;
+    private LocalDateTime createdAt;
+    private Integer aggregateCount;
+    private Actor actor;
+
+    public NotificationEventDto() {}
+
+    public NotificationEventDto(Notification notification) {
+        this.id = notification.getId();
+        this.title = notification.getTitle();
+        this.content = notification.getContent();
+        this.type = notification.getType();
+        this.isRead = notification.getIsRead();
+        this.referenceId = notification.getReferenceId();
+        this.referenceType = notification.getReferenceType();
+        this.createdAt = notification.getCreatedAt();
+        this.aggregateCount = notification.getAggregateCount();
+        this.actor = notification.getActor() != null ? new Actor(notification.getActor()) : null;
+    }
+
+    /**
+     * Display fields of the user who triggered the notification
+     */
+    public static class Actor {
+        private UUID id;
+        private String username;
+        private String firstName;
+        private String lastName;
+        private String profilePic;
+
+        public Actor() {}
+
+        public Actor(User user) {
+            this.id = user.getId();
+            this.username = user.getUsername();
+            this.firstName = user.getFirstName();
+            this.lastName = user.getLastName();
+            this.profilePic = user.getProfilePic();
+        }
+
+        public UUID getId() { return id; }
+        public void setId(UUID id) { this.id = id; }
+
+        public String getUsername() { return username; }
+        public void setUsername(String username) { this.username = username; }
+
+        public String getFirstName() { return firstName; }
+        public void setFirstName(String firstName) { this.firstName = firstName; }
+
+        public String getLastName() { return lastName; }
+        public void setLastName(String lastName) { this.lastName = lastName; }
+
+        public String getProfilePic() { return profilePic; }
+        public void setProfilePic(String profilePic) { this.profilePic = profilePic; }
+    }
+
+    // Getters and Setters
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getContent() { return content; }
+    public void setContent(String content) { this.content = content; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public Boolean getIsRead() { return isRead; }
+    public void setIsRead(Boolean isRead) { this.isRead = isRead; }
+
+    public UUID getReferenceId() { return referenceId; }
+    public void setReferenceId(UUID referenceId) { this.referenceId = referenceId; }
+
+    public String getReferenceType() { return referenceType; }
+    public void setReferenceType(String referenceType) { this.referenceType = referenceType; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public Integer getAggregateCount() { return aggregateCount; }
+    public void setAggregateCount(Integer aggregateCount) { this.aggregateCount = aggregateCount; }
+
+    public Actor getActor() { return actor; }
+    public void setActor(Actor actor) { this.actor = actor; }
+}
@@ -0,0 +1,84 @@
+package com.example.mediasphere_initial.dto;
+
+import com.example.mediasphere_initial.model.Thread;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Lightweight copy of the counters and timestamps that feed ranking needs.
+ * Loaded with a projection query so ranking never has to hydrate full Thread entities.
+ */
+public class ThreadRankingSnapshot {
+    private final UUID threadId;
+    private final UUID clubId;
+    private final int likeCount;
+    private final int dislikeCount;
+    private final int commentCount;
+    private final int uniqueViewerCount;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime lastActivityAt;
+
+    public ThreadRankingSnapshot(UUID threadId, UUID clubId, Integer likeCount, Integer dislikeCount,
+            Integer commentCount, Integer uniqueViewerCount, LocalDateTime createdAt, LocalDateTime lastActivityAt) {
+        this.threadId = threadId;
+        this.clubId = clubId;
+        this.likeCount = likeCount != null ? likeCount : 0;
+        this.dislikeCount = dislikeCount != null ? dislikeCount : 0;
+        this.commentCount = commentCount != null ? commentCount : 0;
+        this.uniqueViewerCount = uniqueViewerCount != null ? uniqueViewerCount : 0;
+        this.createdAt = createdAt;
+        this.lastActivityAt = lastActivityAt;
+    }
+
+    public static ThreadRankingSnapshot from(Thread thread) {
+        return new ThreadRankingSnapshot(
+                thread.getId(),
+                thread.getClub() != null ? thread.getClub().getId() : null,
+                thread.getLikeCount(),
+                thread.getDislikeCount(),
+                thread.getCommentCount(),
+                thread.getUniqueViewerCount(),
+                thread.getCreatedAt(),
+                thread.getLastActivityAt());
+    }
+
+    public UUID getThreadId() {
+        return threadId;
+    }
+
+    public UUID getClubId() {
+        return clubId;
+    }
+
+    public int getLikeCount() {
+        return likeCount;
+    }
+
+    public int getDislikeCount() {
+        return dislikeCount;
+    }
+
+    public int getCommentCount() {
+        return commentCount;
+    }
+
+    public int getUniqueViewerCount() {
+        return uniqueViewerCount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getLastActivityAt() {
+        return lastActivityAt;
+    }
+
+    /**
+     * Timestamp used for decay and recency: last activity, falling back to creation time
+     */
+    public LocalDateTime getActivityTime() {
+        return lastActivityAt != null ? lastActivityAt : createdAt;
+    }
+}
@@ -5,7 +5,10 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        @Index(name = "idx_notifications_user_read_created_at", columnList = "user_id, is_read, created_at"),
+        @Index(name = "idx_notifications_read_created_at", columnList = "is_read, created_at")
+})
 public class Notification {
     @Id
     @Column(columnDefinition = "UUID")
@@ -38,7 +41,19 @@ public class Notification {
     private String referenceType; // "thread", "club", "comment", etc.
 
     @Column(name = "created_at", nullable = false)
-    private LocalDateTime createdAt;
+    private LocalDateTime createdAt; // Latest activity; merging another actor moves it forward
+
+    @Column(name = "aggregate_count")
+    private Integer aggregateCount = 1; // Distinct actors merged into this notification
+
+    // Actors of an aggregate still open to merges, null otherwise. Written only in SQL by
+    // NotificationFanoutService; the partial unique index on open aggregates comes from
+    // SQL_files/notification_coalescing_migration.sql.
+    @Column(name = "actor_ids", insertable = false, updatable = false)
+    private UUID[] actorIds;
+
+    @Column(name = "last_pushed_at")
+    private LocalDateTime lastPushedAt; // Last real-time push of a merged notification
 
     // Constructors
     public Notification() {
@@ -143,4 +158,24 @@ public class Notification {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    public Integer getAggregateCount() {
+        return aggregateCount;
+    }
+
+    public void setAggregateCount(Integer aggregateCount) {
+        this.aggregateCount = aggregateCount;
+    }
+
+    public UUID[] getActorIds() {
+        return actorIds;
+    }
+
+    public LocalDateTime getLastPushedAt() {
+        return lastPushedAt;
+    }
+
+    public void setLastPushedAt(LocalDateTime lastPushedAt) {
+        this.lastPushedAt = lastPushedAt;
+    }
 }
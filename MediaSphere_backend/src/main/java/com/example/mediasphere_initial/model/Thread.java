@@ -1,6 +1,7 @@
 package com.example.mediasphere_initial.model;
 
 import jakarta.persistence.*;
+import com.example.mediasphere_initial.service.TrendingService;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -8,7 +9,11 @@ import java.util.List;
 import java.util.ArrayList;
 
 @Entity
-@Table(name = "threads")
+@Table(name = "threads", indexes = {
+        @Index(name = "idx_threads_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_threads_hot_rank_id", columnList = "hot_rank DESC, id DESC"),
+        @Index(name = "idx_threads_club_created_at_id", columnList = "club_id, created_at, id")
+})
 public class Thread {
     @Id
     @Column(columnDefinition = "UUID")
@@ -28,16 +33,23 @@ public class Thread {
     @Column(columnDefinition = "TEXT")
     private String content;
 
-    @Column(name = "view_count", nullable = false)
+    // Counters, activity time and hot rank are maintained by targeted SQL updates (ThreadRepository.updateCounters,
+    // the view and unique-viewer flushes). They are insert-only here so saving an edited Thread never writes
+    // back stale values over concurrent increments.
+    @Column(name = "view_count", nullable = false, updatable = false)
     private Integer viewCount = 0;
 
-    @Column(name = "comment_count", nullable = false)
+    // Estimated distinct viewers from the thread's HyperLogLog sketch; this, not view_count, feeds ranking
+    @Column(name = "unique_viewer_count", nullable = false, updatable = false, columnDefinition = "integer default 0")
+    private Integer uniqueViewerCount = 0;
+
+    @Column(name = "comment_count", nullable = false, updatable = false)
     private Integer commentCount = 0;
 
-    @Column(name = "like_count", nullable = false)
+    @Column(name = "like_count", nullable = false, updatable = false)
     private Integer likeCount = 0;
 
-    @Column(name = "dislike_count", nullable = false)
+    @Column(name = "dislike_count", nullable = false, updatable = false)
     private Integer dislikeCount = 0;
 
     @Column(name = "is_pinned", nullable = false)
@@ -52,9 +64,14 @@ public class Thread {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
-    @Column(name = "last_activity_at")
+    @Column(name = "last_activity_at", updatable = false)
     private LocalDateTime lastActivityAt;
 
+    // Decay-free rank, computed on insert and recomputed in SQL with the counters. Never null, so the
+    // trending page reads idx_threads_hot_rank_id in order without a NULLS LAST sort
+    @Column(name = "hot_rank", nullable = false, updatable = false, columnDefinition = "double precision default 0")
+    private Double hotRank;
+
     @OneToMany(mappedBy = "thread", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonManagedReference
     private List<ThreadImage> images = new ArrayList<>();
@@ -73,6 +90,16 @@ public class Thread {
         this.lastActivityAt = LocalDateTime.now();
     }
 
+    @PrePersist
+    private void refreshHotRank() {
+        this.hotRank = TrendingService.calculateHotRank(
+                likeCount != null ? likeCount : 0,
+                dislikeCount != null ? dislikeCount : 0,
+                commentCount != null ? commentCount : 0,
+                uniqueViewerCount != null ? uniqueViewerCount : 0,
+                createdAt);
+    }
+
     // Getters and setters
     public UUID getId() {
         return id;
@@ -122,6 +149,14 @@ public class Thread {
         this.viewCount = viewCount;
     }
 
+    public Integer getUniqueViewerCount() {
+        return uniqueViewerCount;
+    }
+
+    public void setUniqueViewerCount(Integer uniqueViewerCount) {
+        this.uniqueViewerCount = uniqueViewerCount;
+    }
+
     public Integer getCommentCount() {
         return commentCount;
     }
@@ -186,6 +221,14 @@ public class Thread {
         this.lastActivityAt = lastActivityAt;
     }
 
+    public Double getHotRank() {
+        return hotRank;
+    }
+
+    public void setHotRank(Double hotRank) {
+        this.hotRank = hotRank;
+    }
+
     public List<ThreadImage> getImages() {
         return images;
     }
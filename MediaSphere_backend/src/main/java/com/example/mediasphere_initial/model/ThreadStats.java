@@ -0,0 +1,81 @@
+package com.example.mediasphere_initial.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Per-thread comment statistics, kept up to date by the comment and comment-like
+ * write paths so the stats endpoint never has to walk a thread's comments.
+ * Reaction and comment totals already live on the threads row.
+ */
+@Entity
+@Table(name = "thread_stats")
+public class ThreadStats {
+
+    @Id
+    @Column(name = "thread_id", columnDefinition = "UUID")
+    private UUID threadId;
+
+    @Column(name = "comment_like_count", nullable = false)
+    private Long commentLikeCount = 0L;
+
+    @Column(name = "commenter_count", nullable = false)
+    private Integer commenterCount = 0;
+
+    @Column(name = "last_comment_at")
+    private LocalDateTime lastCommentAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public ThreadStats() {
+    }
+
+    public ThreadStats(UUID threadId) {
+        this.threadId = threadId;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public UUID getThreadId() {
+        return threadId;
+    }
+
+    public void setThreadId(UUID threadId) {
+        this.threadId = threadId;
+    }
+
+    public Long getCommentLikeCount() {
+        return commentLikeCount;
+    }
+
+    public void setCommentLikeCount(Long commentLikeCount) {
+        this.commentLikeCount = commentLikeCount;
+    }
+
+    public Integer getCommenterCount() {
+        return commenterCount;
+    }
+
+    public void setCommenterCount(Integer commenterCount) {
+        this.commenterCount = commenterCount;
+    }
+
+    public LocalDateTime getLastCommentAt() {
+        return lastCommentAt;
+    }
+
+    public void setLastCommentAt(LocalDateTime lastCommentAt) {
+        this.lastCommentAt = lastCommentAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.mediasphere_initial.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * HyperLogLog registers of the distinct viewers of one thread.
+ * Kept out of the threads table so loading a Thread never drags the sketch along.
+ */
+@Entity
+@Table(name = "thread_viewer_sketches")
+public class ThreadViewerSketch {
+
+    @Id
+    @Column(name = "thread_id", columnDefinition = "UUID")
+    private UUID threadId;
+
+    @Column(name = "registers", nullable = false, length = 4096)
+    private byte[] registers;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public ThreadViewerSketch() {
+    }
+
+    public ThreadViewerSketch(UUID threadId, byte[] registers) {
+        this.threadId = threadId;
+        this.registers = registers;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public UUID getThreadId() {
+        return threadId;
+    }
+
+    public void setThreadId(UUID threadId) {
+        this.threadId = threadId;
+    }
+
+    public byte[] getRegisters() {
+        return registers;
+    }
+
+    public void setRegisters(byte[] registers) {
+        this.registers = registers;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.mediasphere_initial.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One thread pushed into a member's home timeline when it was posted.
+ * Plain id columns so timeline reads never touch the users, clubs or threads tables.
+ */
+@Entity
+@Table(name = "user_timeline_entries",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "thread_id"}),
+       indexes = {
+           @Index(name = "idx_user_timeline_user_created", columnList = "user_id, created_at, thread_id"),
+           @Index(name = "idx_user_timeline_thread", columnList = "thread_id")
+       })
+public class UserTimelineEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "thread_id", nullable = false)
+    private UUID threadId;
+
+    @Column(name = "club_id", nullable = false)
+    private UUID clubId;
+
+    // Creation time of the thread, which is the timeline order
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public UserTimelineEntry() {
+    }
+
+    public UserTimelineEntry(UUID userId, UUID threadId, UUID clubId, LocalDateTime createdAt) {
+        this.userId = userId;
+        this.threadId = threadId;
+        this.clubId = clubId;
+        this.createdAt = createdAt;
+    }
+
+    // Getters and Setters
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public void setUserId(UUID userId) {
+        this.userId = userId;
+    }
+
+    public UUID getThreadId() {
+        return threadId;
+    }
+
+    public void setThreadId(UUID threadId) {
+        this.threadId = threadId;
+    }
+
+    public UUID getClubId() {
+        return clubId;
+    }
+
+    public void setClubId(UUID clubId) {
+        this.clubId = clubId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
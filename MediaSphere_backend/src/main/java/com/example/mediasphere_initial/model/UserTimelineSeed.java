@@ -0,0 +1,48 @@
+package com.example.mediasphere_initial.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Marks a user whose home timeline has been seeded from the clubs they already belonged to.
+ * Fan-out and club joins write timeline rows for users who never opened the feed, so having
+ * rows does not mean the older threads of their existing clubs are in the timeline.
+ */
+@Entity
+@Table(name = "user_timeline_seeds")
+public class UserTimelineSeed {
+
+    @Id
+    @Column(name = "user_id", columnDefinition = "UUID")
+    private UUID userId;
+
+    @Column(name = "seeded_at", nullable = false)
+    private LocalDateTime seededAt;
+
+    // Constructors
+    public UserTimelineSeed() {
+    }
+
+    public UserTimelineSeed(UUID userId) {
+        this.userId = userId;
+        this.seededAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public void setUserId(UUID userId) {
+        this.userId = userId;
+    }
+
+    public LocalDateTime getSeededAt() {
+        return seededAt;
+    }
+
+    public void setSeededAt(LocalDateTime seededAt) {
+        this.seededAt = seededAt;
+    }
+}
@@ -21,4 +21,7 @@ public interface CommentRepository extends JpaRepository<Comment, UUID> {
     List<Comment> findByThreadIdOrderByCreatedAtAsc(UUID threadId);
     
     List<Comment> findByThreadOrderByCreatedAtAsc(Thread thread);
+
+    // Whether the author has another comment on the thread (distinct commenters in thread_stats)
+    boolean existsByThread_IdAndCreatedBy_IdAndIdNot(UUID threadId, UUID userId, UUID commentId);
 }
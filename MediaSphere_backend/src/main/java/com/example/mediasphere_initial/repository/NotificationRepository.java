@@ -3,7 +3,13 @@ package com.example.mediasphere_initial.repository;
 import com.example.mediasphere_initial.model.Notification;
 import com.example.mediasphere_initial.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -11,4 +17,38 @@ public interface NotificationRepository extends JpaRepository<Notification, UUID
     List<Notification> findByUserOrderByCreatedAtDesc(User user);
     List<Notification> findByUserAndIsReadOrderByCreatedAtDesc(User user, Boolean isRead);
     long countByUserAndIsRead(User user, Boolean isRead);
+
+    // Set-based read marking: one UPDATE however many notifications match, returning how many changed
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.user.id = :userId AND n.isRead = false")
+    int markAllRead(@Param("userId") UUID userId);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.user.id = :userId AND n.isRead = false AND n.id IN :ids")
+    int markReadByIds(@Param("userId") UUID userId, @Param("ids") Collection<UUID> ids);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.user.id = :userId AND n.isRead = false AND n.createdAt < :before")
+    int markReadBefore(@Param("userId") UUID userId, @Param("before") LocalDateTime before);
+
+    /**
+     * Stop an aggregate taking further merges, so marking it unread again cannot clash with a newer open one
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE notifications SET actor_ids = NULL WHERE id = :id", nativeQuery = true)
+    int closeAggregate(@Param("id") UUID id);
+
+    /**
+     * Delete up to :limit read notifications created before the cutoff; callers repeat until fewer come back
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM notifications WHERE id IN (SELECT id FROM notifications "
+            + "WHERE is_read = true AND created_at < :cutoff LIMIT :limit)", nativeQuery = true)
+    int deleteReadOlderThan(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
 }
@@ -1,12 +1,19 @@
 package com.example.mediasphere_initial.repository;
 
+import com.example.mediasphere_initial.dto.FeedThreadDto;
+import com.example.mediasphere_initial.dto.ThreadRankingSnapshot;
 import com.example.mediasphere_initial.model.Thread;
 import com.example.mediasphere_initial.model.Club;
 import com.example.mediasphere_initial.model.User;
+import com.example.mediasphere_initial.service.TrendingService;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -29,4 +36,109 @@ public interface ThreadRepository extends JpaRepository<Thread, UUID> {
     
     @Query("SELECT t FROM Thread t WHERE t.club.id = :clubId ORDER BY t.createdAt DESC")
     List<Thread> findByClubIdOrderByCreatedAtDescCustom(@Param("clubId") UUID clubId);
+
+    // Feed ranking: counters only, no entity hydration
+    @Query("SELECT new com.example.mediasphere_initial.dto.ThreadRankingSnapshot(t.id, c.id, t.likeCount, t.dislikeCount, t.commentCount, t.uniqueViewerCount, t.createdAt, t.lastActivityAt) FROM Thread t JOIN t.club c")
+    List<ThreadRankingSnapshot> findRankingSnapshots();
+
+    // Keyset pagination: the Pageable only carries the limit, the position comes from the cursor
+    @Query("SELECT t FROM Thread t WHERE t.club.id IN :clubIds ORDER BY t.createdAt DESC, t.id DESC")
+    List<Thread> findByClubIdsOrderByCreatedAtDesc(@Param("clubIds") Collection<UUID> clubIds, Pageable pageable);
+
+    // Per-club recency streams for the personalized feed merge, served by idx_threads_club_created_at_id
+    @Query("SELECT t.id AS threadId, t.club.id AS clubId, t.createdAt AS createdAt FROM Thread t WHERE t.club.id = :clubId ORDER BY t.createdAt DESC, t.id DESC")
+    List<ClubThreadView> findNewestByClubId(@Param("clubId") UUID clubId, Pageable pageable);
+
+    @Query("SELECT t.id AS threadId, t.club.id AS clubId, t.createdAt AS createdAt FROM Thread t WHERE t.club.id = :clubId AND (t.createdAt, t.id) < (:createdAt, :threadId) ORDER BY t.createdAt DESC, t.id DESC")
+    List<ClubThreadView> findNewestByClubIdAfter(@Param("clubId") UUID clubId,
+            @Param("createdAt") LocalDateTime createdAt, @Param("threadId") UUID threadId, Pageable pageable);
+
+    // Feed pages: one projection query per page, no club/author/media entity graphs
+    String FEED_THREAD_SELECT = "SELECT new com.example.mediasphere_initial.dto.FeedThreadDto("
+            + "t.id, t.title, t.content, c.id, c.name, mt.name, u.id, u.username, u.profilePic, "
+            + "t.createdAt, t.updatedAt, t.lastActivityAt, t.viewCount, t.likeCount, t.dislikeCount, "
+            + "t.commentCount, t.hotRank) "
+            + "FROM Thread t JOIN t.club c LEFT JOIN c.mediaType mt LEFT JOIN t.createdBy u ";
+
+    @Query(FEED_THREAD_SELECT + "WHERE t.id IN :ids")
+    List<FeedThreadDto> findFeedThreadsByIds(@Param("ids") Collection<UUID> ids);
+
+    // Trending pages walk idx_threads_hot_rank_id; the cursor is a row comparison so each page is one seek
+    @Query(FEED_THREAD_SELECT + "ORDER BY t.hotRank DESC, t.id DESC")
+    List<FeedThreadDto> findTopByHotRank(Pageable pageable);
+
+    @Query(FEED_THREAD_SELECT + "WHERE (t.hotRank, t.id) < (:hotRank, :threadId) ORDER BY t.hotRank DESC, t.id DESC")
+    List<FeedThreadDto> findTopByHotRankAfter(@Param("hotRank") double hotRank, @Param("threadId") UUID threadId,
+            Pageable pageable);
+
+    @Query(FEED_THREAD_SELECT + "ORDER BY t.createdAt DESC, t.id DESC")
+    List<FeedThreadDto> findNewest(Pageable pageable);
+
+    // Row comparison rather than OR, so each page is a single seek on idx_threads_created_at_id
+    @Query(FEED_THREAD_SELECT + "WHERE (t.createdAt, t.id) < (:createdAt, :threadId) ORDER BY t.createdAt DESC, t.id DESC")
+    List<FeedThreadDto> findNewestAfter(@Param("createdAt") LocalDateTime createdAt, @Param("threadId") UUID threadId,
+            Pageable pageable);
+
+    interface ClubThreadView {
+        UUID getThreadId();
+
+        UUID getClubId();
+
+        LocalDateTime getCreatedAt();
+    }
+
+    // Counter changes in one statement: clamped at zero, activity time and hot rank recomputed in SQL,
+    // the new values returned. The rest of the row (title, content, ...) is not rewritten.
+    @Transactional
+    @Query(value = "UPDATE threads SET (like_count, dislike_count, comment_count, last_activity_at, hot_rank) = "
+            + "(SELECT n.likes, n.dislikes, n.comments, GREATEST(COALESCE(last_activity_at, created_at), :activityAt), "
+            + TrendingService.HOT_RANK_SQL + " FROM (SELECT "
+            + "GREATEST(COALESCE(like_count, 0) + :likeDelta, 0) AS likes, "
+            + "GREATEST(COALESCE(dislike_count, 0) + :dislikeDelta, 0) AS dislikes, "
+            + "GREATEST(COALESCE(comment_count, 0) + :commentDelta, 0) AS comments, "
+            + "COALESCE(unique_viewer_count, 0) AS views) n) "
+            + "WHERE id = :threadId "
+            + "RETURNING like_count AS \"likeCount\", dislike_count AS \"dislikeCount\", "
+            + "comment_count AS \"commentCount\", unique_viewer_count AS \"uniqueViewerCount\", "
+            + "last_activity_at AS \"lastActivityAt\"",
+            nativeQuery = true)
+    ThreadCounters updateCounters(@Param("threadId") UUID threadId, @Param("likeDelta") int likeDelta,
+            @Param("dislikeDelta") int dislikeDelta, @Param("commentDelta") int commentDelta,
+            @Param("activityAt") LocalDateTime activityAt);
+
+    default ThreadCounters incrementLikeCount(UUID threadId) {
+        return updateCounters(threadId, 1, 0, 0, LocalDateTime.now());
+    }
+
+    default ThreadCounters decrementLikeCount(UUID threadId) {
+        return updateCounters(threadId, -1, 0, 0, LocalDateTime.now());
+    }
+
+    default ThreadCounters incrementDislikeCount(UUID threadId) {
+        return updateCounters(threadId, 0, 1, 0, LocalDateTime.now());
+    }
+
+    default ThreadCounters decrementDislikeCount(UUID threadId) {
+        return updateCounters(threadId, 0, -1, 0, LocalDateTime.now());
+    }
+
+    default ThreadCounters incrementCommentCount(UUID threadId) {
+        return updateCounters(threadId, 0, 0, 1, LocalDateTime.now());
+    }
+
+    default ThreadCounters decrementCommentCount(UUID threadId) {
+        return updateCounters(threadId, 0, 0, -1, LocalDateTime.now());
+    }
+
+    interface ThreadCounters {
+        Integer getLikeCount();
+
+        Integer getDislikeCount();
+
+        Integer getCommentCount();
+
+        Integer getUniqueViewerCount();
+
+        LocalDateTime getLastActivityAt();
+    }
 }
@@ -5,9 +5,13 @@ import com.example.mediasphere_initial.model.UserClub.UserClubId;
 import com.example.mediasphere_initial.model.User;
 import com.example.mediasphere_initial.model.Club;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 public interface UserClubRepository extends JpaRepository<UserClub, UserClubId> {
     boolean existsByUserAndClub(User user, Club club);
@@ -21,4 +25,18 @@ public interface UserClubRepository extends JpaRepository<UserClub, UserClubId>
     long countByClub(Club club);
 
     long countByUser(User user);
+
+    // Id-only lookups for timeline fan-out, no user or club rows are loaded
+    @Query("SELECT uc.id.userId FROM UserClub uc WHERE uc.id.clubId = :clubId")
+    List<UUID> findUserIdsByClubId(@Param("clubId") UUID clubId);
+
+    @Query("SELECT uc.id.clubId FROM UserClub uc WHERE uc.id.userId = :userId")
+    List<UUID> findClubIdsByUserId(@Param("userId") UUID userId);
+
+    @Query("SELECT COUNT(uc) FROM UserClub uc WHERE uc.id.clubId = :clubId")
+    long countByClubId(@Param("clubId") UUID clubId);
+
+    @Query("SELECT uc.id.clubId FROM UserClub uc WHERE uc.id.clubId IN :clubIds GROUP BY uc.id.clubId HAVING COUNT(uc) > :maxMembers")
+    List<UUID> findClubIdsWithMoreMembersThan(@Param("clubIds") Collection<UUID> clubIds,
+            @Param("maxMembers") long maxMembers);
 }
@@ -0,0 +1,57 @@
+package com.example.mediasphere_initial.repository;
+
+import com.example.mediasphere_initial.model.UserTimelineEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface UserTimelineEntryRepository extends JpaRepository<UserTimelineEntry, UUID> {
+
+    /**
+     * Newest entries of a user's timeline, used to warm the in-memory ring
+     */
+    @Query("SELECT e FROM UserTimelineEntry e WHERE e.userId = :userId ORDER BY e.createdAt DESC, e.threadId DESC")
+    List<UserTimelineEntry> findNewestByUserId(@Param("userId") UUID userId, Pageable pageable);
+
+    /**
+     * Users whose stored timeline holds more entries than the capacity
+     */
+    @Query("SELECT e.userId FROM UserTimelineEntry e GROUP BY e.userId HAVING COUNT(e) > :capacity")
+    List<UUID> findUserIdsWithMoreEntriesThan(@Param("capacity") long capacity, Pageable pageable);
+
+    /**
+     * Which of the given threads are already in a user's timeline
+     */
+    @Query("SELECT e.threadId FROM UserTimelineEntry e WHERE e.userId = :userId AND e.threadId IN :threadIds")
+    List<UUID> findThreadIdsByUserIdAndThreadIdIn(@Param("userId") UUID userId,
+            @Param("threadIds") Collection<UUID> threadIds);
+
+    /**
+     * Drop entries that fell off the end of a user's bounded timeline
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM UserTimelineEntry e WHERE e.userId = :userId AND (e.createdAt < :createdAt OR (e.createdAt = :createdAt AND e.threadId < :threadId))")
+    int deleteOlderThan(@Param("userId") UUID userId, @Param("createdAt") LocalDateTime createdAt,
+            @Param("threadId") UUID threadId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM UserTimelineEntry e WHERE e.userId = :userId AND e.clubId = :clubId")
+    int deleteByUserIdAndClubId(@Param("userId") UUID userId, @Param("clubId") UUID clubId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM UserTimelineEntry e WHERE e.threadId = :threadId")
+    int deleteByThreadId(@Param("threadId") UUID threadId);
+}
@@ -0,0 +1,11 @@
+package com.example.mediasphere_initial.repository;
+
+import com.example.mediasphere_initial.model.UserTimelineSeed;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface UserTimelineSeedRepository extends JpaRepository<UserTimelineSeed, UUID> {
+}
@@ -0,0 +1,47 @@
+package com.example.mediasphere_initial.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Defers the side effects of a write (in-memory indexes, feed cache versions, notifications)
+ * until the surrounding transaction commits, so a rollback never leaves them ahead of the
+ * database. Outside a transaction the action runs immediately.
+ *
+ * The committed transaction is suspended while the action runs. Data access inside it, such as
+ * saving a notification, then runs and commits on its own instead of joining a transaction that
+ * has already finished and silently losing the write.
+ */
+@Service
+@Slf4j
+public class AfterCommitService {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    public void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                TransactionTemplate suspended = new TransactionTemplate(transactionManager);
+                suspended.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+                try {
+                    suspended.executeWithoutResult(status -> action.run());
+                } catch (RuntimeException e) {
+                    // The write is committed; a failed side effect must not surface as a failed request
+                    log.warn("After-commit action failed", e);
+                }
+            }
+        });
+    }
+}
@@ -55,6 +55,13 @@ public class ClubService {
     private MediaRepository mediaRepository;
     @Autowired
     private MediaTypeRepository mediaTypeRepository;
+    @Autowired
+    private TrendingIndexService trendingIndexService;
+    @Autowired
+    private TimelineService timelineService;
+
+    @Autowired
+    private FeedCacheService feedCacheService;
 
     public List<Club> getAllClubs() {
         return clubRepository.findAll();
@@ -162,10 +169,11 @@ public class ClubService {
             membership.setClub(club);
             membership.setJoinedAt(LocalDateTime.now());
             userClubRepository.save(membership);
+            timelineService.onJoin(userId, clubId);
             
             // Send notifications to existing club members
-            List<User> clubMembers = getClubMembersAsUsers(clubId);
-            notificationService.notifyClubJoin(clubMembers, user, club.getName(), clubId);
+            List<UUID> clubMemberIds = getClubMemberIds(clubId);
+            notificationService.notifyClubJoin(clubMemberIds, user, club.getName(), clubId);
             
             return true;
         }
@@ -191,11 +199,12 @@ public class ClubService {
                     "User " + user.getUsername() + " is leaving club " + club.getName() + " for reason: " + reason);
 
             // Send notifications to remaining club members before removing membership
-            List<User> clubMembers = getClubMembersAsUsers(clubId);
-            notificationService.notifyClubLeave(clubMembers, user, club.getName(), clubId);
+            List<UUID> clubMemberIds = getClubMemberIds(clubId);
+            notificationService.notifyClubLeave(clubMemberIds, user, club.getName(), clubId);
 
             // Remove membership
             userClubRepository.delete(membership);
+            timelineService.onLeave(userId, clubId);
             return true;
         }).orElse(false);
     }
@@ -249,10 +258,13 @@ public class ClubService {
         thread.setIsLocked(false);
 
         Thread savedThread = threadRepository.save(thread);
+        trendingIndexService.update(savedThread);
+        timelineService.publish(savedThread);
+        feedCacheService.bumpVersion();
         
         // Send notifications to club members about the new thread
-        List<User> clubMembers = getClubMembersAsUsers(clubId);
-        notificationService.notifyClubThreadCreated(clubMembers, creator, thread.getTitle(), club.getName(), savedThread.getId());
+        List<UUID> clubMemberIds = getClubMemberIds(clubId);
+        notificationService.notifyClubThreadCreated(clubMemberIds, creator, thread.getTitle(), club.getName(), savedThread.getId());
 
         return savedThread;
     }
@@ -316,12 +328,16 @@ public class ClubService {
             System.out.println("All images processed");
         }
 
+        trendingIndexService.update(savedThread);
+        timelineService.publish(savedThread);
+        feedCacheService.bumpVersion();
+
         // Update club activity tracking
         updateClubActivityForNewThread(clubId);
 
         // Send notifications to club members about the new thread
-        List<User> clubMembers = getClubMembersAsUsers(clubId);
-        notificationService.notifyClubThreadCreated(clubMembers, creator, thread.getTitle(), club.getName(), savedThread.getId());
+        List<UUID> clubMemberIds = getClubMemberIds(clubId);
+        notificationService.notifyClubThreadCreated(clubMemberIds, creator, thread.getTitle(), club.getName(), savedThread.getId());
 
         System.out.println("Thread creation completed successfully");
         return savedThread;
@@ -466,17 +482,9 @@ public class ClubService {
         System.out.println("Club activity updated for club: " + club.getName());
     }
 
-    // Get club members as User objects (for notifications)
-    public List<User> getClubMembersAsUsers(UUID clubId) {
-        Club club = clubRepository.findById(clubId).orElse(null);
-        if (club == null) {
-            return Collections.emptyList();
-        }
-
-        List<UserClub> memberships = userClubRepository.findByClub(club);
-        return memberships.stream()
-                .map(UserClub::getUser)
-                .collect(Collectors.toList());
+    // Member ids only, for notification fan-out; no User rows are loaded
+    public List<UUID> getClubMemberIds(UUID clubId) {
+        return userClubRepository.findUserIdsByClubId(clubId);
     }
     
     // Get clubs by linked media ID
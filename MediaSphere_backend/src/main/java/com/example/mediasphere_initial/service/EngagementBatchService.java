@@ -0,0 +1,371 @@
+package com.example.mediasphere_initial.service;
+
+import com.example.mediasphere_initial.dto.EngagementEvent;
+import com.example.mediasphere_initial.model.Thread;
+import com.example.mediasphere_initial.model.User;
+import com.example.mediasphere_initial.model.UserThreadReaction;
+import com.example.mediasphere_initial.repository.ThreadRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Applies a batch of client engagement events (views and like/dislike toggles)
+ * for one viewer in a single transaction.
+ *
+ * Retried events (same thread, action and client timestamp) are dropped and a
+ * thread is viewed at most once per batch. A thread's toggles are folded in
+ * client order into the reaction the user ends up with, so only the net change
+ * is written: reaction rows and thread counters each go out as one JDBC batch.
+ */
+@Service
+@Slf4j
+public class EngagementBatchService {
+
+    public static final String VIEW = "VIEW";
+    public static final String LIKE = "LIKE";
+    public static final String DISLIKE = "DISLIKE";
+
+    static final String STATUS_APPLIED = "applied";
+    static final String STATUS_DUPLICATE = "duplicate";
+    static final String STATUS_INVALID = "invalid";
+    static final String STATUS_NOT_FOUND = "not_found";
+    static final String STATUS_UNAUTHORIZED = "unauthorized";
+
+    // Parameters: user id, then one per thread id
+    static final String CURRENT_REACTIONS_SQL = "SELECT thread_id, reaction_type FROM user_thread_reactions "
+            + "WHERE user_id = ? AND thread_id IN (%s)";
+
+    // Parameters: id, user id, thread id, reaction type, created at, updated at
+    static final String INSERT_REACTION_SQL = "INSERT INTO user_thread_reactions "
+            + "(id, user_id, thread_id, reaction_type, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    // Parameters: reaction type, updated at, user id, thread id
+    static final String UPDATE_REACTION_SQL = "UPDATE user_thread_reactions SET reaction_type = ?, updated_at = ? "
+            + "WHERE user_id = ? AND thread_id = ?";
+
+    // Parameters: user id, thread id
+    static final String DELETE_REACTION_SQL = "DELETE FROM user_thread_reactions WHERE user_id = ? AND thread_id = ?";
+
+    // Same clamping and hot rank as ThreadRepository.updateCounters, without RETURNING so it can be batched.
+    // Parameters: activity time, like delta, dislike delta, thread id
+    static final String COUNTERS_SQL = "UPDATE threads SET (like_count, dislike_count, last_activity_at, hot_rank) = "
+            + "(SELECT n.likes, n.dislikes, GREATEST(COALESCE(last_activity_at, created_at), ?), "
+            + TrendingService.HOT_RANK_SQL + " FROM (SELECT "
+            + "GREATEST(COALESCE(like_count, 0) + ?, 0) AS likes, "
+            + "GREATEST(COALESCE(dislike_count, 0) + ?, 0) AS dislikes, "
+            + "COALESCE(comment_count, 0) AS comments, "
+            + "COALESCE(unique_viewer_count, 0) AS views) n) "
+            + "WHERE id = ?";
+
+    // Parameters: one per thread id
+    static final String READ_COUNTERS_SQL = "SELECT id, like_count, dislike_count, comment_count, "
+            + "unique_viewer_count, last_activity_at FROM threads WHERE id IN (%s)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ThreadRepository threadRepository;
+
+    @Autowired
+    private ReactionService reactionService;
+
+    @Autowired
+    private ReactionIndexService reactionIndexService;
+
+    @Autowired
+    private TrendingIndexService trendingIndexService;
+
+    @Autowired
+    private EngagementWindowService engagementWindowService;
+
+    @Autowired
+    private FeedCacheService feedCacheService;
+
+    @Autowired
+    private ViewCountService viewCountService;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private AfterCommitService afterCommitService;
+
+    /**
+     * Apply a batch for one viewer; user is null for anonymous viewers, who may only send views.
+     * Returns one result per event, in request order.
+     */
+    @Transactional
+    public List<Map<String, Object>> applyBatch(User user, String viewerKey, List<EngagementEvent> events) {
+        List<Map<String, Object>> results = new ArrayList<>(events.size());
+        for (EngagementEvent event : events) {
+            results.add(result(event));
+        }
+
+        Set<UUID> threadIds = new HashSet<>();
+        for (EngagementEvent event : events) {
+            if (event != null && event.getThreadId() != null) {
+                threadIds.add(event.getThreadId());
+            }
+        }
+        // One query for every thread the batch touches
+        Map<UUID, Thread> threads = threadRepository.findAllById(threadIds).stream()
+                .collect(Collectors.toMap(Thread::getId, Function.identity()));
+
+        Set<String> seen = new HashSet<>();
+        Set<UUID> viewed = new HashSet<>();
+        Map<UUID, List<Integer>> togglesByThread = new LinkedHashMap<>();
+        for (int i = 0; i < events.size(); i++) {
+            EngagementEvent event = events.get(i);
+            Map<String, Object> result = results.get(i);
+            String action = action(event);
+            if (action == null) {
+                result.put("status", STATUS_INVALID);
+                continue;
+            }
+            Thread thread = threads.get(event.getThreadId());
+            if (thread == null) {
+                result.put("status", STATUS_NOT_FOUND);
+                continue;
+            }
+            if (!seen.add(event.getThreadId() + ":" + action + ":" + event.getClientTimestamp())) {
+                result.put("status", STATUS_DUPLICATE); // Client retry of an event already in this batch
+                continue;
+            }
+
+            if (VIEW.equals(action)) {
+                if (!viewed.add(thread.getId())) {
+                    result.put("status", STATUS_DUPLICATE);
+                    continue;
+                }
+                boolean isNewView = reactionService.trackView(thread, viewerKey);
+                result.put("status", STATUS_APPLIED);
+                result.put("isNewView", isNewView);
+                result.put("viewCount", viewCountService.currentViewCount(thread.getId(), thread.getViewCount()));
+            } else if (user == null) {
+                result.put("status", STATUS_UNAUTHORIZED);
+            } else {
+                togglesByThread.computeIfAbsent(thread.getId(), id -> new ArrayList<>()).add(i);
+            }
+        }
+
+        if (!togglesByThread.isEmpty()) {
+            applyToggles(user, events, results, threads, togglesByThread);
+        }
+        return results;
+    }
+
+    private void applyToggles(User user, List<EngagementEvent> events, List<Map<String, Object>> results,
+            Map<UUID, Thread> threads, Map<UUID, List<Integer>> togglesByThread) {
+        Map<UUID, UserThreadReaction.ReactionType> before = currentReactions(user.getId(), togglesByThread.keySet());
+        Map<UUID, UserThreadReaction.ReactionType> after = new LinkedHashMap<>();
+        Comparator<Integer> clientOrder = Comparator.comparing(
+                (Integer i) -> events.get(i).getClientTimestamp(), Comparator.nullsLast(Comparator.naturalOrder()));
+
+        // Fold each thread's toggles, in client order, into the reaction the user ends up with
+        for (Map.Entry<UUID, List<Integer>> entry : togglesByThread.entrySet()) {
+            List<Integer> toggles = entry.getValue();
+            toggles.sort(clientOrder);
+            UserThreadReaction.ReactionType reaction = before.get(entry.getKey());
+            for (int i : toggles) {
+                UserThreadReaction.ReactionType toggled = UserThreadReaction.ReactionType.valueOf(action(events.get(i)));
+                reaction = reaction == toggled ? null : toggled;
+            }
+            after.put(entry.getKey(), reaction);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp nowTs = Timestamp.valueOf(now);
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        List<Object[]> counters = new ArrayList<>();
+        for (Map.Entry<UUID, UserThreadReaction.ReactionType> entry : after.entrySet()) {
+            UUID threadId = entry.getKey();
+            UserThreadReaction.ReactionType from = before.get(threadId);
+            UserThreadReaction.ReactionType to = entry.getValue();
+            if (from == to) {
+                continue; // Toggled back to where it started
+            }
+
+            if (from == null) {
+                inserts.add(new Object[] {UUID.randomUUID(), user.getId(), threadId, to.name(), nowTs, nowTs});
+            } else if (to == null) {
+                deletes.add(new Object[] {user.getId(), threadId});
+            } else {
+                updates.add(new Object[] {to.name(), nowTs, user.getId(), threadId});
+            }
+            counters.add(new Object[] {nowTs, delta(UserThreadReaction.ReactionType.LIKE, from, to),
+                    delta(UserThreadReaction.ReactionType.DISLIKE, from, to), threadId});
+        }
+
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_REACTION_SQL, inserts);
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_REACTION_SQL, updates);
+        }
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_REACTION_SQL, deletes);
+        }
+        if (!counters.isEmpty()) {
+            jdbcTemplate.batchUpdate(COUNTERS_SQL, counters);
+        }
+
+        Map<UUID, ThreadRepository.ThreadCounters> current = readCounters(after.keySet());
+        for (Map.Entry<UUID, UserThreadReaction.ReactionType> entry : after.entrySet()) {
+            UUID threadId = entry.getKey();
+            Thread thread = threads.get(threadId);
+            UserThreadReaction.ReactionType from = before.get(threadId);
+            UserThreadReaction.ReactionType to = entry.getValue();
+            ThreadRepository.ThreadCounters threadCounters = current.get(threadId);
+
+            if (from != to) {
+                reactionIndexService.applyAfterCommit(user.getId(), threadId, to);
+                afterCommitService.run(() -> {
+                    trendingIndexService.update(thread, threadCounters);
+                    if (to == UserThreadReaction.ReactionType.LIKE) {
+                        engagementWindowService.recordLike(threadId);
+                        notificationService.notifyThreadLike(thread.getCreatedBy(), user, thread.getTitle(), threadId);
+                    } else if (to == UserThreadReaction.ReactionType.DISLIKE) {
+                        notificationService.notifyThreadDislike(thread.getCreatedBy(), user, thread.getTitle(),
+                                threadId);
+                    }
+                });
+            }
+
+            for (int i : togglesByThread.get(threadId)) {
+                Map<String, Object> result = results.get(i);
+                result.put("status", STATUS_APPLIED);
+                result.put("isLiked", to == UserThreadReaction.ReactionType.LIKE);
+                result.put("isDisliked", to == UserThreadReaction.ReactionType.DISLIKE);
+                if (threadCounters != null) {
+                    result.put("likeCount", threadCounters.getLikeCount());
+                    result.put("dislikeCount", threadCounters.getDislikeCount());
+                }
+            }
+        }
+
+        if (!counters.isEmpty()) {
+            afterCommitService.run(feedCacheService::bumpVersion);
+        }
+        log.debug("Applied reaction batch for user {}: {} threads, {} changed", user.getId(), after.size(),
+                counters.size());
+    }
+
+    private Map<UUID, UserThreadReaction.ReactionType> currentReactions(UUID userId, Set<UUID> threadIds) {
+        Map<UUID, UserThreadReaction.ReactionType> reactions = new HashMap<>();
+        List<Object> args = new ArrayList<>(threadIds.size() + 1);
+        args.add(userId);
+        args.addAll(threadIds);
+        jdbcTemplate.query(String.format(CURRENT_REACTIONS_SQL, placeholders(threadIds.size())),
+                rs -> {
+                    reactions.put(rs.getObject(1, UUID.class),
+                            UserThreadReaction.ReactionType.valueOf(rs.getString(2)));
+                },
+                args.toArray());
+        return reactions;
+    }
+
+    private Map<UUID, ThreadRepository.ThreadCounters> readCounters(Set<UUID> threadIds) {
+        Map<UUID, ThreadRepository.ThreadCounters> counters = new HashMap<>();
+        jdbcTemplate.query(String.format(READ_COUNTERS_SQL, placeholders(threadIds.size())),
+                rs -> {
+                    Timestamp lastActivityAt = rs.getTimestamp(6);
+                    counters.put(rs.getObject(1, UUID.class), new Counters(rs.getInt(2), rs.getInt(3), rs.getInt(4),
+                            rs.getInt(5), lastActivityAt != null ? lastActivityAt.toLocalDateTime() : null));
+                },
+                threadIds.toArray());
+        return counters;
+    }
+
+    private static Map<String, Object> result(EngagementEvent event) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("threadId", event != null ? event.getThreadId() : null);
+        result.put("action", event != null ? event.getAction() : null);
+        return result;
+    }
+
+    /**
+     * Normalized action name, or null when the event cannot be applied
+     */
+    private static String action(EngagementEvent event) {
+        if (event == null || event.getThreadId() == null || event.getAction() == null) {
+            return null;
+        }
+        String action = event.getAction().trim().toUpperCase();
+        return VIEW.equals(action) || LIKE.equals(action) || DISLIKE.equals(action) ? action : null;
+    }
+
+    private static int delta(UserThreadReaction.ReactionType type, UserThreadReaction.ReactionType from,
+            UserThreadReaction.ReactionType to) {
+        return (to == type ? 1 : 0) - (from == type ? 1 : 0);
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * Counters read back after the batch, in the shape the trending index already takes
+     */
+    private static final class Counters implements ThreadRepository.ThreadCounters {
+        private final Integer likeCount;
+        private final Integer dislikeCount;
+        private final Integer commentCount;
+        private final Integer uniqueViewerCount;
+        private final LocalDateTime lastActivityAt;
+
+        Counters(Integer likeCount, Integer dislikeCount, Integer commentCount, Integer uniqueViewerCount,
+                LocalDateTime lastActivityAt) {
+            this.likeCount = likeCount;
+            this.dislikeCount = dislikeCount;
+            this.commentCount = commentCount;
+            this.uniqueViewerCount = uniqueViewerCount;
+            this.lastActivityAt = lastActivityAt;
+        }
+
+        @Override
+        public Integer getLikeCount() {
+            return likeCount;
+        }
+
+        @Override
+        public Integer getDislikeCount() {
+            return dislikeCount;
+        }
+
+        @Override
+        public Integer getCommentCount() {
+            return commentCount;
+        }
+
+        @Override
+        public Integer getUniqueViewerCount() {
+            return uniqueViewerCount;
+        }
+
+        @Override
+        public LocalDateTime getLastActivityAt() {
+            return lastActivityAt;
+        }
+    }
+}
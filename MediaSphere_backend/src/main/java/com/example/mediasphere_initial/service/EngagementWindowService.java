@@ -0,0 +1,222 @@
+package com.example.mediasphere_initial.service;
+
+import com.example.mediasphere_initial.dto.FeedCursor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Sliding-window engagement counters for the hot and rising feeds.
+ *
+ * Each thread with recent engagement owns a ring of per-bucket point counts
+ * (int[]) plus running sums for the whole window and for the short "rising"
+ * window, so reading "engagement in the last N hours" is O(1) once the ring
+ * has been advanced to the current bucket. Threads whose window has emptied
+ * are dropped while ranking. Counters live in memory only and start empty
+ * after a restart.
+ */
+@Service
+@Slf4j
+public class EngagementWindowService {
+
+    // TrendingService weights (like 1.0, comment 2.0, view 0.1) scaled by 10 to stay integral
+    static final int LIKE_POINTS = 10;
+    static final int COMMENT_POINTS = 20;
+    static final int VIEW_POINTS = 1;
+
+    @Value("${feed.engagement.bucket-minutes:5}")
+    private int bucketMinutes;
+
+    @Value("${feed.engagement.window-hours:6}")
+    private int windowHours;
+
+    @Value("${feed.engagement.rising-window-minutes:60}")
+    private int risingWindowMinutes;
+
+    @Value("${feed.engagement.hot-min-points:50}")
+    private int hotMinPoints;
+
+    private static final Comparator<Window> BY_THREAD_ID_DESC =
+            Comparator.comparing((Window window) -> window.threadId).reversed();
+
+    private final Map<UUID, Window> windows = new ConcurrentHashMap<>();
+
+    public void recordLike(UUID threadId) {
+        record(threadId, LIKE_POINTS, System.currentTimeMillis());
+    }
+
+    public void recordComment(UUID threadId) {
+        record(threadId, COMMENT_POINTS, System.currentTimeMillis());
+    }
+
+    public void recordView(UUID threadId) {
+        record(threadId, VIEW_POINTS, System.currentTimeMillis());
+    }
+
+    /**
+     * Engagement points a thread collected over the hot window
+     */
+    public int getWindowPoints(UUID threadId) {
+        Window window = windows.get(threadId);
+        return window != null ? window.total(bucketOf(System.currentTimeMillis())) : 0;
+    }
+
+    /**
+     * Threads ranked by engagement points in the hot window, strictly after the cursor
+     */
+    public FeedRankingUtil.Ranking<UUID> rankHot(FeedCursor after, int limit) {
+        return rankHot(after, limit, System.currentTimeMillis());
+    }
+
+    /**
+     * Threads ranked by how far their short-window velocity exceeds their own window average
+     */
+    public FeedRankingUtil.Ranking<UUID> rankRising(FeedCursor after, int limit) {
+        return rankRising(after, limit, System.currentTimeMillis());
+    }
+
+    void record(UUID threadId, int points, long nowMillis) {
+        if (threadId == null) {
+            return;
+        }
+        long bucket = bucketOf(nowMillis);
+        windows.computeIfAbsent(threadId, id -> new Window(id, bucketCount(), risingBucketCount(), bucket))
+                .add(bucket, points);
+    }
+
+    FeedRankingUtil.Ranking<UUID> rankHot(FeedCursor after, int limit, long nowMillis) {
+        return rank(after, limit, nowMillis, window -> {
+            int total = window.total(bucketOf(nowMillis));
+            return total >= hotMinPoints ? total : Double.NEGATIVE_INFINITY;
+        });
+    }
+
+    FeedRankingUtil.Ranking<UUID> rankRising(FeedCursor after, int limit, long nowMillis) {
+        double recentShare = (double) risingBucketCount() / bucketCount();
+        return rank(after, limit, nowMillis, window -> {
+            long bucket = bucketOf(nowMillis);
+            double acceleration = window.recent(bucket) - window.total(bucket) * recentShare;
+            return acceleration > 0 ? acceleration : Double.NEGATIVE_INFINITY;
+        });
+    }
+
+    /**
+     * Score every live window once, drop empty ones, and keep the top {@code limit} after the cursor
+     */
+    private FeedRankingUtil.Ranking<UUID> rank(FeedCursor after, int limit, long nowMillis,
+                                               ToDoubleFunction<Window> scorer) {
+        long bucket = bucketOf(nowMillis);
+        List<Window> candidates = new ArrayList<>(windows.size());
+        for (Window window : windows.values()) {
+            if (window.total(bucket) == 0) {
+                windows.remove(window.threadId, window);
+            } else {
+                candidates.add(window);
+            }
+        }
+
+        boolean resume = after != null && !after.isStartOfSegment();
+        FeedRankingUtil.Ranking<Window> ranking = FeedRankingUtil.topK(candidates, window -> {
+            double score = scorer.applyAsDouble(window);
+            return resume && !isAfter(score, window.threadId, after) ? Double.NEGATIVE_INFINITY : score;
+        }, BY_THREAD_ID_DESC, limit);
+
+        // Below-threshold and already-served windows sink to negative infinity; cut them off
+        int kept = 0;
+        while (kept < ranking.size() && ranking.getScore(kept) != Double.NEGATIVE_INFINITY) {
+            kept++;
+        }
+        return ranking.head(kept).map(window -> window.threadId);
+    }
+
+    // Same order as the ranking: higher score first, then higher thread id
+    private boolean isAfter(double score, UUID threadId, FeedCursor cursor) {
+        int byScore = Double.compare(score, cursor.getScore());
+        return byScore != 0 ? byScore < 0 : threadId.compareTo(cursor.getThreadId()) < 0;
+    }
+
+    private long bucketOf(long millis) {
+        return millis / (bucketMinutes * 60_000L);
+    }
+
+    private int bucketCount() {
+        return Math.max(2, windowHours * 60 / bucketMinutes);
+    }
+
+    private int risingBucketCount() {
+        return Math.max(1, Math.min(bucketCount() - 1, risingWindowMinutes / bucketMinutes));
+    }
+
+    /**
+     * Ring of per-bucket points for one thread with running sums over the full and the rising window
+     */
+    static final class Window {
+        private final UUID threadId;
+        private final int[] buckets;
+        private final int recentLength;
+        private long headBucket; // absolute bucket number of the newest slot
+        private int total;
+        private int recent;
+
+        Window(UUID threadId, int bucketCount, int recentLength, long startBucket) {
+            this.threadId = threadId;
+            this.buckets = new int[bucketCount];
+            this.recentLength = recentLength;
+            this.headBucket = startBucket;
+        }
+
+        synchronized void add(long bucket, int points) {
+            advance(bucket);
+            if (bucket < headBucket) {
+                return; // Late write for a bucket already rotated past; not worth rewriting history
+            }
+            buckets[slot(bucket)] += points;
+            total += points;
+            recent += points;
+        }
+
+        synchronized int total(long bucket) {
+            advance(bucket);
+            return total;
+        }
+
+        synchronized int recent(long bucket) {
+            advance(bucket);
+            return recent;
+        }
+
+        // Rotate to the given bucket; amortized O(1), at most one pass over the ring
+        private void advance(long bucket) {
+            if (bucket <= headBucket) {
+                return;
+            }
+            if (bucket - headBucket >= buckets.length) {
+                Arrays.fill(buckets, 0);
+                total = 0;
+                recent = 0;
+                headBucket = bucket;
+                return;
+            }
+            for (long next = headBucket + 1; next <= bucket; next++) {
+                recent -= buckets[slot(next - recentLength)];
+                int slot = slot(next);
+                total -= buckets[slot];
+                buckets[slot] = 0;
+            }
+            headBucket = bucket;
+        }
+
+        private int slot(long bucket) {
+            return (int) Math.floorMod(bucket, (long) buckets.length);
+        }
+    }
+}
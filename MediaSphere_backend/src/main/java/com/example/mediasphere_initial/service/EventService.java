@@ -57,8 +57,8 @@ public class EventService {
         Event savedEvent = eventRepository.save(event);
 
         // Send notifications to club members about the new event
-        List<User> clubMembers = clubService.getClubMembersAsUsers(clubId);
-        notificationService.notifyEventCreated(clubMembers, user, event.getTitle(), club.getName(), savedEvent.getId());
+        List<UUID> clubMemberIds = clubService.getClubMemberIds(clubId);
+        notificationService.notifyEventCreated(clubMemberIds, user, event.getTitle(), club.getName(), savedEvent.getId());
 
         return savedEvent;
     }
@@ -107,8 +107,8 @@ public class EventService {
             // Check if user has permission to delete (event creator or club admin)
             if (event.getCreatedBy().getId().equals(user.getId()) || "admin".equals(user.getRole())) {
                 // Send notifications to club members about event cancellation
-                List<User> clubMembers = clubService.getClubMembersAsUsers(event.getClub().getId());
-                notificationService.notifyEventCancelled(clubMembers, user, event.getTitle(), eventId);
+                List<UUID> clubMemberIds = clubService.getClubMemberIds(event.getClub().getId());
+                notificationService.notifyEventCancelled(clubMemberIds, user, event.getTitle(), eventId);
 
                 eventRepository.delete(event);
                 return true;
@@ -144,8 +144,8 @@ public class EventService {
                 Event savedEvent = eventRepository.save(event);
 
                 // Send notifications to club members about event update
-                List<User> clubMembers = clubService.getClubMembersAsUsers(event.getClub().getId());
-                notificationService.notifyEventUpdated(clubMembers, user, event.getTitle(), eventId);
+                List<UUID> clubMemberIds = clubService.getClubMemberIds(event.getClub().getId());
+                notificationService.notifyEventUpdated(clubMemberIds, user, event.getTitle(), eventId);
 
                 return savedEvent;
             } else {
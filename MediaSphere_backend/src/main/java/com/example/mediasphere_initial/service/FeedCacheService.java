@@ -0,0 +1,171 @@
+package com.example.mediasphere_initial.service;
+
+import com.example.mediasphere_initial.dto.FeedPage;
+import com.example.mediasphere_initial.dto.FeedThreadDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Shared cache of anonymous feed pages, keyed by (feed, cursor, size).
+ *
+ * Entries are tagged with the content version they were built at. Thread,
+ * comment and reaction writes bump the version, which makes every cached page
+ * stale at once without walking the map; a short TTL bounds the drift from
+ * changes that do not bump it (views, window decay). Each entry carries a
+ * strong ETag hashed from its JSON, so an unchanged page keeps its ETag across
+ * refills and polling clients get a 304.
+ */
+@Service
+@Slf4j
+public class FeedCacheService {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${feed.cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    @Value("${feed.cache.max-entries:1000}")
+    private int maxEntries;
+
+    private final AtomicLong contentVersion = new AtomicLong();
+
+    private final ConcurrentHashMap<Key, CachedPage> pages = new ConcurrentHashMap<>();
+
+    /**
+     * Mark every cached page stale; called on thread, comment and reaction writes
+     */
+    public void bumpVersion() {
+        contentVersion.incrementAndGet();
+    }
+
+    public long getVersion() {
+        return contentVersion.get();
+    }
+
+    /**
+     * Return the cached page for this key, rebuilding it with {@code loader} when missing, stale or expired
+     */
+    public CachedPage get(String feed, String cursor, int size, Supplier<FeedPage<FeedThreadDto>> loader) {
+        return get(feed, cursor, size, loader, System.currentTimeMillis());
+    }
+
+    CachedPage get(String feed, String cursor, int size, Supplier<FeedPage<FeedThreadDto>> loader, long nowMillis) {
+        Key key = new Key(feed, cursor, size);
+        long version = contentVersion.get();
+        CachedPage cached = pages.get(key);
+        if (cached != null && cached.isFresh(version, nowMillis)) {
+            return cached;
+        }
+
+        // Read the version before loading: a write that lands mid-load leaves this entry already stale
+        FeedPage<FeedThreadDto> page = loader.get();
+        CachedPage built = new CachedPage(page, etagOf(page), version, nowMillis + ttlSeconds * 1000);
+        if (pages.size() >= maxEntries && !pages.containsKey(key)) {
+            evict(version, nowMillis);
+        }
+        pages.put(key, built);
+        return built;
+    }
+
+    // Drop stale entries first; if the cache is still full of live pages, start over
+    private void evict(long version, long nowMillis) {
+        pages.values().removeIf(page -> !page.isFresh(version, nowMillis));
+        if (pages.size() >= maxEntries) {
+            pages.clear();
+        }
+    }
+
+    private String etagOf(FeedPage<FeedThreadDto> page) {
+        try {
+            return "\"" + DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(page)) + "\"";
+        } catch (JsonProcessingException e) {
+            log.warn("Could not hash feed page for ETag", e);
+            return "\"v" + contentVersion.get() + "-" + System.identityHashCode(page) + "\"";
+        }
+    }
+
+    /**
+     * A rendered page with its strong ETag
+     */
+    public static final class CachedPage {
+        private final FeedPage<FeedThreadDto> page;
+        private final String etag;
+        private final long version;
+        private final long expiresAtMillis;
+
+        CachedPage(FeedPage<FeedThreadDto> page, String etag, long version, long expiresAtMillis) {
+            this.page = page;
+            this.etag = etag;
+            this.version = version;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        public FeedPage<FeedThreadDto> getPage() {
+            return page;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * Whether an If-None-Match header value names this page
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean isFresh(long currentVersion, long nowMillis) {
+            return version == currentVersion && nowMillis < expiresAtMillis;
+        }
+    }
+
+    private static final class Key {
+        private final String feed;
+        private final String cursor;
+        private final int size;
+
+        Key(String feed, String cursor, int size) {
+            this.feed = feed;
+            this.cursor = cursor;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return size == other.size && feed.equals(other.feed) && Objects.equals(cursor, other.cursor);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(feed, cursor, size);
+        }
+    }
+}
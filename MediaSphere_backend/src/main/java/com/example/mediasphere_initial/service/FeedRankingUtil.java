@@ -0,0 +1,201 @@
+package com.example.mediasphere_initial.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Shared ranking path for feeds that rank threads in the JVM.
+ *
+ * Each candidate is scored exactly once into a primitive array, and only the
+ * best {@code k} are kept with a bounded min-heap of indices, so ranking N
+ * candidates costs N score calls and O(N log k) comparisons instead of a full
+ * sort that re-scores on every comparison. Callers fix "now" in the scorer
+ * (e.g. a reference time captured once per request or rebuild).
+ */
+public final class FeedRankingUtil {
+
+    private FeedRankingUtil() {
+    }
+
+    /**
+     * Select the {@code k} highest-scoring candidates, best first.
+     * Ties keep candidate order; NaN scores rank last.
+     */
+    public static <T> Ranking<T> topK(List<T> candidates, ToDoubleFunction<? super T> scorer, int k) {
+        return topK(candidates, scorer, null, k);
+    }
+
+    /**
+     * Select the {@code k} highest-scoring candidates, best first.
+     * On equal scores the candidate that sorts first under {@code tieBreaker} ranks higher,
+     * which keeps cursor positions stable when scores are coarse.
+     */
+    public static <T> Ranking<T> topK(List<T> candidates, ToDoubleFunction<? super T> scorer,
+                                      Comparator<? super T> tieBreaker, int k) {
+        int n = candidates.size();
+        int limit = Math.max(0, Math.min(k, n));
+        if (limit == 0) {
+            return new Ranking<>(Collections.emptyList(), new double[0]);
+        }
+
+        double[] scores = new double[n];
+        for (int i = 0; i < n; i++) {
+            double score = scorer.applyAsDouble(candidates.get(i));
+            scores[i] = Double.isNaN(score) ? Double.NEGATIVE_INFINITY : score;
+        }
+
+        // Min-heap of candidate indices: the weakest kept candidate sits at the root
+        Selector<T> selector = new Selector<>(candidates, scores, tieBreaker, limit);
+        for (int i = 0; i < n; i++) {
+            selector.offer(i);
+        }
+
+        // Pop weakest first into the tail of the result arrays
+        List<T> items = new ArrayList<>(Collections.nCopies(limit, null));
+        double[] ranked = new double[limit];
+        for (int slot = limit - 1; slot >= 0; slot--) {
+            int index = selector.poll();
+            items.set(slot, candidates.get(index));
+            ranked[slot] = scores[index];
+        }
+        return new Ranking<>(items, ranked);
+    }
+
+    /**
+     * Bounded min-heap over candidate indices
+     */
+    private static final class Selector<T> {
+        private final List<T> candidates;
+        private final double[] scores;
+        private final Comparator<? super T> tieBreaker;
+        private final int[] heap;
+        private int size;
+
+        Selector(List<T> candidates, double[] scores, Comparator<? super T> tieBreaker, int capacity) {
+            this.candidates = candidates;
+            this.scores = scores;
+            this.tieBreaker = tieBreaker;
+            this.heap = new int[capacity];
+        }
+
+        void offer(int index) {
+            if (size < heap.length) {
+                heap[size] = index;
+                siftUp(size++);
+            } else if (ranksAbove(index, heap[0])) {
+                heap[0] = index;
+                siftDown(0);
+            }
+        }
+
+        int poll() {
+            int weakest = heap[0];
+            heap[0] = heap[--size];
+            siftDown(0);
+            return weakest;
+        }
+
+        // Higher score wins; then the tie-breaker; then the earlier candidate
+        private boolean ranksAbove(int a, int b) {
+            int byScore = Double.compare(scores[a], scores[b]);
+            if (byScore != 0) {
+                return byScore > 0;
+            }
+            if (tieBreaker != null) {
+                int byTie = tieBreaker.compare(candidates.get(a), candidates.get(b));
+                if (byTie != 0) {
+                    return byTie < 0;
+                }
+            }
+            return a < b;
+        }
+
+        private void siftUp(int position) {
+            int index = heap[position];
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (!ranksAbove(heap[parent], index)) {
+                    break;
+                }
+                heap[position] = heap[parent];
+                position = parent;
+            }
+            heap[position] = index;
+        }
+
+        private void siftDown(int position) {
+            if (size == 0) {
+                return;
+            }
+            int index = heap[position];
+            while (true) {
+                int child = 2 * position + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && ranksAbove(heap[child], heap[child + 1])) {
+                    child++;
+                }
+                if (!ranksAbove(index, heap[child])) {
+                    break;
+                }
+                heap[position] = heap[child];
+                position = child;
+            }
+            heap[position] = index;
+        }
+    }
+
+    /**
+     * Selected candidates, best first, with the score each was ranked by
+     */
+    public static final class Ranking<T> {
+        private final List<T> items;
+        private final double[] scores;
+
+        Ranking(List<T> items, double[] scores) {
+            this.items = items;
+            this.scores = scores;
+        }
+
+        public List<T> getItems() {
+            return items;
+        }
+
+        public T get(int position) {
+            return items.get(position);
+        }
+
+        public double getScore(int position) {
+            return scores[position];
+        }
+
+        public int size() {
+            return items.size();
+        }
+
+        /**
+         * The first {@code n} positions of this ranking
+         */
+        public Ranking<T> head(int n) {
+            int count = Math.max(0, Math.min(n, items.size()));
+            return new Ranking<>(items.subList(0, count), Arrays.copyOf(scores, count));
+        }
+
+        /**
+         * The same ranking with each item converted, scores unchanged
+         */
+        public <R> Ranking<R> map(Function<? super T, ? extends R> mapper) {
+            List<R> mapped = new ArrayList<>(items.size());
+            for (T item : items) {
+                mapped.add(mapper.apply(item));
+            }
+            return new Ranking<>(mapped, scores);
+        }
+    }
+}
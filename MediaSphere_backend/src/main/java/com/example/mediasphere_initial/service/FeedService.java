@@ -1,14 +1,15 @@
 package com.example.mediasphere_initial.service;
 
+import com.example.mediasphere_initial.dto.FeedCursor;
+import com.example.mediasphere_initial.dto.FeedPage;
+import com.example.mediasphere_initial.dto.FeedThreadDto;
 import com.example.mediasphere_initial.model.Thread;
 import com.example.mediasphere_initial.model.User;
-import com.example.mediasphere_initial.model.UserClub;
+import com.example.mediasphere_initial.model.UserThreadReaction;
 import com.example.mediasphere_initial.repository.ThreadRepository;
 import com.example.mediasphere_initial.repository.UserClubRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -25,164 +26,262 @@ public class FeedService {
     private UserClubRepository userClubRepository;
 
     @Autowired
-    private TrendingService trendingService;
+    private ReactionService reactionService;
 
     @Autowired
-    private ReactionService reactionService;
+    private TrendingIndexService trendingIndexService;
+
+    @Autowired
+    private TimelineService timelineService;
+
+    @Autowired
+    private EngagementWindowService engagementWindowService;
+
+    @Autowired
+    private ViewCountService viewCountService;
+
+    @Autowired
+    private ReactionIndexService reactionIndexService;
+
+    // Cursor namespaces; the personalized feed is two segments read back to back
+    static final String FEED_TRENDING = "trending";
+    static final String FEED_HOT = "hot";
+    static final String FEED_RISING = "rising";
+    static final String FEED_NEW = "new";
+    static final String FEED_PERSONALIZED_JOINED = "personalized-joined";
+    static final String FEED_PERSONALIZED_OTHER = "personalized-other";
 
     /**
      * Get personalized feed for authenticated user
      * Shows posts from user's joined clubs first, then other trending posts
      */
-    public Page<Thread> getPersonalizedFeed(User user, Pageable pageable) {
-        if (user == null) {
-            return getTrendingFeed(pageable);
+    public FeedPage<FeedThreadDto> getPersonalizedFeed(User user, FeedCursor cursor, int size) {
+        if (cursor != null
+                && !FEED_PERSONALIZED_JOINED.equals(cursor.getFeed())
+                && !FEED_PERSONALIZED_OTHER.equals(cursor.getFeed())) {
+            throw new IllegalArgumentException("Cursor does not belong to the personalized feed");
         }
 
         // Get user's joined clubs
-        List<UserClub> userClubs = userClubRepository.findByUser(user);
-        List<UUID> joinedClubIds = userClubs.stream()
-            .map(uc -> uc.getClub().getId())
-            .collect(Collectors.toList());
-
-        if (joinedClubIds.isEmpty()) {
-            // User hasn't joined any clubs, show trending feed
-            return getTrendingFeed(pageable);
+        Set<UUID> joinedClubIds = user != null
+            ? new HashSet<>(userClubRepository.findClubIdsByUserId(user.getId()))
+            : new HashSet<>();
+
+        // Collect the page as ids first so it is loaded with a single projection query
+        List<UUID> pageIds = new ArrayList<>();
+        Map<UUID, Double> trendingScores = new HashMap<>();
+        FeedCursor otherCursor = cursor;
+
+        // Joined club threads first, newest first from the user's home timeline
+        boolean inJoinedSegment = cursor == null || FEED_PERSONALIZED_JOINED.equals(cursor.getFeed());
+        if (inJoinedSegment && !joinedClubIds.isEmpty()) {
+            List<TimelineService.Item> joinedItems = timelineService.page(user.getId(), joinedClubIds, cursor, size + 1);
+
+            if (joinedItems.size() > size) {
+                List<TimelineService.Item> joinedPage = joinedItems.subList(0, size);
+                TimelineService.Item last = joinedPage.get(size - 1);
+                return new FeedPage<>(loadFeedThreads(timelineIds(joinedPage), trendingScores, user), size,
+                    FeedCursor.forTime(FEED_PERSONALIZED_JOINED, last.getCreatedAt(), last.getThreadId()));
+            }
+            pageIds.addAll(timelineIds(joinedItems));
+        }
+        if (inJoinedSegment) {
+            otherCursor = null;
         }
 
-        // Get all threads
-        List<Thread> allThreads = threadRepository.findAll();
-
-        // Separate threads by user's club membership
-        List<Thread> joinedClubThreads = new ArrayList<>();
-        List<Thread> otherThreads = new ArrayList<>();
+        // Fill the remainder of the page from the trending index
+        int remaining = size - pageIds.size();
+        List<TrendingIndexService.Entry> others = trendingIndexService.page(otherCursor, remaining + 1,
+            entry -> !joinedClubIds.contains(entry.getClubId()));
 
-        for (Thread thread : allThreads) {
-            if (thread.getClub() != null && joinedClubIds.contains(thread.getClub().getId())) {
-                joinedClubThreads.add(thread);
-            } else {
-                otherThreads.add(thread);
+        FeedCursor nextCursor = null;
+        if (remaining == 0) {
+            if (!others.isEmpty()) {
+                nextCursor = FeedCursor.startOf(FEED_PERSONALIZED_OTHER);
+            }
+        } else if (others.size() > remaining) {
+            others = others.subList(0, remaining);
+            nextCursor = scoreCursor(FEED_PERSONALIZED_OTHER, others.get(remaining - 1));
+        }
+        if (remaining > 0) {
+            for (TrendingIndexService.Entry entry : others) {
+                pageIds.add(entry.getThreadId());
+                trendingScores.put(entry.getThreadId(), entry.getScore());
             }
         }
 
-        // Sort joined club threads by recency (most recent first)
-        joinedClubThreads.sort((t1, t2) -> {
-            LocalDateTime time1 = t1.getLastActivityAt() != null ? t1.getLastActivityAt() : t1.getCreatedAt();
-            LocalDateTime time2 = t2.getLastActivityAt() != null ? t2.getLastActivityAt() : t2.getCreatedAt();
-            return time2.compareTo(time1); // Descending order
-        });
-
-        // Sort other threads by trending score
-        otherThreads.sort((t1, t2) -> Double.compare(
-            trendingService.calculateTrendingScore(t2),
-            trendingService.calculateTrendingScore(t1)
-        ));
-
-        // Combine the lists: joined club threads first, then trending threads
-        List<Thread> combinedFeed = new ArrayList<>();
-        combinedFeed.addAll(joinedClubThreads);
-        combinedFeed.addAll(otherThreads);
-
-        // Apply pagination
-        return paginateThreads(combinedFeed, pageable);
+        return new FeedPage<>(loadFeedThreads(pageIds, trendingScores, user), size, nextCursor);
     }
 
     /**
      * Get trending feed for anonymous users or as fallback
-     * Shows posts ordered by trending score
+     * Shows posts ordered by the stored hot rank, served by idx_threads_hot_rank_id
      */
-    public Page<Thread> getTrendingFeed(Pageable pageable) {
-        // Get all threads
-        List<Thread> allThreads = threadRepository.findAll();
-
-        // Calculate trending scores and sort
-        List<Thread> trendingThreads = allThreads.stream()
-            .filter(thread -> thread.getClub() != null) // Only include threads with valid clubs
-            .sorted((t1, t2) -> Double.compare(
-                trendingService.calculateTrendingScore(t2),
-                trendingService.calculateTrendingScore(t1)
-            ))
-            .collect(Collectors.toList());
-
-        return paginateThreads(trendingThreads, pageable);
+    public FeedPage<FeedThreadDto> getTrendingFeed(User viewer, FeedCursor cursor, int size) {
+        requireFeed(cursor, FEED_TRENDING);
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<FeedThreadDto> threads = cursor == null
+            ? threadRepository.findTopByHotRank(limit)
+            : threadRepository.findTopByHotRankAfter(cursor.getScore(), cursor.getThreadId(), limit);
+        return hotRankPage(FEED_TRENDING, threads, size, viewer);
     }
 
     /**
-     * Get hot threads (high recent activity)
+     * Get hot threads: most engagement inside the sliding hot window
      */
-    public Page<Thread> getHotFeed(Pageable pageable) {
-        List<Thread> allThreads = threadRepository.findAll();
-
-        List<Thread> hotThreads = allThreads.stream()
-            .filter(trendingService::isHotThread)
-            .sorted((t1, t2) -> Double.compare(
-                trendingService.calculateTrendingScore(t2),
-                trendingService.calculateTrendingScore(t1)
-            ))
-            .collect(Collectors.toList());
+    public FeedPage<FeedThreadDto> getHotFeed(User viewer, FeedCursor cursor, int size) {
+        requireFeed(cursor, FEED_HOT);
+        return windowPage(FEED_HOT, engagementWindowService.rankHot(cursor, size + 1), size, viewer);
+    }
 
-        return paginateThreads(hotThreads, pageable);
+    /**
+     * Get rising threads: engagement in the last hour running ahead of their own window average
+     */
+    public FeedPage<FeedThreadDto> getRisingFeed(User viewer, FeedCursor cursor, int size) {
+        requireFeed(cursor, FEED_RISING);
+        return windowPage(FEED_RISING, engagementWindowService.rankRising(cursor, size + 1), size, viewer);
     }
 
     /**
      * Get new threads (recently created)
      */
-    public Page<Thread> getNewFeed(Pageable pageable) {
-        List<Thread> allThreads = threadRepository.findAll();
-
-        List<Thread> newThreads = allThreads.stream()
-            .filter(thread -> thread.getClub() != null)
-            .sorted((t1, t2) -> {
-                LocalDateTime time1 = t1.getCreatedAt();
-                LocalDateTime time2 = t2.getCreatedAt();
-                if (time1 == null && time2 == null) return 0;
-                if (time1 == null) return 1;
-                if (time2 == null) return -1;
-                return time2.compareTo(time1); // Most recent first
-            })
-            .collect(Collectors.toList());
+    public FeedPage<FeedThreadDto> getNewFeed(User viewer, FeedCursor cursor, int size) {
+        requireFeed(cursor, FEED_NEW);
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<FeedThreadDto> threads = cursor == null
+            ? threadRepository.findNewest(limit)
+            : threadRepository.findNewestAfter(cursor.getTime(), cursor.getThreadId(), limit);
+
+        if (threads.size() <= size) {
+            return enrichThreadsWithReactions(new FeedPage<>(threads, size, null), viewer);
+        }
+
+        List<FeedThreadDto> pageContent = threads.subList(0, size);
+        FeedThreadDto last = pageContent.get(size - 1);
+        return enrichThreadsWithReactions(new FeedPage<>(pageContent, size,
+            FeedCursor.forTime(FEED_NEW, last.getCreatedAt(), last.getId())), viewer);
+    }
+
+    /**
+     * Trim a size + 1 hot rank query to a page; the probe row decides whether there is a next page
+     */
+    private FeedPage<FeedThreadDto> hotRankPage(String feed, List<FeedThreadDto> threads, int size, User viewer) {
+        if (threads.size() <= size) {
+            return enrichThreadsWithReactions(new FeedPage<>(threads, size, null), viewer);
+        }
 
-        return paginateThreads(newThreads, pageable);
+        List<FeedThreadDto> pageContent = threads.subList(0, size);
+        FeedThreadDto last = pageContent.get(size - 1);
+        // Hot rank does not decay, so the cursor carries no score time
+        return enrichThreadsWithReactions(new FeedPage<>(pageContent, size,
+            FeedCursor.forScore(feed, last.getHotRank(), null, last.getId())), viewer);
     }
 
     /**
-     * Helper method to apply pagination to a list of threads
+     * Turn a size + 1 window ranking into a page; window scores are live, so the cursor carries no score time
      */
-    private Page<Thread> paginateThreads(List<Thread> threads, Pageable pageable) {
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), threads.size());
+    private FeedPage<FeedThreadDto> windowPage(String feed, FeedRankingUtil.Ranking<UUID> ranking, int size,
+            User viewer) {
+        int count = Math.min(size, ranking.size());
+        List<UUID> pageIds = new ArrayList<>(count);
+        Map<UUID, Double> windowScores = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            pageIds.add(ranking.get(i));
+            windowScores.put(ranking.get(i), ranking.getScore(i));
+        }
+
+        FeedCursor nextCursor = ranking.size() > size
+            ? FeedCursor.forScore(feed, ranking.getScore(size - 1), null, ranking.get(size - 1))
+            : null;
+        return new FeedPage<>(loadFeedThreads(pageIds, windowScores, viewer), size, nextCursor);
+    }
 
-        if (start > threads.size()) {
-            return new PageImpl<>(Collections.emptyList(), pageable, threads.size());
+    private FeedCursor scoreCursor(String feed, TrendingIndexService.Entry entry) {
+        return FeedCursor.forScore(feed, entry.getScore(), entry.getScoredAt(), entry.getThreadId());
+    }
+
+    private void requireFeed(FeedCursor cursor, String feed) {
+        if (cursor != null && !feed.equals(cursor.getFeed())) {
+            throw new IllegalArgumentException("Cursor does not belong to the " + feed + " feed");
         }
+    }
 
-        List<Thread> pageContent = threads.subList(start, end);
-        return new PageImpl<>(pageContent, pageable, threads.size());
+    private List<UUID> timelineIds(List<TimelineService.Item> items) {
+        return items.stream()
+            .map(TimelineService.Item::getThreadId)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Load feed threads by id with one projection query, keeping the given order
+     */
+    private List<FeedThreadDto> loadFeedThreads(List<UUID> ids, Map<UUID, Double> scores, User viewer) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<UUID, FeedThreadDto> threadsById = threadRepository.findFeedThreadsByIds(ids).stream()
+            .collect(Collectors.toMap(FeedThreadDto::getId, thread -> thread));
+
+        List<FeedThreadDto> ordered = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            FeedThreadDto thread = threadsById.get(id);
+            if (thread != null) { // Deleted since it was indexed
+                thread.setTrendingScore(scores.getOrDefault(id, 0.0));
+                ordered.add(thread);
+            }
+        }
+        applyPendingViews(ordered);
+        applyUserReactions(ordered, viewer);
+        return ordered;
     }
 
     /**
      * Update thread activity when it receives engagement
      */
     public void updateThreadActivity(Thread thread) {
-        trendingService.updateLastActivity(thread);
-        threadRepository.save(thread);
+        // Activity time is only written in SQL, never by saving the entity
+        ThreadRepository.ThreadCounters counters = threadRepository.updateCounters(thread.getId(), 0, 0, 0,
+                LocalDateTime.now());
+        trendingIndexService.update(thread, counters);
     }
 
     /**
      * Enrich threads with user reaction data for personalized feed display
      */
-    private Page<Thread> enrichThreadsWithReactions(Page<Thread> threadPage, User user) {
-        List<Thread> threads = threadPage.getContent();
-        
-        if (threads.isEmpty()) {
-            return threadPage;
+    private FeedPage<FeedThreadDto> enrichThreadsWithReactions(FeedPage<FeedThreadDto> threadPage, User user) {
+        applyPendingViews(threadPage.getContent());
+        applyUserReactions(threadPage.getContent(), user);
+        return threadPage;
+    }
+
+    /**
+     * Add views still waiting in the write-behind buffer to the stored counts
+     */
+    private void applyPendingViews(List<FeedThreadDto> threads) {
+        for (FeedThreadDto thread : threads) {
+            thread.setViewCount(viewCountService.currentViewCount(thread.getId(), thread.getViewCount()));
         }
+    }
 
-        // This method doesn't modify the threads directly since we can't add 
-        // reaction data to the Thread entity. The frontend will need to make 
-        // separate calls to get reaction data, or we would need to create 
-        // a separate DTO class for feed responses.
-        
-        return threadPage;
+    /**
+     * Fill in the viewer's like/dislike state from the in-memory reaction index
+     */
+    private void applyUserReactions(List<FeedThreadDto> threads, User user) {
+        if (user == null || threads.isEmpty()) {
+            return; // Anonymous viewers keep the false defaults
+        }
+
+        List<UUID> threadIds = threads.stream()
+            .map(FeedThreadDto::getId)
+            .collect(Collectors.toList());
+        Map<UUID, UserThreadReaction.ReactionType> reactionsByThreadId =
+            reactionIndexService.reactionsOf(user.getId(), threadIds);
+
+        for (FeedThreadDto thread : threads) {
+            UserThreadReaction.ReactionType type = reactionsByThreadId.get(thread.getId());
+            thread.setIsLiked(type == UserThreadReaction.ReactionType.LIKE);
+            thread.setIsDisliked(type == UserThreadReaction.ReactionType.DISLIKE);
+        }
     }
 }
@@ -0,0 +1,125 @@
+package com.example.mediasphere_initial.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * HyperLogLog sketch for approximate distinct counts.
+ *
+ * 2^12 one-byte registers (4 KB) give a standard error of about 1.6% no matter
+ * how many distinct values are offered. Values are offered as 64-bit hashes:
+ * the top 12 bits pick a register and the register keeps the longest run of
+ * leading zeros seen in the remaining bits. Offering the same value again
+ * never changes the sketch, which is what makes it a dedupe.
+ */
+public final class HyperLogLog {
+
+    static final int PRECISION = 12;
+    static final int REGISTERS = 1 << PRECISION;
+
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this.registers = new byte[REGISTERS];
+    }
+
+    private HyperLogLog(byte[] registers) {
+        this.registers = registers;
+    }
+
+    /**
+     * Restore a sketch from {@link #toBytes()}; anything of the wrong size starts empty
+     */
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length != REGISTERS) {
+            return new HyperLogLog();
+        }
+        return new HyperLogLog(bytes.clone());
+    }
+
+    /**
+     * 64-bit hash of a string key (FNV-1a over UTF-8, then the MurmurHash3 finalizer to spread the bits)
+     */
+    public static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Offer a hashed value; returns whether the sketch changed, i.e. the value was probably not seen before
+     */
+    public synchronized boolean offer(long hash) {
+        int index = (int) (hash >>> (64 - PRECISION));
+        // Guard bit keeps the rank bounded when the remaining bits are all zero
+        long rest = (hash << PRECISION) | (1L << (PRECISION - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Estimated number of distinct values offered
+     */
+    public synchronized long cardinality() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            // Small range: linear counting over the empty registers is far more accurate
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Fold in the registers of another sketch of the same stream (register-wise max), so the result
+     * counts the values offered to either; returns whether this sketch changed
+     */
+    public synchronized boolean merge(byte[] other) {
+        if (other == null || other.length != REGISTERS) {
+            return false;
+        }
+        boolean changed = false;
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other[i] > registers[i]) {
+                registers[i] = other[i];
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    public synchronized boolean isEmpty() {
+        for (byte register : registers) {
+            if (register != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public synchronized byte[] toBytes() {
+        return Arrays.copyOf(registers, REGISTERS);
+    }
+}
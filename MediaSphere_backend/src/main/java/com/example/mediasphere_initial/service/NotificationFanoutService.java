@@ -0,0 +1,379 @@
+package com.example.mediasphere_initial.service;
+
+import com.example.mediasphere_initial.model.Notification;
+import com.example.mediasphere_initial.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers one notification to many recipients (club members, event participants)
+ * off the request thread.
+ *
+ * The triggering request only queues a job. A bounded pool writes the rows in
+ * chunks, each chunk as one multi-row INSERT, and pushes each chunk to the
+ * recipients who are connected, on any node, once it is stored. When the
+ * pool's queue is full the job is dropped and counted rather than run on the
+ * request thread. Queue depth, pending recipients, rejected jobs and
+ * enqueue-to-push lag are published as metrics.
+ *
+ * Coalesced jobs (likes, club joins) merge into each recipient's open aggregate:
+ * the unread notification of the same type and reference, turning it into
+ * "X and N others ...". An aggregate stays open while its latest activity is
+ * within notifications.coalesce.window-ms and keeps the ids of its actors, so
+ * an actor who likes again is not counted twice. Each chunk closes the
+ * aggregates that fell out of the window, then upserts one row per recipient
+ * in a single statement; the partial unique index on open aggregates (see
+ * SQL_files/notification_coalescing_migration.sql) makes concurrent workers
+ * merge into the same row instead of both inserting. A merged aggregate is
+ * pushed again at most once per notifications.coalesce.push-interval-ms.
+ * Since a merge only ever touches an unread row, the unread count still
+ * counts every notification the user has not seen.
+ */
+@Service
+@Slf4j
+public class NotificationFanoutService {
+
+    static final String INSERT_SQL = "INSERT INTO notifications (id, user_id, actor_id, title, content, type, "
+            + "is_read, reference_id, reference_type, created_at, aggregate_count) VALUES ";
+
+    // Parameters: id, user id, actor id, title, content, type, reference id, reference type, created at
+    static final String ROW_SQL = "(?, ?, ?, ?, ?, ?, false, ?, ?, ?, 1)";
+
+    static final int ROW_PARAMETERS = 9;
+
+    // Parameters: type, reference id, window start, the recipient ids
+    static final String CLOSE_SQL = "UPDATE notifications SET actor_ids = NULL "
+            + "WHERE type = ? AND reference_id = ? AND is_read = false AND actor_ids IS NOT NULL "
+            + "AND created_at < ? AND user_id IN (%s)";
+
+    static final String AGGREGATE_INSERT_SQL = "INSERT INTO notifications (id, user_id, actor_id, title, content, "
+            + "type, is_read, reference_id, reference_type, created_at, aggregate_count, actor_ids, last_pushed_at) "
+            + "VALUES ";
+
+    // Parameters: those of ROW_SQL, then actor id and created at
+    static final String AGGREGATE_ROW_SQL = "(?, ?, ?, ?, ?, ?, false, ?, ?, ?, 1, ARRAY[CAST(? AS uuid)], ?)";
+
+    static final int AGGREGATE_ROW_PARAMETERS = 11;
+
+    // Parameters after the rows: actor name, action, push cutoff. An actor already in the aggregate (an unlike
+    // and like again) fails the WHERE, so the row is left alone and not returned.
+    static final String MERGE_SQL = " ON CONFLICT (user_id, type, reference_id) "
+            + "WHERE is_read = false AND actor_ids IS NOT NULL DO UPDATE SET "
+            + "aggregate_count = notifications.aggregate_count + 1, "
+            + "actor_ids = array_append(notifications.actor_ids, EXCLUDED.actor_id), "
+            + "content = CONCAT(?, ' and ', notifications.aggregate_count, "
+            + "CASE WHEN notifications.aggregate_count = 1 THEN ' other' ELSE ' others' END, ?), "
+            + "actor_id = EXCLUDED.actor_id, created_at = EXCLUDED.created_at, "
+            + "last_pushed_at = CASE WHEN notifications.last_pushed_at < ? "
+            + "THEN EXCLUDED.created_at ELSE notifications.last_pushed_at END "
+            + "WHERE NOT EXCLUDED.actor_id = ANY(notifications.actor_ids) "
+            + "RETURNING id, user_id, content, aggregate_count, last_pushed_at = created_at AS push";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NotificationRelayService notificationRelayService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("notificationFanoutExecutor")
+    private Executor fanoutExecutor;
+
+    @Value("${notifications.fanout.batch-size:500}")
+    private int batchSize;
+
+    @Value("${notifications.coalesce.window-ms:3600000}")
+    private long coalesceWindowMs;
+
+    @Value("${notifications.coalesce.push-interval-ms:30000}")
+    private long pushIntervalMs;
+
+    private final AtomicInteger queuedJobs = new AtomicInteger();
+    private final AtomicLong pendingRecipients = new AtomicLong();
+
+    private Timer lag;
+    private Counter delivered;
+    private Counter failed;
+    private Counter rejected;
+    private Counter coalesced;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("notifications.fanout.queue.depth", queuedJobs, AtomicInteger::get)
+                .description("Fan-out jobs waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("notifications.fanout.pending.recipients", pendingRecipients, AtomicLong::get)
+                .description("Recipients queued or in progress whose notification is not stored yet")
+                .register(meterRegistry);
+        lag = Timer.builder("notifications.fanout.lag")
+                .description("Time from queueing a fan-out to storing and pushing each chunk")
+                .register(meterRegistry);
+        delivered = Counter.builder("notifications.fanout.delivered").register(meterRegistry);
+        failed = Counter.builder("notifications.fanout.failed").register(meterRegistry);
+        rejected = Counter.builder("notifications.fanout.rejected")
+                .description("Recipients whose notification was dropped because the fan-out queue was full")
+                .register(meterRegistry);
+        coalesced = Counter.builder("notifications.fanout.coalesced")
+                .description("Notifications merged into an existing unread aggregate instead of inserted")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queue a notification for every recipient except the actor and return immediately
+     */
+    public void fanOut(List<UUID> recipientIds, User actor, String title, String content, String type,
+            UUID referenceId, String referenceType) {
+        enqueue(recipientIds, new Job(actor, title, content, null, type, referenceId, referenceType));
+    }
+
+    /**
+     * Like fanOut, but merge into each recipient's recent unread notification of the same type and
+     * reference when there is one. The content is the actor's username followed by action, e.g.
+     * " liked your thread 'T'", which becomes "X and 3 others liked your thread 'T'" when merged.
+     */
+    public void coalesce(List<UUID> recipientIds, User actor, String title, String action, String type,
+            UUID referenceId, String referenceType) {
+        enqueue(recipientIds, new Job(actor, title, actor.getUsername() + action, action, type, referenceId,
+                referenceType));
+    }
+
+    private void enqueue(List<UUID> recipientIds, Job job) {
+        User actor = job.actor;
+        // Distinct, since one upsert cannot touch the same recipient's aggregate twice
+        Set<UUID> distinct = new LinkedHashSet<>(recipientIds.size());
+        for (UUID recipientId : recipientIds) {
+            if (recipientId != null && (actor == null || !recipientId.equals(actor.getId()))) {
+                distinct.add(recipientId);
+            }
+        }
+        if (distinct.isEmpty()) {
+            return;
+        }
+
+        List<UUID> recipients = new ArrayList<>(distinct);
+        job.recipients = recipients;
+        queuedJobs.incrementAndGet();
+        pendingRecipients.addAndGet(recipients.size());
+        try {
+            fanoutExecutor.execute(() -> {
+                queuedJobs.decrementAndGet();
+                deliver(job);
+            });
+        } catch (RejectedExecutionException e) {
+            queuedJobs.decrementAndGet();
+            pendingRecipients.addAndGet(-recipients.size());
+            rejected.increment(recipients.size());
+            log.warn("Fan-out queue full, dropped '{}' notification for {} recipients of {} {}", job.type,
+                    recipients.size(), job.referenceType, job.referenceId);
+        }
+    }
+
+    private void deliver(Job job) {
+        for (int from = 0; from < job.recipients.size(); from += batchSize) {
+            List<UUID> chunk = job.recipients.subList(from, Math.min(from + batchSize, job.recipients.size()));
+            try {
+                if (job.action != null) {
+                    coalesceChunk(job, chunk);
+                } else {
+                    notificationRelayService.publishAll(insertChunk(job, chunk));
+                }
+                delivered.increment(chunk.size());
+            } catch (Exception e) {
+                failed.increment(chunk.size());
+                log.error("Failed to deliver {} '{}' notifications for {} {}", chunk.size(), job.type,
+                        job.referenceType, job.referenceId, e);
+            } finally {
+                pendingRecipients.addAndGet(-chunk.size());
+                lag.record(System.nanoTime() - job.enqueuedAt, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private List<Notification> insertChunk(Job job, List<UUID> chunk) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Notification> notifications = newRows(job, chunk, now);
+
+        Object[] args = new Object[chunk.size() * ROW_PARAMETERS];
+        int i = 0;
+        for (Notification notification : notifications) {
+            i = addRowArgs(args, i, notification, job);
+        }
+
+        jdbcTemplate.update(insertSql(chunk.size()), args);
+        return notifications;
+    }
+
+    /**
+     * Close the chunk's aggregates that fell out of the window, then insert or merge one row per recipient.
+     * New rows are pushed together; merged ones are pushed one by one when their push interval allows.
+     */
+    private void coalesceChunk(Job job, List<UUID> chunk) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object> closeArgs = new ArrayList<>(chunk.size() + 3);
+        Collections.addAll(closeArgs, job.type, job.referenceId,
+                Timestamp.valueOf(now.minus(coalesceWindowMs, ChronoUnit.MILLIS)));
+        closeArgs.addAll(chunk);
+        jdbcTemplate.update(closeSql(chunk.size()), closeArgs.toArray());
+
+        List<Notification> rows = newRows(job, chunk, now);
+        Map<UUID, Notification> rowsById = new HashMap<>();
+        Object[] args = new Object[chunk.size() * AGGREGATE_ROW_PARAMETERS + 3];
+        int i = 0;
+        for (Notification row : rows) {
+            rowsById.put(row.getId(), row);
+            i = addRowArgs(args, i, row, job);
+            args[i++] = job.actor.getId();
+            args[i++] = Timestamp.valueOf(now);
+        }
+        args[i++] = job.actor.getUsername();
+        args[i++] = job.action;
+        args[i] = Timestamp.valueOf(now.minus(pushIntervalMs, ChronoUnit.MILLIS));
+
+        List<Merged> stored = jdbcTemplate.query(mergeSql(chunk.size()), (rs, rowNum) -> {
+            Notification notification = new Notification();
+            notification.setId(rs.getObject("id", UUID.class));
+            notification.setUser(userRef(rs.getObject("user_id", UUID.class)));
+            notification.setActor(job.actor);
+            notification.setTitle(job.title);
+            notification.setContent(rs.getString("content"));
+            notification.setType(job.type);
+            notification.setReferenceId(job.referenceId);
+            notification.setReferenceType(job.referenceType);
+            notification.setIsRead(false);
+            notification.setCreatedAt(now);
+            notification.setAggregateCount(rs.getInt("aggregate_count"));
+            return new Merged(notification, rs.getBoolean("push"));
+        }, args);
+
+        // Recipients missing from the result already had this actor in their aggregate
+        List<Notification> inserted = new ArrayList<>();
+        for (Merged row : stored) {
+            Notification fresh = rowsById.get(row.notification.getId());
+            if (fresh != null) {
+                inserted.add(fresh);
+            } else if (row.push) {
+                notificationRelayService.publish(row.notification);
+            }
+        }
+        if (!inserted.isEmpty()) {
+            notificationRelayService.publishAll(inserted);
+        }
+        coalesced.increment(chunk.size() - inserted.size());
+    }
+
+    private List<Notification> newRows(Job job, List<UUID> chunk, LocalDateTime now) {
+        List<Notification> notifications = new ArrayList<>(chunk.size());
+        for (UUID userId : chunk) {
+            Notification notification = new Notification();
+            notification.setId(UUID.randomUUID());
+            notification.setUser(userRef(userId));
+            notification.setActor(job.actor);
+            notification.setTitle(job.title);
+            notification.setContent(job.content);
+            notification.setType(job.type);
+            notification.setReferenceId(job.referenceId);
+            notification.setReferenceType(job.referenceType);
+            notification.setIsRead(false);
+            notification.setCreatedAt(now);
+            notifications.add(notification);
+        }
+        return notifications;
+    }
+
+    /**
+     * Write the ROW_SQL parameters of the notification from index i, returning the next index
+     */
+    private static int addRowArgs(Object[] args, int i, Notification notification, Job job) {
+        args[i++] = notification.getId();
+        args[i++] = notification.getUser().getId();
+        args[i++] = job.actor != null ? job.actor.getId() : null;
+        args[i++] = job.title;
+        args[i++] = job.content;
+        args[i++] = job.type;
+        args[i++] = job.referenceId;
+        args[i++] = job.referenceType;
+        args[i++] = Timestamp.valueOf(notification.getCreatedAt());
+        return i;
+    }
+
+    static String closeSql(int recipients) {
+        return String.format(CLOSE_SQL, String.join(", ", Collections.nCopies(recipients, "?")));
+    }
+
+    static String mergeSql(int rows) {
+        return AGGREGATE_INSERT_SQL + String.join(", ", Collections.nCopies(rows, AGGREGATE_ROW_SQL)) + MERGE_SQL;
+    }
+
+    static String insertSql(int rows) {
+        return INSERT_SQL + String.join(", ", Collections.nCopies(rows, ROW_SQL));
+    }
+
+    private static User userRef(UUID userId) {
+        User user = new User();
+        user.setId(userId);
+        return user;
+    }
+
+    private static final class Merged {
+        private final Notification notification;
+        private final boolean push;
+
+        Merged(Notification notification, boolean push) {
+            this.notification = notification;
+            this.push = push;
+        }
+    }
+
+    private static final class Job {
+        private List<UUID> recipients;
+        private final User actor;
+        private final String title;
+        private final String content;
+        // Set for coalesced jobs: the content after the actor's name
+        private final String action;
+        private final String type;
+        private final UUID referenceId;
+        private final String referenceType;
+        private final long enqueuedAt = System.nanoTime();
+
+        Job(User actor, String title, String content, String action, String type, UUID referenceId,
+                String referenceType) {
+            this.actor = actor;
+            this.title = title;
+            this.content = content;
+            this.action = action;
+            this.type = type;
+            this.referenceId = referenceId;
+            this.referenceType = referenceType;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.mediasphere_initial.service;
+
+import com.example.mediasphere_initial.dto.NotificationEventDto;
+import com.example.mediasphere_initial.model.Notification;
+import com.example.mediasphere_initial.repository.NotificationRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Delivers real-time notifications to users connected to any backend node.
+ *
+ * Notifications are pushed to this node's connections directly and published
+ * on a Postgres NOTIFY channel. Every node keeps one dedicated connection,
+ * opened outside the pool, LISTENing on that channel, skips messages it
+ * published itself and pushes the rest to the recipients connected to it. A
+ * message carries the shared notification body once plus (recipient,
+ * notification id) pairs; when the body would not fit Postgres' 8000 byte
+ * payload limit only the ids are sent and receiving nodes load the rows.
+ *
+ * Both the local push and the NOTIFY wait for the caller's transaction to
+ * commit, so rolled back notifications are never pushed. The NOTIFY then runs
+ * on its own, so a failed pg_notify cannot abort the caller's write.
+ *
+ * Without Postgres (tests on H2) or with notifications.cluster.enabled=false
+ * delivery stays local to the node.
+ */
+@Service
+@Slf4j
+public class NotificationRelayService {
+
+    static final String CHANNEL = "notification_events";
+
+    // Parameters: channel, payload
+    static final String NOTIFY_SQL = "SELECT pg_notify(?, ?)";
+
+    // Postgres rejects NOTIFY payloads of 8000 bytes or more
+    static final int MAX_PAYLOAD_BYTES = 7900;
+
+    static final int RECIPIENTS_PER_MESSAGE = 50;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private NotificationStreamService notificationStreamService;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private AfterCommitService afterCommitService;
+
+    @Value("${spring.datasource.url:}")
+    private String url;
+
+    @Value("${spring.datasource.username:}")
+    private String username;
+
+    @Value("${spring.datasource.password:}")
+    private String password;
+
+    @Value("${notifications.cluster.enabled:true}")
+    private boolean enabled;
+
+    @Value("${notifications.cluster.reconnect-ms:5000}")
+    private long reconnectMs;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private volatile boolean active;
+    private volatile boolean running;
+    private Thread listener;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            active = connection.isWrapperFor(PGConnection.class);
+        } catch (SQLException e) {
+            log.warn("Could not check the database for LISTEN/NOTIFY support", e);
+        }
+        if (!active) {
+            log.info("Notification relay disabled: the database does not support LISTEN/NOTIFY");
+            return;
+        }
+
+        running = true;
+        listener = new Thread(this::listen, "notification-relay");
+        listener.setDaemon(true);
+        listener.start();
+        log.info("Notification relay listening on '{}' as node {}", CHANNEL, nodeId);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    /**
+     * Push one notification to its recipient wherever they are connected
+     */
+    public void publish(Notification notification) {
+        publishAll(Collections.singletonList(notification));
+    }
+
+    /**
+     * Push copies of one notification (same title, content and actor; one row per recipient) to
+     * their recipients wherever they are connected
+     */
+    public void publishAll(List<Notification> notifications) {
+        if (!notifications.isEmpty()) {
+            afterCommitService.run(() -> deliver(notifications));
+        }
+    }
+
+    private void deliver(List<Notification> notifications) {
+        for (Notification notification : notifications) {
+            notificationStreamService.sendNotificationToUser(notification.getUser().getId(), notification);
+        }
+        if (!active) {
+            return;
+        }
+
+        NotificationEventDto event = new NotificationEventDto(notifications.get(0));
+        event.setId(null);
+        for (int from = 0; from < notifications.size(); from += RECIPIENTS_PER_MESSAGE) {
+            List<Notification> batch = notifications.subList(from,
+                    Math.min(from + RECIPIENTS_PER_MESSAGE, notifications.size()));
+            try {
+                jdbcTemplate.queryForList(NOTIFY_SQL, CHANNEL, payload(event, batch));
+            } catch (Exception e) {
+                log.warn("Failed to relay {} notifications to other nodes", batch.size(), e);
+            }
+        }
+    }
+
+    String payload(NotificationEventDto event, List<Notification> batch) throws JsonProcessingException {
+        RelayMessage message = new RelayMessage();
+        message.setOrigin(nodeId);
+        message.setEvent(event);
+        for (Notification notification : batch) {
+            message.getRecipients().add(new Recipient(notification.getUser().getId(), notification.getId()));
+        }
+
+        String payload = objectMapper.writeValueAsString(message);
+        if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD_BYTES) {
+            message.setEvent(null);
+            payload = objectMapper.writeValueAsString(message);
+        }
+        return payload;
+    }
+
+    /**
+     * Route a message from the channel to the recipients connected to this node
+     */
+    void handle(String payload) {
+        try {
+            RelayMessage message = objectMapper.readValue(payload, RelayMessage.class);
+            if (nodeId.equals(message.getOrigin())) {
+                return;
+            }
+
+            List<Recipient> local = new ArrayList<>();
+            for (Recipient recipient : message.getRecipients()) {
+                if (notificationStreamService.acceptsEvents(recipient.getUserId())) {
+                    local.add(recipient);
+                }
+            }
+            if (local.isEmpty()) {
+                return;
+            }
+
+            NotificationEventDto event = message.getEvent();
+            if (event != null) {
+                for (Recipient recipient : local) {
+                    event.setId(recipient.getNotificationId());
+                    notificationStreamService.sendEventToUser(recipient.getUserId(), event);
+                }
+            } else {
+                List<UUID> ids = local.stream().map(Recipient::getNotificationId).toList();
+                for (Notification notification : notificationRepository.findAllById(ids)) {
+                    notificationStreamService.sendNotificationToUser(notification.getUser().getId(), notification);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Dropping unreadable notification relay message", e);
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            // Not a pooled connection: closing it ends the LISTEN instead of handing a subscribed
+            // connection to the next borrower, and the listener does not hold a pool slot
+            try (Connection connection = DriverManager.getConnection(url, username, password)) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(1000);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            handle(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Notification relay connection lost, reconnecting in {} ms", reconnectMs, e);
+                try {
+                    Thread.sleep(reconnectMs);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    static class RelayMessage {
+        private String origin;
+        private NotificationEventDto event;
+        private List<Recipient> recipients = new ArrayList<>();
+
+        public String getOrigin() { return origin; }
+        public void setOrigin(String origin) { this.origin = origin; }
+
+        public NotificationEventDto getEvent() { return event; }
+        public void setEvent(NotificationEventDto event) { this.event = event; }
+
+        public List<Recipient> getRecipients() { return recipients; }
+        public void setRecipients(List<Recipient> recipients) { this.recipients = recipients; }
+    }
+
+    static class Recipient {
+        private UUID userId;
+        private UUID notificationId;
+
+        public Recipient() {}
+
+        public Recipient(UUID userId, UUID notificationId) {
+            this.userId = userId;
+            this.notificationId = notificationId;
+        }
+
+        public UUID getUserId() { return userId; }
+        public void setUserId(UUID userId) { this.userId = userId; }
+
+        public UUID getNotificationId() { return notificationId; }
+        public void setNotificationId(UUID notificationId) { this.notificationId = notificationId; }
+    }
+}
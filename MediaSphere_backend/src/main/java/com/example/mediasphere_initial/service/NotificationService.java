@@ -3,22 +3,36 @@ package com.example.mediasphere_initial.service;
 import com.example.mediasphere_initial.model.Notification;
 import com.example.mediasphere_initial.model.User;
 import com.example.mediasphere_initial.repository.NotificationRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Service
+@Slf4j
 public class NotificationService {
 
     @Autowired
     private NotificationRepository notificationRepository;
 
     @Autowired
-    private NotificationStreamService notificationStreamService;
+    private NotificationRelayService notificationRelayService;
+
+    @Autowired
+    private NotificationFanoutService notificationFanoutService;
+
+    @Value("${notifications.retention.days:30}")
+    private int retentionDays;
+
+    @Value("${notifications.retention.chunk-size:1000}")
+    private int retentionChunkSize;
 
     public List<Notification> getAllUserNotifications(User user) {
         return notificationRepository.findByUserOrderByCreatedAtDesc(user);
@@ -43,17 +57,46 @@ public class NotificationService {
 
         // Only allow updating isRead status and content (if allowed)
         if (updatedNotification.getIsRead() != null) {
+            if (!updatedNotification.getIsRead() && existingNotification.getActorIds() != null) {
+                notificationRepository.closeAggregate(notificationId);
+            }
             existingNotification.setIsRead(updatedNotification.getIsRead());
         }
 
         return notificationRepository.save(existingNotification);
     }
 
-    public void markAllAsRead(User user) {
-        List<Notification> unreadNotifications = getUnreadNotifications(user);
-        for (Notification notification : unreadNotifications) {
-            notification.setIsRead(true);
-            notificationRepository.save(notification);
+    public int markAllAsRead(User user) {
+        return notificationRepository.markAllRead(user.getId());
+    }
+
+    public int markAsRead(User user, Collection<UUID> notificationIds) {
+        if (notificationIds == null || notificationIds.isEmpty()) {
+            return 0;
+        }
+        return notificationRepository.markReadByIds(user.getId(), notificationIds);
+    }
+
+    public int markAsReadBefore(User user, LocalDateTime before) {
+        return notificationRepository.markReadBefore(user.getId(), before);
+    }
+
+    /**
+     * Retention: delete read notifications older than the retention period, a bounded chunk per
+     * statement so no single delete holds locks on a large slice of the table
+     */
+    @Scheduled(cron = "${notifications.retention.cron:0 15 3 * * *}")
+    public void purgeReadNotifications() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        int total = 0;
+        int deleted;
+        do {
+            deleted = notificationRepository.deleteReadOlderThan(cutoff, retentionChunkSize);
+            total += deleted;
+        } while (deleted >= retentionChunkSize);
+
+        if (total > 0) {
+            log.info("Deleted {} read notifications older than {} days", total, retentionDays);
         }
     }
 
@@ -83,8 +126,8 @@ public class NotificationService {
 
         Notification savedNotification = notificationRepository.save(notification);
 
-        // Send real-time notification to user
-        notificationStreamService.sendNotificationToUser(user.getId(), savedNotification);
+        // Send real-time notification to user, on whichever node they are connected
+        notificationRelayService.publish(savedNotification);
 
         return savedNotification;
     }
@@ -120,12 +163,16 @@ public class NotificationService {
         }
     }
 
+    // Likes are coalesced: further likes merge into the owner's recent unread like notification
+    // ("X and 12 others liked your thread") instead of adding a row and a push each
+
     // Method to send notification for thread likes
     public void notifyThreadLike(User threadOwner, User liker, String threadTitle, UUID threadId) {
         if (!threadOwner.getId().equals(liker.getId())) { // Don't notify self
             String title = "Thread liked";
-            String content = liker.getUsername() + " liked your thread '" + threadTitle + "'";
-            createAndSendNotification(threadOwner, liker, title, content, "thread_like", threadId, "thread");
+            String action = " liked your thread '" + threadTitle + "'";
+            notificationFanoutService.coalesce(List.of(threadOwner.getId()), liker, title, action, "thread_like",
+                    threadId, "thread");
         }
     }
 
@@ -133,8 +180,9 @@ public class NotificationService {
     public void notifyCommentLike(User commentOwner, User liker, String threadTitle, UUID threadId) {
         if (!commentOwner.getId().equals(liker.getId())) { // Don't notify self
             String title = "Comment liked";
-            String content = liker.getUsername() + " liked your comment in '" + threadTitle + "'";
-            createAndSendNotification(commentOwner, liker, title, content, "comment_like", threadId, "thread");
+            String action = " liked your comment in '" + threadTitle + "'";
+            notificationFanoutService.coalesce(List.of(commentOwner.getId()), liker, title, action, "comment_like",
+                    threadId, "thread");
         }
     }
 
@@ -156,80 +204,60 @@ public class NotificationService {
         }
     }
 
+    // Club-wide notifications are queued and written in batches off the request thread;
+    // the actor is never notified of their own action
+
     // Method to send notification for club member join
-    public void notifyClubJoin(List<User> clubMembers, User newMember, String clubName, UUID clubId) {
-        for (User member : clubMembers) {
-            if (!member.getId().equals(newMember.getId())) { // Don't notify the new member
-                String title = "New club member";
-                String content = newMember.getUsername() + " joined " + clubName;
-                createAndSendNotification(member, newMember, title, content, "club_join", clubId, "club");
-            }
-        }
+    public void notifyClubJoin(List<UUID> clubMemberIds, User newMember, String clubName, UUID clubId) {
+        String title = "New club member";
+        String action = " joined " + clubName;
+        notificationFanoutService.coalesce(clubMemberIds, newMember, title, action, "club_join", clubId, "club");
     }
 
     // Method to send notification for club member leave
-    public void notifyClubLeave(List<User> clubMembers, User leavingMember, String clubName, UUID clubId) {
-        for (User member : clubMembers) {
-            if (!member.getId().equals(leavingMember.getId())) { // Don't notify the leaving member
-                String title = "Member left club";
-                String content = leavingMember.getUsername() + " left " + clubName;
-                createAndSendNotification(member, leavingMember, title, content, "club_leave", clubId, "club");
-            }
-        }
+    public void notifyClubLeave(List<UUID> clubMemberIds, User leavingMember, String clubName, UUID clubId) {
+        String title = "Member left club";
+        String content = leavingMember.getUsername() + " left " + clubName;
+        notificationFanoutService.fanOut(clubMemberIds, leavingMember, title, content, "club_leave", clubId, "club");
     }
 
     // Method to send notification for new club thread
-    public void notifyClubThreadCreated(List<User> clubMembers, User creator, String threadTitle, String clubName,
+    public void notifyClubThreadCreated(List<UUID> clubMemberIds, User creator, String threadTitle, String clubName,
             UUID threadId) {
-        for (User member : clubMembers) {
-            if (!member.getId().equals(creator.getId())) { // Don't notify the creator
-                String title = "New thread in " + clubName;
-                String content = creator.getUsername() + " created '" + threadTitle + "' in " + clubName;
-                createAndSendNotification(member, creator, title, content, "club_thread_created", threadId, "thread");
-            }
-        }
+        String title = "New thread in " + clubName;
+        String content = creator.getUsername() + " created '" + threadTitle + "' in " + clubName;
+        notificationFanoutService.fanOut(clubMemberIds, creator, title, content, "club_thread_created", threadId,
+                "thread");
     }
 
     // Method to send notification for event creation
-    public void notifyEventCreated(List<User> clubMembers, User creator, String eventTitle, String clubName, UUID eventId) {
-        for (User member : clubMembers) {
-            if (!member.getId().equals(creator.getId())) { // Don't notify the creator
-                String title = "New event in " + clubName;
-                String content = creator.getUsername() + " created event '" + eventTitle + "' in " + clubName;
-                createAndSendNotification(member, creator, title, content, "event_created", eventId, "event");
-            }
-        }
+    public void notifyEventCreated(List<UUID> clubMemberIds, User creator, String eventTitle, String clubName,
+            UUID eventId) {
+        String title = "New event in " + clubName;
+        String content = creator.getUsername() + " created event '" + eventTitle + "' in " + clubName;
+        notificationFanoutService.fanOut(clubMemberIds, creator, title, content, "event_created", eventId, "event");
     }
 
     // Method to send notification for event updates
-    public void notifyEventUpdated(List<User> participants, User updater, String eventTitle, UUID eventId) {
-        for (User participant : participants) {
-            if (!participant.getId().equals(updater.getId())) { // Don't notify the updater
-                String title = "Event updated";
-                String content = updater.getUsername() + " updated event '" + eventTitle + "'";
-                createAndSendNotification(participant, updater, title, content, "event_updated", eventId, "event");
-            }
-        }
+    public void notifyEventUpdated(List<UUID> participantIds, User updater, String eventTitle, UUID eventId) {
+        String title = "Event updated";
+        String content = updater.getUsername() + " updated event '" + eventTitle + "'";
+        notificationFanoutService.fanOut(participantIds, updater, title, content, "event_updated", eventId, "event");
     }
 
     // Method to send notification for event cancellation
-    public void notifyEventCancelled(List<User> participants, User canceller, String eventTitle, UUID eventId) {
-        for (User participant : participants) {
-            if (!participant.getId().equals(canceller.getId())) { // Don't notify the canceller
-                String title = "Event cancelled";
-                String content = canceller.getUsername() + " cancelled event '" + eventTitle + "'";
-                createAndSendNotification(participant, canceller, title, content, "event_cancelled", eventId, "event");
-            }
-        }
+    public void notifyEventCancelled(List<UUID> participantIds, User canceller, String eventTitle, UUID eventId) {
+        String title = "Event cancelled";
+        String content = canceller.getUsername() + " cancelled event '" + eventTitle + "'";
+        notificationFanoutService.fanOut(participantIds, canceller, title, content, "event_cancelled", eventId,
+                "event");
     }
 
     // Method to send notification for event reminders
-    public void notifyEventReminder(List<User> participants, String eventTitle, UUID eventId) {
-        for (User participant : participants) {
-            String title = "Event reminder";
-            String content = "Event '" + eventTitle + "' is starting soon";
-            createAndSendNotification(participant, null, title, content, "event_reminder", eventId, "event");
-        }
+    public void notifyEventReminder(List<UUID> participantIds, String eventTitle, UUID eventId) {
+        String title = "Event reminder";
+        String content = "Event '" + eventTitle + "' is starting soon";
+        notificationFanoutService.fanOut(participantIds, null, title, content, "event_reminder", eventId, "event");
     }
 
     // Method to send notification for general reactions (emojis, custom reactions)
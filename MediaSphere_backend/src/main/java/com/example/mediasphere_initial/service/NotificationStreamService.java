@@ -1,74 +1,559 @@
 package com.example.mediasphere_initial.service;
 
+import com.example.mediasphere_initial.dto.NotificationEventDto;
 import com.example.mediasphere_initial.model.Notification;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Owns the SSE connections of each user and pushes notifications to them.
+ *
+ * A notification is rendered once, as a compact NotificationEventDto, into a
+ * complete SSE frame that every target connection shares. Producers only
+ * enqueue: each connection has a small bounded queue drained by the dispatch
+ * pool, one drain at a time per connection, so a slow client never blocks the
+ * request that created the notification. When a queue is full the oldest
+ * frame is dropped; a connection that stays full for longer than
+ * notifications.stream.evict-after-ms is evicted.
+ *
+ * Connections are capped per user (the oldest tab is closed) and globally (new
+ * connections are refused). One scheduler tick queues a shared comment-frame
+ * heartbeat on every idle connection, so dead TCP connections surface as a
+ * failed write, and reaps connections whose writer has been stuck for the
+ * eviction window.
+ *
+ * Every notification frame carries an id of the form epoch-sequence, where the
+ * sequence is monotonic for this node. The "connected" event carries the id of
+ * the user's latest frame, so a client has a resume point before its first
+ * notification. The last frames of each user are kept in a small replay ring
+ * while they are connected and for notifications.stream.replay-ttl-ms after
+ * they disconnect, so a client that reconnects with the last id it saw
+ * receives only what it missed. When the gap is no longer in the ring (or the
+ * id came from another node or an earlier run) the client gets a "resync"
+ * event and reloads instead.
+ */
 @Service
+@Slf4j
 public class NotificationStreamService {
 
-    private final Map<UUID, List<SseEmitter>> userEmitters = new ConcurrentHashMap<>();
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    static final String EVENT_NAME = "notification";
 
-    public void addEmitter(UUID userId, SseEmitter emitter) {
-        userEmitters.computeIfAbsent(userId, k -> new CopyOnWriteArrayList<>()).add(emitter);
+    static final Set<DataWithMediaType> RESYNC_FRAME = Collections.unmodifiableSet(SseEmitter.event()
+            .name("resync")
+            .data("{\"message\": \"Missed notifications are no longer available, reload them\"}")
+            .build());
+
+    static final Set<DataWithMediaType> HEARTBEAT_FRAME = Collections.unmodifiableSet(SseEmitter.event()
+            .comment("heartbeat")
+            .build());
+
+    private final Map<UUID, List<Connection>> userEmitters = new ConcurrentHashMap<>();
+    private final Map<UUID, ReplayRing> replayRings = new ConcurrentHashMap<>();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    // Distinguishes this node and run, so ids from elsewhere are never matched against the local sequence
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36)
+            + Integer.toString(ThreadLocalRandom.current().nextInt(36 * 36 * 36), 36);
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("notificationDispatchExecutor")
+    private Executor dispatchExecutor;
+
+    @Value("${notifications.stream.queue-capacity:32}")
+    private int queueCapacity;
+
+    @Value("${notifications.stream.evict-after-ms:30000}")
+    private long evictAfterMs;
+
+    @Value("${notifications.stream.timeout-ms:3600000}")
+    private long timeoutMs;
+
+    @Value("${notifications.stream.max-per-user:5}")
+    private int maxPerUser;
+
+    @Value("${notifications.stream.max-connections:10000}")
+    private int maxConnections;
+
+    @Value("${notifications.stream.replay-size:32}")
+    private int replaySize;
+
+    @Value("${notifications.stream.replay-ttl-ms:300000}")
+    private long replayTtlMs;
+
+    private Counter dropped;
+    private Counter evicted;
+    private Counter reaped;
+    private Counter rejected;
+    private Counter replayed;
+    private Counter resyncs;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("notifications.stream.connections", totalConnections, AtomicInteger::get)
+                .description("Open SSE notification connections")
+                .register(meterRegistry);
+        Gauge.builder("notifications.stream.users", userEmitters, Map::size)
+                .description("Users with at least one open SSE notification connection")
+                .register(meterRegistry);
+        Gauge.builder("notifications.stream.queue.depth", userEmitters, NotificationStreamService::queuedFrames)
+                .description("Frames waiting in per-connection SSE queues")
+                .register(meterRegistry);
+        dropped = Counter.builder("notifications.stream.dropped")
+                .description("Frames dropped because a connection's queue was full")
+                .register(meterRegistry);
+        evicted = Counter.builder("notifications.stream.evicted")
+                .description("Connections closed after staying saturated")
+                .register(meterRegistry);
+        reaped = Counter.builder("notifications.stream.reaped")
+                .description("Connections removed after a failed write or a stalled writer")
+                .register(meterRegistry);
+        rejected = Counter.builder("notifications.stream.rejected")
+                .description("Connections refused because the global limit was reached")
+                .register(meterRegistry);
+        replayed = Counter.builder("notifications.stream.replayed")
+                .description("Frames resent to reconnecting clients from the replay ring")
+                .register(meterRegistry);
+        resyncs = Counter.builder("notifications.stream.resyncs")
+                .description("Reconnects whose gap was no longer in the replay ring")
+                .register(meterRegistry);
     }
 
-    public void removeEmitter(UUID userId, SseEmitter emitter) {
-        List<SseEmitter> emitters = userEmitters.get(userId);
-        if (emitters != null) {
-            emitters.remove(emitter);
-            if (emitters.isEmpty()) {
-                userEmitters.remove(userId);
+    /**
+     * Open a stream for the user, resuming after lastEventId when given; empty when the global
+     * connection limit is reached
+     */
+    public Optional<SseEmitter> connect(UUID userId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        if (!addEmitter(userId, emitter, lastEventId)) {
+            return Optional.empty();
+        }
+
+        emitter.onCompletion(() -> removeEmitter(userId, emitter));
+        emitter.onTimeout(() -> removeEmitter(userId, emitter));
+        emitter.onError((ex) -> removeEmitter(userId, emitter));
+        return Optional.of(emitter);
+    }
+
+    /**
+     * Register an emitter, closing the user's oldest connection when they are at the per-user limit.
+     * Returns false, without registering, when the global limit is reached.
+     */
+    public boolean addEmitter(UUID userId, SseEmitter emitter) {
+        return addEmitter(userId, emitter, null);
+    }
+
+    /**
+     * Register an emitter and queue the frames the client missed after lastEventId, or a resync event
+     * when they are no longer available
+     */
+    public boolean addEmitter(UUID userId, SseEmitter emitter, String lastEventId) {
+        if (totalConnections.incrementAndGet() > maxConnections) {
+            totalConnections.decrementAndGet();
+            rejected.increment();
+            log.warn("Refusing SSE connection for user {}: {} connections open", userId, maxConnections);
+            return false;
+        }
+
+        boolean[] known = new boolean[1];
+        ReplayRing ring = replayRings.compute(userId, (k, existing) -> {
+            known[0] = existing != null;
+            ReplayRing touched = existing != null ? existing : new ReplayRing(replaySize, sequence.get());
+            touched.lastTouched = System.nanoTime();
+            return touched;
+        });
+
+        Connection connection = new Connection(userId, emitter, queueCapacity);
+        Connection[] oldest = new Connection[1];
+        // Under the ring lock no event can land between computing the replay and going live
+        synchronized (ring) {
+            userEmitters.compute(userId, (k, connections) -> {
+                List<Connection> list = connections != null ? connections : new CopyOnWriteArrayList<>();
+                if (list.size() >= maxPerUser) {
+                    oldest[0] = list.get(0);
+                }
+                list.add(connection);
+                return list;
+            });
+            enqueue(connection, connectedFrame(ring.position()));
+            if (lastEventId != null && !lastEventId.isBlank()) {
+                resume(connection, known[0] ? ring : null, lastEventId);
             }
         }
+        if (oldest[0] != null) {
+            close(oldest[0]);
+        }
+        return true;
     }
 
-    public void sendNotificationToUser(UUID userId, Notification notification) {
-        List<SseEmitter> emitters = userEmitters.get(userId);
-        if (emitters != null) {
-            // Create a copy to avoid concurrent modification
-            List<SseEmitter> emittersCopy = new CopyOnWriteArrayList<>(emitters);
-
-            for (SseEmitter emitter : emittersCopy) {
-                try {
-                    String notificationJson = objectMapper.writeValueAsString(notification);
-                    emitter.send(SseEmitter.event()
-                            .name("notification")
-                            .data(notificationJson));
-                } catch (Exception e) {
-                    // Remove failed emitter
-                    removeEmitter(userId, emitter);
-                    try {
-                        emitter.complete();
-                    } catch (Exception ignored) {
-                    }
+    private void resume(Connection connection, ReplayRing ring, String lastEventId) {
+        List<Frame> missed = null;
+        long lastSequence = parseSequence(lastEventId);
+        if (ring != null && lastSequence >= 0) {
+            missed = ring.since(lastSequence);
+        }
+        if (missed == null || missed.size() >= queueCapacity) {
+            resyncs.increment();
+            enqueue(connection, RESYNC_FRAME);
+            return;
+        }
+        for (Frame frame : missed) {
+            enqueue(connection, frame.data);
+        }
+        replayed.increment(missed.size());
+    }
+
+    /**
+     * The sequence from an id issued by this node in this run, or -1
+     */
+    private long parseSequence(String eventId) {
+        int dash = eventId.lastIndexOf('-');
+        if (dash < 0 || !eventId.substring(0, dash).equals(epoch)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public void removeEmitter(UUID userId, SseEmitter emitter) {
+        List<Connection> connections = userEmitters.get(userId);
+        if (connections != null) {
+            for (Connection connection : connections) {
+                if (connection.emitter == emitter) {
+                    close(connection);
                 }
             }
         }
     }
 
+    public void sendNotificationToUser(UUID userId, Notification notification) {
+        if (acceptsEvents(userId)) {
+            sendEventToUser(userId, new NotificationEventDto(notification));
+        }
+    }
+
+    /**
+     * Push an already-built event to the user's connections on this node
+     */
+    public void sendEventToUser(UUID userId, NotificationEventDto event) {
+        ReplayRing ring = replayRings.get(userId);
+        if (ring == null) {
+            return;
+        }
+        Frame frame = encode(event);
+        if (frame != null) {
+            deliver(userId, ring, frame);
+        }
+    }
+
     public void sendNotificationToAllUsers(Notification notification) {
-        for (Map.Entry<UUID, List<SseEmitter>> entry : userEmitters.entrySet()) {
-            sendNotificationToUser(entry.getKey(), notification);
+        if (replayRings.isEmpty()) {
+            return;
+        }
+        Frame frame = encode(new NotificationEventDto(notification));
+        if (frame == null) {
+            return;
+        }
+        for (Map.Entry<UUID, ReplayRing> entry : replayRings.entrySet()) {
+            deliver(entry.getKey(), entry.getValue(), frame);
         }
     }
 
+    /**
+     * Whether events for the user are pushed or kept for replay here: they are connected, or were
+     * within the replay window
+     */
+    public boolean acceptsEvents(UUID userId) {
+        return replayRings.containsKey(userId);
+    }
+
     public boolean hasActiveConnections(UUID userId) {
-        List<SseEmitter> emitters = userEmitters.get(userId);
-        return emitters != null && !emitters.isEmpty();
+        List<Connection> connections = userEmitters.get(userId);
+        return connections != null && !connections.isEmpty();
     }
 
     public int getActiveConnectionsCount() {
-        return userEmitters.values().stream()
-                .mapToInt(List::size)
-                .sum();
+        return totalConnections.get();
+    }
+
+    /**
+     * Queue the shared heartbeat on every idle connection and reap connections whose writer has not
+     * completed a write within the eviction window while frames are waiting
+     */
+    @Scheduled(fixedDelayString = "${notifications.stream.heartbeat-ms:15000}")
+    public void sendHeartbeats() {
+        long now = System.nanoTime();
+        long replayTtl = TimeUnit.MILLISECONDS.toNanos(replayTtlMs);
+        for (UUID userId : replayRings.keySet()) {
+            replayRings.computeIfPresent(userId, (k, ring) ->
+                    userEmitters.containsKey(k) || now - ring.lastTouched < replayTtl ? ring : null);
+        }
+
+        long stalledAfter = TimeUnit.MILLISECONDS.toNanos(evictAfterMs);
+        for (List<Connection> connections : userEmitters.values()) {
+            for (Connection connection : connections) {
+                if (connection.queue.isEmpty()) {
+                    enqueue(connection, HEARTBEAT_FRAME);
+                } else if (now - connection.lastWriteAt >= stalledAfter) {
+                    log.warn("Reaping SSE connection of user {}: no write completed in {} ms",
+                            connection.userId, evictAfterMs);
+                    reaped.increment();
+                    close(connection);
+                }
+            }
+        }
+    }
+
+    /**
+     * The "connected" event, carrying the id of the user's latest frame as the client's resume point
+     */
+    private Set<DataWithMediaType> connectedFrame(long position) {
+        return SseEmitter.event()
+                .id(epoch + "-" + position)
+                .name("connected")
+                .data("{\"message\": \"Connected to real-time notifications\"}")
+                .build();
+    }
+
+    /**
+     * Render the event into a ready-to-write SSE frame with the next event id, or null if it cannot
+     * be serialized
+     */
+    Frame encode(NotificationEventDto event) {
+        try {
+            String json = objectMapper.writeValueAsString(event);
+            long seq = sequence.incrementAndGet();
+            return new Frame(seq, Collections.unmodifiableSet(SseEmitter.event()
+                    .id(epoch + "-" + seq)
+                    .name(EVENT_NAME)
+                    .data(json)
+                    .build()));
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize notification {}", event.getId(), e);
+            return null;
+        }
+    }
+
+    private void deliver(UUID userId, ReplayRing ring, Frame frame) {
+        synchronized (ring) {
+            ring.append(frame);
+            List<Connection> connections = userEmitters.get(userId);
+            if (connections != null) {
+                for (Connection connection : connections) {
+                    enqueue(connection, frame.data);
+                }
+            }
+        }
+    }
+
+    private void enqueue(Connection connection, Set<DataWithMediaType> frame) {
+        while (!connection.closed.get() && !connection.queue.offer(frame)) {
+            if (connection.queue.poll() != null) {
+                dropped.increment();
+            }
+            long now = System.nanoTime();
+            if (connection.saturatedSince == 0) {
+                connection.saturatedSince = now;
+            } else if (now - connection.saturatedSince >= TimeUnit.MILLISECONDS.toNanos(evictAfterMs)) {
+                log.warn("Evicting SSE connection of user {} after staying saturated for {} ms",
+                        connection.userId, evictAfterMs);
+                evicted.increment();
+                close(connection);
+            }
+        }
+        schedule(connection);
+    }
+
+    private void schedule(Connection connection) {
+        if (connection.scheduled.compareAndSet(false, true)) {
+            try {
+                dispatchExecutor.execute(() -> drain(connection));
+            } catch (RejectedExecutionException e) {
+                // Frames stay queued; the next enqueue schedules the drain again
+                connection.scheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Write up to one queue's worth of frames, then yield the dispatch thread to other connections
+     */
+    private void drain(Connection connection) {
+        try {
+            Set<DataWithMediaType> frame;
+            int sent = 0;
+            while (!connection.closed.get() && sent < queueCapacity && (frame = connection.queue.poll()) != null) {
+                connection.emitter.send(frame);
+                connection.lastWriteAt = System.nanoTime();
+                connection.saturatedSince = 0;
+                sent++;
+            }
+        } catch (Exception e) {
+            // Remove failed emitter
+            reaped.increment();
+            close(connection);
+        } finally {
+            connection.scheduled.set(false);
+        }
+
+        if (connection.closed.get()) {
+            try {
+                connection.emitter.complete();
+            } catch (Exception ignored) {
+            }
+        } else if (!connection.queue.isEmpty()) {
+            schedule(connection);
+        }
+    }
+
+    /**
+     * Unregister the connection without touching the emitter; a pending or running drain completes it
+     */
+    private void close(Connection connection) {
+        if (!connection.closed.compareAndSet(false, true)) {
+            return;
+        }
+        totalConnections.decrementAndGet();
+        connection.queue.clear();
+        userEmitters.computeIfPresent(connection.userId, (userId, connections) -> {
+            connections.remove(connection);
+            return connections.isEmpty() ? null : connections;
+        });
+        // The replay window starts when the user's last connection goes away
+        ReplayRing ring = replayRings.get(connection.userId);
+        if (ring != null) {
+            ring.lastTouched = System.nanoTime();
+        }
+        schedule(connection);
+    }
+
+    private static double queuedFrames(Map<UUID, List<Connection>> userEmitters) {
+        long frames = 0;
+        for (List<Connection> connections : userEmitters.values()) {
+            for (Connection connection : connections) {
+                frames += connection.queue.size();
+            }
+        }
+        return frames;
+    }
+
+    private static final class Frame {
+        private final long seq;
+        private final Set<DataWithMediaType> data;
+
+        Frame(long seq, Set<DataWithMediaType> data) {
+            this.seq = seq;
+            this.data = data;
+        }
+    }
+
+    /**
+     * The user's most recent frames; callers hold the ring's monitor
+     */
+    private static final class ReplayRing {
+        private final ArrayDeque<Frame> frames;
+        private final int capacity;
+        // Sequence of the last frame dropped from the ring, or the ring's starting point
+        private long floor;
+        private volatile long lastTouched;
+
+        ReplayRing(int capacity, long floor) {
+            this.capacity = Math.max(capacity, 1);
+            this.frames = new ArrayDeque<>(this.capacity);
+            this.floor = floor;
+        }
+
+        void append(Frame frame) {
+            if (frames.size() == capacity) {
+                floor = frames.removeFirst().seq;
+            }
+            frames.addLast(frame);
+        }
+
+        /**
+         * Sequence of the latest frame appended, which is where a client that has seen everything resumes
+         */
+        long position() {
+            return frames.isEmpty() ? floor : frames.peekLast().seq;
+        }
+
+        /**
+         * Frames appended after the one with the given sequence, or null when it is no longer held.
+         * Matched by position rather than by comparing sequences: frames encoded concurrently can be
+         * appended slightly out of sequence order.
+         */
+        List<Frame> since(long seq) {
+            if (seq == floor) {
+                return new ArrayList<>(frames);
+            }
+            List<Frame> missed = null;
+            for (Frame frame : frames) {
+                if (missed != null) {
+                    missed.add(frame);
+                } else if (frame.seq == seq) {
+                    missed = new ArrayList<>();
+                }
+            }
+            return missed;
+        }
+    }
+
+    private static final class Connection {
+        private final UUID userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<DataWithMediaType>> queue;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile long lastWriteAt = System.nanoTime();
+        // System.nanoTime() of the first overflow since the last successful write, 0 when not saturated
+        private volatile long saturatedSince;
+
+        Connection(UUID userId, SseEmitter emitter, int queueCapacity) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(Math.max(queueCapacity, 1));
+        }
     }
 }
@@ -0,0 +1,278 @@
+package com.example.mediasphere_initial.service;
+
+import java.util.Arrays;
+
+/**
+ * Compressed set of non-negative ints (user ordinals), roaring-style.
+ *
+ * Values are split by their high 16 bits into containers. A container holds
+ * its low 16 bits either as a sorted {@code char[]} (up to 4096 values, two
+ * bytes each) or as a 65536-bit {@code long[]} bitmap (8 KB, used once an
+ * array would be larger), and converts between the two as it grows and
+ * shrinks. Most threads have a handful of reactions and cost a few bytes; a
+ * viral one tops out at 8 KB per 65536 users.
+ *
+ * Not thread-safe; callers lock around each bitmap.
+ */
+public final class ReactionBitmap {
+
+    static final int ARRAY_MAX = 4096;
+
+    private char[] keys = new char[0];
+    private Container[] containers = new Container[0];
+    private int cardinality;
+
+    public boolean contains(int value) {
+        int i = Arrays.binarySearch(keys, high(value));
+        return i >= 0 && containers[i].contains(low(value));
+    }
+
+    /**
+     * Add a value; returns false when it was already present
+     */
+    public boolean add(int value) {
+        char high = high(value);
+        int i = Arrays.binarySearch(keys, high);
+        if (i < 0) {
+            i = -i - 1;
+            keys = insert(keys, i, high);
+            Container[] grown = new Container[containers.length + 1];
+            System.arraycopy(containers, 0, grown, 0, i);
+            System.arraycopy(containers, i, grown, i + 1, containers.length - i);
+            grown[i] = new ArrayContainer();
+            containers = grown;
+        }
+
+        Container container = containers[i];
+        if (!container.add(low(value))) {
+            return false;
+        }
+        if (container instanceof ArrayContainer && container.cardinality() > ARRAY_MAX) {
+            containers[i] = ((ArrayContainer) container).toBitmap();
+        }
+        cardinality++;
+        return true;
+    }
+
+    /**
+     * Remove a value; returns false when it was not present
+     */
+    public boolean remove(int value) {
+        int i = Arrays.binarySearch(keys, high(value));
+        if (i < 0 || !containers[i].remove(low(value))) {
+            return false;
+        }
+
+        Container container = containers[i];
+        if (container.cardinality() == 0) {
+            keys = delete(keys, i);
+            Container[] shrunk = new Container[containers.length - 1];
+            System.arraycopy(containers, 0, shrunk, 0, i);
+            System.arraycopy(containers, i + 1, shrunk, i, containers.length - i - 1);
+            containers = shrunk;
+        } else if (container instanceof BitmapContainer && container.cardinality() <= ARRAY_MAX) {
+            containers[i] = ((BitmapContainer) container).toArray();
+        }
+        cardinality--;
+        return true;
+    }
+
+    public int cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    /**
+     * Up to {@code limit} values in ascending order, skipping the first {@code offset}
+     */
+    public int[] page(int offset, int limit) {
+        int count = Math.max(0, Math.min(limit, cardinality - offset));
+        int[] values = new int[count];
+        int skip = offset;
+        int n = 0;
+        for (int i = 0; i < containers.length && n < count; i++) {
+            Container container = containers[i];
+            if (skip >= container.cardinality()) {
+                skip -= container.cardinality();
+                continue;
+            }
+            n = container.copyTo(values, n, keys[i] << 16, skip);
+            skip = 0;
+        }
+        return values;
+    }
+
+    private static char high(int value) {
+        return (char) (value >>> 16);
+    }
+
+    private static char low(int value) {
+        return (char) value;
+    }
+
+    private static char[] insert(char[] array, int index, char value) {
+        char[] grown = new char[array.length + 1];
+        System.arraycopy(array, 0, grown, 0, index);
+        grown[index] = value;
+        System.arraycopy(array, index, grown, index + 1, array.length - index);
+        return grown;
+    }
+
+    private static char[] delete(char[] array, int index) {
+        char[] shrunk = new char[array.length - 1];
+        System.arraycopy(array, 0, shrunk, 0, index);
+        System.arraycopy(array, index + 1, shrunk, index, array.length - index - 1);
+        return shrunk;
+    }
+
+    private interface Container {
+        boolean contains(char low);
+
+        boolean add(char low);
+
+        boolean remove(char low);
+
+        int cardinality();
+
+        /**
+         * Copy values (high bits already shifted) into {@code out} from position {@code n} until it is full,
+         * skipping the first {@code skip}; returns the new position
+         */
+        int copyTo(int[] out, int n, int highBits, int skip);
+    }
+
+    private static final class ArrayContainer implements Container {
+        private char[] values = new char[4];
+        private int size;
+
+        @Override
+        public boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, size, low) >= 0;
+        }
+
+        @Override
+        public boolean add(char low) {
+            int i = Arrays.binarySearch(values, 0, size, low);
+            if (i >= 0) {
+                return false;
+            }
+            i = -i - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(values.length * 2, ARRAY_MAX + 1));
+            }
+            System.arraycopy(values, i, values, i + 1, size - i);
+            values[i] = low;
+            size++;
+            return true;
+        }
+
+        @Override
+        public boolean remove(char low) {
+            int i = Arrays.binarySearch(values, 0, size, low);
+            if (i < 0) {
+                return false;
+            }
+            System.arraycopy(values, i + 1, values, i, size - i - 1);
+            size--;
+            return true;
+        }
+
+        @Override
+        public int cardinality() {
+            return size;
+        }
+
+        @Override
+        public int copyTo(int[] out, int n, int highBits, int skip) {
+            for (int i = skip; i < size && n < out.length; i++) {
+                out[n++] = highBits | values[i];
+            }
+            return n;
+        }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < size; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer implements Container {
+        private final long[] words = new long[1024];
+        private int size;
+
+        @Override
+        public boolean contains(char low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        public boolean add(char low) {
+            long before = words[low >>> 6];
+            long after = before | (1L << low);
+            words[low >>> 6] = after;
+            if (before == after) {
+                return false;
+            }
+            size++;
+            return true;
+        }
+
+        @Override
+        public boolean remove(char low) {
+            long before = words[low >>> 6];
+            long after = before & ~(1L << low);
+            words[low >>> 6] = after;
+            if (before == after) {
+                return false;
+            }
+            size--;
+            return true;
+        }
+
+        @Override
+        public int cardinality() {
+            return size;
+        }
+
+        @Override
+        public int copyTo(int[] out, int n, int highBits, int skip) {
+            for (int w = 0; w < words.length && n < out.length; w++) {
+                long word = words[w];
+                int bits = Long.bitCount(word);
+                if (skip >= bits) {
+                    skip -= bits;
+                    continue;
+                }
+                while (word != 0 && n < out.length) {
+                    int bit = Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    if (skip > 0) {
+                        skip--;
+                    } else {
+                        out[n++] = highBits | (w << 6) | bit;
+                    }
+                }
+            }
+            return n;
+        }
+
+        ArrayContainer toArray() {
+            ArrayContainer array = new ArrayContainer();
+            for (int w = 0; w < words.length; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    int bit = Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    array.add((char) ((w << 6) | bit));
+                }
+            }
+            return array;
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.example.mediasphere_initial.service;
+
+import com.example.mediasphere_initial.model.UserThreadReaction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory index of every thread reaction, answering "did this user react",
+ * "how many likes" and "who liked" without touching the database.
+ *
+ * Users are mapped to dense int ordinals and each thread keeps one
+ * {@link ReactionBitmap} of liking ordinals and one of disliking ordinals.
+ * user_thread_reactions stays the only persisted store: the index is loaded
+ * from it on first use and every write that goes through
+ * {@link ReactionService} is applied once its transaction commits, so a
+ * rolled-back toggle never shows up here. Writes committed on other nodes
+ * only arrive with the reload every feed.reactions.reload-interval-ms, which
+ * is why like and dislike counts are served from the threads row instead.
+ */
+@Service
+@Slf4j
+public class ReactionIndexService {
+
+    static final String LOAD_SQL = "SELECT user_id, thread_id, reaction_type FROM user_thread_reactions";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    private volatile Map<UUID, ThreadReactions> threads;
+
+    // Set while a reload runs: writes applied meanwhile are replayed onto the reloaded map
+    private volatile List<Change> reloadJournal;
+
+    private final Map<UUID, Integer> ordinals = new ConcurrentHashMap<>();
+    private final List<UUID> usersByOrdinal = new ArrayList<>();
+
+    /**
+     * The user's reaction to a thread, or null
+     */
+    public UserThreadReaction.ReactionType reactionOf(UUID userId, UUID threadId) {
+        if (userId == null) {
+            return null;
+        }
+        ThreadReactions reactions = threads().get(threadId);
+        Integer ordinal = ordinals.get(userId);
+        return reactions != null && ordinal != null ? reactions.reactionOf(ordinal) : null;
+    }
+
+    /**
+     * The user's reactions to a page of threads; threads without one are left out
+     */
+    public Map<UUID, UserThreadReaction.ReactionType> reactionsOf(UUID userId, Collection<UUID> threadIds) {
+        Map<UUID, UserThreadReaction.ReactionType> result = new HashMap<>();
+        if (userId == null) {
+            return result;
+        }
+        Integer ordinal = ordinals.get(userId);
+        if (ordinal == null) {
+            return result; // Never reacted to anything
+        }
+
+        Map<UUID, ThreadReactions> current = threads();
+        for (UUID threadId : threadIds) {
+            ThreadReactions reactions = current.get(threadId);
+            UserThreadReaction.ReactionType type = reactions != null ? reactions.reactionOf(ordinal) : null;
+            if (type != null) {
+                result.put(threadId, type);
+            }
+        }
+        return result;
+    }
+
+    public int likeCount(UUID threadId) {
+        ThreadReactions reactions = threads().get(threadId);
+        return reactions != null ? reactions.count(reactions.likes) : 0;
+    }
+
+    public int dislikeCount(UUID threadId) {
+        ThreadReactions reactions = threads().get(threadId);
+        return reactions != null ? reactions.count(reactions.dislikes) : 0;
+    }
+
+    /**
+     * A page of the users who liked a thread, in the order they were first seen by the index
+     */
+    public List<UUID> likers(UUID threadId, int page, int size) {
+        ThreadReactions reactions = threads().get(threadId);
+        return reactions != null ? usersOf(reactions.page(reactions.likes, page * size, size)) : new ArrayList<>();
+    }
+
+    /**
+     * A page of the users who disliked a thread
+     */
+    public List<UUID> dislikers(UUID threadId, int page, int size) {
+        ThreadReactions reactions = threads().get(threadId);
+        return reactions != null ? usersOf(reactions.page(reactions.dislikes, page * size, size)) : new ArrayList<>();
+    }
+
+    /**
+     * Record a user's new reaction (null when removed) once the surrounding transaction commits
+     */
+    public void applyAfterCommit(UUID userId, UUID threadId, UserThreadReaction.ReactionType type) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(userId, threadId, type);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(userId, threadId, type);
+            }
+        });
+    }
+
+    public void removeThread(UUID threadId) {
+        Map<UUID, ThreadReactions> current = threads;
+        if (current != null) {
+            record(new Change(-1, threadId, null), current);
+        }
+    }
+
+    /**
+     * Replace the index with a fresh read of user_thread_reactions, so reactions written through other
+     * nodes show up here too. Does nothing until the index has been used.
+     */
+    @Scheduled(fixedDelayString = "${feed.reactions.reload-interval-ms:600000}",
+            initialDelayString = "${feed.reactions.reload-interval-ms:600000}")
+    public void reload() {
+        if (threads == null) {
+            return;
+        }
+
+        loadLock.lock();
+        try {
+            List<Change> journal = new ArrayList<>();
+            reloadJournal = journal;
+            Map<UUID, ThreadReactions> fresh;
+            try {
+                fresh = load();
+            } catch (RuntimeException e) {
+                reloadJournal = null;
+                log.warn("Reaction index reload failed, keeping the current index", e);
+                return;
+            }
+            synchronized (journal) {
+                for (Change change : journal) {
+                    change.applyTo(fresh);
+                }
+                threads = fresh;
+                reloadJournal = null;
+            }
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    void apply(UUID userId, UUID threadId, UserThreadReaction.ReactionType type) {
+        Map<UUID, ThreadReactions> current = threads;
+        if (current == null) {
+            // Wait out a load in progress; if none has started, the next one reads the committed row
+            loadLock.lock();
+            try {
+                current = threads;
+            } finally {
+                loadLock.unlock();
+            }
+            if (current == null) {
+                return;
+            }
+        }
+
+        record(new Change(ordinalOf(userId), threadId, type), current);
+    }
+
+    /**
+     * Apply a change to the live map, and to the journal of a reload in progress so it is not lost
+     * when the reloaded map, read before the change committed, replaces the live one
+     */
+    private void record(Change change, Map<UUID, ThreadReactions> current) {
+        List<Change> journal = reloadJournal;
+        if (journal == null) {
+            change.applyTo(current);
+            return;
+        }
+        synchronized (journal) {
+            if (reloadJournal == journal) {
+                journal.add(change);
+            }
+            change.applyTo(threads);
+        }
+    }
+
+    private Map<UUID, ThreadReactions> threads() {
+        Map<UUID, ThreadReactions> current = threads;
+        if (current != null) {
+            return current;
+        }
+
+        loadLock.lock();
+        try {
+            if (threads == null) {
+                threads = load();
+            }
+            return threads;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private Map<UUID, ThreadReactions> load() {
+        long start = System.currentTimeMillis();
+        Map<UUID, ThreadReactions> loaded = new ConcurrentHashMap<>();
+        long[] rows = new long[1];
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            UUID userId = rs.getObject(1, UUID.class);
+            UUID threadId = rs.getObject(2, UUID.class);
+            UserThreadReaction.ReactionType type = UserThreadReaction.ReactionType.valueOf(rs.getString(3));
+            loaded.computeIfAbsent(threadId, id -> new ThreadReactions()).set(ordinalOf(userId), type);
+            rows[0]++;
+        });
+        log.info("Reaction index loaded {} reactions on {} threads from {} users in {} ms",
+                rows[0], loaded.size(), ordinals.size(), System.currentTimeMillis() - start);
+        return loaded;
+    }
+
+    private int ordinalOf(UUID userId) {
+        Integer ordinal = ordinals.get(userId);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        synchronized (usersByOrdinal) {
+            return ordinals.computeIfAbsent(userId, id -> {
+                usersByOrdinal.add(id);
+                return usersByOrdinal.size() - 1;
+            });
+        }
+    }
+
+    private List<UUID> usersOf(int[] page) {
+        List<UUID> users = new ArrayList<>(page.length);
+        synchronized (usersByOrdinal) {
+            for (int ordinal : page) {
+                users.add(usersByOrdinal.get(ordinal));
+            }
+        }
+        return users;
+    }
+
+    /**
+     * A user's new reaction to a thread, or the thread's removal when the ordinal is negative
+     */
+    private static final class Change {
+        private final int ordinal;
+        private final UUID threadId;
+        private final UserThreadReaction.ReactionType type;
+
+        Change(int ordinal, UUID threadId, UserThreadReaction.ReactionType type) {
+            this.ordinal = ordinal;
+            this.threadId = threadId;
+            this.type = type;
+        }
+
+        void applyTo(Map<UUID, ThreadReactions> threads) {
+            if (ordinal < 0) {
+                threads.remove(threadId);
+            } else {
+                threads.computeIfAbsent(threadId, id -> new ThreadReactions()).set(ordinal, type);
+            }
+        }
+    }
+
+    /**
+     * Like and dislike bitmaps of one thread; a user is in at most one of them
+     */
+    private static final class ThreadReactions {
+        private final ReactionBitmap likes = new ReactionBitmap();
+        private final ReactionBitmap dislikes = new ReactionBitmap();
+
+        synchronized UserThreadReaction.ReactionType reactionOf(int ordinal) {
+            if (likes.contains(ordinal)) {
+                return UserThreadReaction.ReactionType.LIKE;
+            }
+            return dislikes.contains(ordinal) ? UserThreadReaction.ReactionType.DISLIKE : null;
+        }
+
+        synchronized void set(int ordinal, UserThreadReaction.ReactionType type) {
+            if (type == UserThreadReaction.ReactionType.LIKE) {
+                dislikes.remove(ordinal);
+                likes.add(ordinal);
+            } else if (type == UserThreadReaction.ReactionType.DISLIKE) {
+                likes.remove(ordinal);
+                dislikes.add(ordinal);
+            } else {
+                likes.remove(ordinal);
+                dislikes.remove(ordinal);
+            }
+        }
+
+        synchronized int count(ReactionBitmap bitmap) {
+            return bitmap.cardinality();
+        }
+
+        synchronized int[] page(ReactionBitmap bitmap, int offset, int limit) {
+            return bitmap.page(offset, limit);
+        }
+    }
+}
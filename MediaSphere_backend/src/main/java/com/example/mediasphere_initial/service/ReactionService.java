@@ -3,18 +3,19 @@ package com.example.mediasphere_initial.service;
 import com.example.mediasphere_initial.model.UserThreadReaction;
 import com.example.mediasphere_initial.model.User;
 import com.example.mediasphere_initial.model.Thread;
-import com.example.mediasphere_initial.model.UserThreadView;
 import com.example.mediasphere_initial.repository.UserThreadReactionRepository;
 import com.example.mediasphere_initial.repository.ThreadRepository;
-import com.example.mediasphere_initial.repository.UserThreadViewRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 public class ReactionService {
@@ -26,10 +27,28 @@ public class ReactionService {
     private ThreadRepository threadRepository;
 
     @Autowired
-    private UserThreadViewRepository viewRepository;
+    private TrendingIndexService trendingIndexService;
 
     @Autowired
-    private TrendingService trendingService;
+    private EngagementWindowService engagementWindowService;
+
+    @Autowired
+    private FeedCacheService feedCacheService;
+
+    @Autowired
+    private ViewCountService viewCountService;
+
+    @Autowired
+    private UniqueViewerService uniqueViewerService;
+
+    @Autowired
+    private ReactionIndexService reactionIndexService;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private AfterCommitService afterCommitService;
 
     /**
      * Toggle like reaction on a thread
@@ -39,8 +58,9 @@ public class ReactionService {
         Optional<UserThreadReaction> existingReaction = reactionRepository.findByUserAndThread(user, thread);
         
         Map<String, Object> result = new HashMap<>();
-        boolean isLiked = false;
+        boolean isLiked;
         boolean isDisliked = false;
+        ThreadRepository.ThreadCounters counters;
 
         if (existingReaction.isPresent()) {
             UserThreadReaction reaction = existingReaction.get();
@@ -48,32 +68,30 @@ public class ReactionService {
             if (reaction.getReactionType() == UserThreadReaction.ReactionType.LIKE) {
                 // Remove existing like
                 reactionRepository.delete(reaction);
-                thread.setLikeCount(Math.max(0, thread.getLikeCount() - 1));
+                counters = threadRepository.decrementLikeCount(thread.getId());
                 isLiked = false;
             } else {
                 // Change from dislike to like
                 reaction.setReactionType(UserThreadReaction.ReactionType.LIKE);
                 reactionRepository.save(reaction);
-                thread.setLikeCount(thread.getLikeCount() + 1);
-                thread.setDislikeCount(Math.max(0, thread.getDislikeCount() - 1));
+                counters = threadRepository.updateCounters(thread.getId(), 1, -1, 0, LocalDateTime.now());
                 isLiked = true;
             }
         } else {
             // Create new like
             UserThreadReaction newReaction = new UserThreadReaction(user, thread, UserThreadReaction.ReactionType.LIKE);
             reactionRepository.save(newReaction);
-            thread.setLikeCount(thread.getLikeCount() + 1);
+            counters = threadRepository.incrementLikeCount(thread.getId());
             isLiked = true;
         }
 
-        // Update thread activity and save
-        trendingService.updateLastActivity(thread);
-        threadRepository.save(thread);
+        // Counters and activity time were updated in SQL; the Thread row is not rewritten
+        applyAfterCommit(thread, user, counters, isLiked ? UserThreadReaction.ReactionType.LIKE : null);
 
         result.put("isLiked", isLiked);
         result.put("isDisliked", isDisliked);
-        result.put("likeCount", thread.getLikeCount());
-        result.put("dislikeCount", thread.getDislikeCount());
+        result.put("likeCount", counters.getLikeCount());
+        result.put("dislikeCount", counters.getDislikeCount());
         
         return result;
     }
@@ -87,7 +105,8 @@ public class ReactionService {
         
         Map<String, Object> result = new HashMap<>();
         boolean isLiked = false;
-        boolean isDisliked = false;
+        boolean isDisliked;
+        ThreadRepository.ThreadCounters counters;
 
         if (existingReaction.isPresent()) {
             UserThreadReaction reaction = existingReaction.get();
@@ -95,53 +114,66 @@ public class ReactionService {
             if (reaction.getReactionType() == UserThreadReaction.ReactionType.DISLIKE) {
                 // Remove existing dislike
                 reactionRepository.delete(reaction);
-                thread.setDislikeCount(Math.max(0, thread.getDislikeCount() - 1));
+                counters = threadRepository.decrementDislikeCount(thread.getId());
                 isDisliked = false;
             } else {
                 // Change from like to dislike
                 reaction.setReactionType(UserThreadReaction.ReactionType.DISLIKE);
                 reactionRepository.save(reaction);
-                thread.setDislikeCount(thread.getDislikeCount() + 1);
-                thread.setLikeCount(Math.max(0, thread.getLikeCount() - 1));
+                counters = threadRepository.updateCounters(thread.getId(), -1, 1, 0, LocalDateTime.now());
                 isDisliked = true;
             }
         } else {
             // Create new dislike
             UserThreadReaction newReaction = new UserThreadReaction(user, thread, UserThreadReaction.ReactionType.DISLIKE);
             reactionRepository.save(newReaction);
-            thread.setDislikeCount(thread.getDislikeCount() + 1);
+            counters = threadRepository.incrementDislikeCount(thread.getId());
             isDisliked = true;
         }
 
-        // Update thread activity and save
-        trendingService.updateLastActivity(thread);
-        threadRepository.save(thread);
+        // Counters and activity time were updated in SQL; the Thread row is not rewritten
+        applyAfterCommit(thread, user, counters, isDisliked ? UserThreadReaction.ReactionType.DISLIKE : null);
 
         result.put("isLiked", isLiked);
         result.put("isDisliked", isDisliked);
-        result.put("likeCount", thread.getLikeCount());
-        result.put("dislikeCount", thread.getDislikeCount());
+        result.put("likeCount", counters.getLikeCount());
+        result.put("dislikeCount", counters.getDislikeCount());
         
         return result;
     }
 
+    /**
+     * Move the in-memory indexes, feed cache and engagement window and notify the owner once the
+     * toggle commits; a rolled back toggle (e.g. a lost race on the reaction row) leaves them untouched
+     */
+    private void applyAfterCommit(Thread thread, User user, ThreadRepository.ThreadCounters counters,
+            UserThreadReaction.ReactionType reaction) {
+        reactionIndexService.applyAfterCommit(user.getId(), thread.getId(), reaction);
+        afterCommitService.run(() -> {
+            trendingIndexService.update(thread, counters);
+            feedCacheService.bumpVersion();
+            if (reaction == UserThreadReaction.ReactionType.LIKE) {
+                engagementWindowService.recordLike(thread.getId());
+                notificationService.notifyThreadLike(thread.getCreatedBy(), user, thread.getTitle(), thread.getId());
+            } else if (reaction == UserThreadReaction.ReactionType.DISLIKE) {
+                notificationService.notifyThreadDislike(thread.getCreatedBy(), user, thread.getTitle(),
+                        thread.getId());
+            }
+        });
+    }
+
     /**
      * Get user's reaction to a thread
      */
     public Map<String, Object> getUserReaction(Thread thread, User user) {
         Map<String, Object> result = new HashMap<>();
         
-        Optional<UserThreadReaction> reaction = reactionRepository.findByUserAndThread(user, thread);
-        
-        if (reaction.isPresent()) {
-            UserThreadReaction.ReactionType type = reaction.get().getReactionType();
-            result.put("isLiked", type == UserThreadReaction.ReactionType.LIKE);
-            result.put("isDisliked", type == UserThreadReaction.ReactionType.DISLIKE);
-        } else {
-            result.put("isLiked", false);
-            result.put("isDisliked", false);
-        }
-        
+        // Anonymous viewers have no reaction; otherwise answered from the in-memory reaction index
+        UserThreadReaction.ReactionType type = user != null
+                ? reactionIndexService.reactionOf(user.getId(), thread.getId())
+                : null;
+        result.put("isLiked", type == UserThreadReaction.ReactionType.LIKE);
+        result.put("isDisliked", type == UserThreadReaction.ReactionType.DISLIKE);
         result.put("likeCount", thread.getLikeCount());
         result.put("dislikeCount", thread.getDislikeCount());
         
@@ -167,28 +199,18 @@ public class ReactionService {
             return reactionsMap;
         }
 
-        // Get all user reactions for these threads in one query
-        List<UserThreadReaction> userReactions = reactionRepository.findByUserAndThreads(user, threads);
-        Map<String, UserThreadReaction> reactionsByThreadId = new HashMap<>();
-        
-        for (UserThreadReaction reaction : userReactions) {
-            reactionsByThreadId.put(reaction.getThread().getId().toString(), reaction);
-        }
+        // Get all user reactions for these threads from the reaction index
+        Map<UUID, UserThreadReaction.ReactionType> reactionsByThreadId = reactionIndexService.reactionsOf(user.getId(),
+                threads.stream().map(Thread::getId).collect(Collectors.toList()));
 
         // Build reaction data for each thread
         for (Thread thread : threads) {
             Map<String, Object> reactionData = new HashMap<>();
             String threadId = thread.getId().toString();
             
-            UserThreadReaction userReaction = reactionsByThreadId.get(threadId);
-            if (userReaction != null) {
-                UserThreadReaction.ReactionType type = userReaction.getReactionType();
-                reactionData.put("isLiked", type == UserThreadReaction.ReactionType.LIKE);
-                reactionData.put("isDisliked", type == UserThreadReaction.ReactionType.DISLIKE);
-            } else {
-                reactionData.put("isLiked", false);
-                reactionData.put("isDisliked", false);
-            }
+            UserThreadReaction.ReactionType type = reactionsByThreadId.get(thread.getId());
+            reactionData.put("isLiked", type == UserThreadReaction.ReactionType.LIKE);
+            reactionData.put("isDisliked", type == UserThreadReaction.ReactionType.DISLIKE);
             
             reactionData.put("likeCount", thread.getLikeCount());
             reactionData.put("dislikeCount", thread.getDislikeCount());
@@ -200,37 +222,24 @@ public class ReactionService {
     }
 
     /**
-     * Update thread view count and track last activity
+     * Track a view for a specific user; returns whether it is (probably) their first view
      */
-    @Transactional
-    public void incrementViewCount(Thread thread) {
-        thread.setViewCount(thread.getViewCount() + 1);
-        trendingService.updateLastActivity(thread);
-        threadRepository.save(thread);
+    public boolean trackUserView(Thread thread, User user) {
+        return trackView(thread, UniqueViewerService.userKey(user.getId()));
     }
 
     /**
-     * Track a view for a specific user (unique views only)
+     * Track a view under a viewer key; returns whether the viewer is (probably) new.
+     * Every view is counted, but only new viewers move ranking and the engagement window.
      */
-    @Transactional
-    public boolean trackUserView(Thread thread, User user) {
-        // Check if user has already viewed this thread
-        Optional<UserThreadView> existingView = viewRepository.findByUserAndThread(user, thread);
-        
-        if (existingView.isPresent()) {
-            // User has already viewed this thread, don't increment count
-            return false;
+    public boolean trackView(Thread thread, String viewerKey) {
+        // The count is buffered and written back in batches
+        viewCountService.recordView(thread.getId());
+
+        boolean isNewViewer = uniqueViewerService.recordViewer(thread.getId(), viewerKey);
+        if (isNewViewer) {
+            engagementWindowService.recordView(thread.getId());
         }
-        
-        // Create new view record
-        UserThreadView view = new UserThreadView(user, thread);
-        viewRepository.save(view);
-        
-        // Increment view count and update activity
-        thread.setViewCount(thread.getViewCount() + 1);
-        trendingService.updateLastActivity(thread);
-        threadRepository.save(thread);
-        
-        return true;
+        return isNewViewer;
     }
 }
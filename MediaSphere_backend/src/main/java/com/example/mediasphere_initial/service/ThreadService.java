@@ -3,19 +3,18 @@ package com.example.mediasphere_initial.service;
 import com.example.mediasphere_initial.model.Thread;
 import com.example.mediasphere_initial.model.Comment;
 import com.example.mediasphere_initial.model.User;
-import com.example.mediasphere_initial.model.ThreadLike;
-import com.example.mediasphere_initial.model.ThreadDislike;
 import com.example.mediasphere_initial.model.CommentLike;
 import com.example.mediasphere_initial.repository.ThreadRepository;
 import com.example.mediasphere_initial.repository.CommentRepository;
 import com.example.mediasphere_initial.repository.UserRepository;
-import com.example.mediasphere_initial.repository.ThreadLikeRepository;
-import com.example.mediasphere_initial.repository.ThreadDislikeRepository;
 import com.example.mediasphere_initial.repository.CommentLikeRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -35,16 +34,40 @@ public class ThreadService {
     private UserRepository userRepository;
 
     @Autowired
-    private ThreadLikeRepository threadLikeRepository;
+    private CommentLikeRepository commentLikeRepository;
 
     @Autowired
-    private ThreadDislikeRepository threadDislikeRepository;
+    private NotificationService notificationService;
 
     @Autowired
-    private CommentLikeRepository commentLikeRepository;
+    private TrendingIndexService trendingIndexService;
 
     @Autowired
-    private NotificationService notificationService;
+    private TimelineService timelineService;
+
+    @Autowired
+    private EngagementWindowService engagementWindowService;
+
+    @Autowired
+    private FeedCacheService feedCacheService;
+
+    @Autowired
+    private ViewCountService viewCountService;
+
+    @Autowired
+    private UniqueViewerService uniqueViewerService;
+
+    @Autowired
+    private ReactionService reactionService;
+
+    @Autowired
+    private ReactionIndexService reactionIndexService;
+
+    @Autowired
+    private ThreadStatsService threadStatsService;
+
+    @Autowired
+    private AfterCommitService afterCommitService;
 
     public List<Thread> getAllThreads() {
         return threadRepository.findAll();
@@ -64,12 +87,13 @@ public class ThreadService {
         return threadRepository.findById(id);
     }
 
-    public void incrementViewCount(UUID threadId) {
-        Optional<Thread> threadOpt = threadRepository.findById(threadId);
-        if (threadOpt.isPresent()) {
-            Thread thread = threadOpt.get();
-            thread.setViewCount(thread.getViewCount() + 1);
-            threadRepository.save(thread);
+    /**
+     * Count a view; only a new viewer moves ranking and the engagement window
+     */
+    public void incrementViewCount(UUID threadId, String viewerKey) {
+        viewCountService.recordView(threadId);
+        if (uniqueViewerService.recordViewer(threadId, viewerKey)) {
+            engagementWindowService.recordView(threadId);
         }
     }
 
@@ -86,7 +110,9 @@ public class ThreadService {
         existingThread.setContent(updatedThread.getContent());
         existingThread.setUpdatedAt(LocalDateTime.now());
 
-        return threadRepository.save(existingThread);
+        Thread savedThread = threadRepository.save(existingThread);
+        feedCacheService.bumpVersion();
+        return savedThread;
     }
 
     public boolean deleteThread(UUID threadId, User user) {
@@ -99,41 +125,53 @@ public class ThreadService {
         }
 
         threadRepository.delete(thread);
+        trendingIndexService.remove(threadId);
+        timelineService.removeThread(threadId);
+        reactionIndexService.removeThread(threadId);
+        threadStatsService.remove(threadId);
+        feedCacheService.bumpVersion();
         return true;
     }
 
     public Map<String, Object> getThreadStats(UUID threadId) {
-        Thread thread = threadRepository.findById(threadId)
+        // Thread counters and the materialized comment stats in one primary-key read
+        Map<String, Object> row = threadStatsService.load(threadId)
                 .orElseThrow(() -> new RuntimeException("Thread not found"));
 
         Map<String, Object> stats = new HashMap<>();
-        stats.put("id", thread.getId());
-        stats.put("title", thread.getTitle());
-        stats.put("viewCount", thread.getViewCount());
-        stats.put("commentCount", thread.getCommentCount());
-        stats.put("createdAt", thread.getCreatedAt());
-        stats.put("isPinned", thread.getIsPinned());
-        stats.put("isLocked", thread.getIsLocked());
-        stats.put("likeCount", thread.getLikeCount());
-        stats.put("dislikeCount", thread.getDislikeCount());
-
-        // Calculate total comment likes for this thread
-        List<Comment> comments = commentRepository.findByThread(thread);
-        long commentLikeCount = 0;
-        for (Comment c : comments) {
-            commentLikeCount += commentLikeRepository.countByComment(c);
-        }
-        stats.put("commentLikeCount", commentLikeCount);
+        stats.put("id", threadId);
+        stats.put("title", row.get("title"));
+        stats.put("viewCount", viewCountService.currentViewCount(threadId, intValue(row.get("view_count"))));
+        stats.put("uniqueViewers", uniqueViewerService.getUniqueViewers(threadId));
+        stats.put("commentCount", intValue(row.get("comment_count")));
+        stats.put("createdAt", toLocalDateTime(row.get("created_at")));
+        stats.put("isPinned", row.get("is_pinned"));
+        stats.put("isLocked", row.get("is_locked"));
+        stats.put("likeCount", intValue(row.get("like_count")));
+        stats.put("dislikeCount", intValue(row.get("dislike_count")));
+        stats.put("commentLikeCount", row.get("comment_like_count") != null
+                ? ((Number) row.get("comment_like_count")).longValue() : 0L);
+        stats.put("commenterCount", intValue(row.get("commenter_count")));
+        stats.put("lastCommentAt", toLocalDateTime(row.get("last_comment_at")));
 
         return stats;
     }
 
+    private static Integer intValue(Object value) {
+        return value != null ? ((Number) value).intValue() : 0;
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        return value instanceof Timestamp ? ((Timestamp) value).toLocalDateTime() : (LocalDateTime) value;
+    }
+
     public List<Comment> getThreadComments(UUID threadId) {
         Thread thread = threadRepository.findById(threadId)
                 .orElseThrow(() -> new RuntimeException("Thread not found"));
         return commentRepository.findByThread(thread);
     }
 
+    @Transactional
     public Comment addComment(UUID threadId, Comment comment, User user) {
         Thread thread = threadRepository.findById(threadId)
                 .orElseThrow(() -> new RuntimeException("Thread not found"));
@@ -145,12 +183,19 @@ public class ThreadService {
 
         Comment savedComment = commentRepository.save(comment);
 
-        // Update thread comment count
-        thread.setCommentCount(thread.getCommentCount() + 1);
-        threadRepository.save(thread);
+        // Update thread comment count in SQL; the Thread row is not rewritten
+        ThreadRepository.ThreadCounters counters = threadRepository.incrementCommentCount(threadId);
+        threadStatsService.commentAdded(threadId,
+                !commentRepository.existsByThread_IdAndCreatedBy_IdAndIdNot(threadId, user.getId(), savedComment.getId()),
+                savedComment.getCreatedAt());
 
-        // Send notification to thread owner
-        notificationService.notifyThreadComment(thread.getCreatedBy(), user, thread.getTitle(), thread.getId());
+        // Ranking, feed cache and the thread owner's notification follow only a committed comment
+        afterCommitService.run(() -> {
+            trendingIndexService.update(thread, counters);
+            feedCacheService.bumpVersion();
+            engagementWindowService.recordComment(threadId);
+            notificationService.notifyThreadComment(thread.getCreatedBy(), user, thread.getTitle(), thread.getId());
+        });
 
         return savedComment;
     }
@@ -170,6 +215,7 @@ public class ThreadService {
         return commentRepository.save(existingComment);
     }
 
+    @Transactional
     public boolean deleteComment(UUID commentId, User user) {
         Comment comment = commentRepository.findById(commentId)
                 .orElseThrow(() -> new RuntimeException("Comment not found"));
@@ -183,9 +229,16 @@ public class ThreadService {
 
         commentRepository.delete(comment);
 
-        // Update thread comment count
-        thread.setCommentCount(Math.max(0, thread.getCommentCount() - 1));
-        threadRepository.save(thread);
+        // Update thread comment count in SQL; the Thread row is not rewritten
+        ThreadRepository.ThreadCounters counters = threadRepository.decrementCommentCount(thread.getId());
+        threadStatsService.commentDeleted(thread.getId(),
+                !commentRepository.existsByThread_IdAndCreatedBy_IdAndIdNot(thread.getId(),
+                        comment.getCreatedBy().getId(), comment.getId()),
+                comment.getLikeCount());
+        afterCommitService.run(() -> {
+            trendingIndexService.update(thread, counters);
+            feedCacheService.bumpVersion();
+        });
 
         return true;
     }
@@ -194,120 +247,87 @@ public class ThreadService {
         return threadRepository.searchByTitleOrContent(keyword);
     }
 
+    /**
+     * Toggle a like; reactions live in the single store behind ReactionService
+     */
     public Map<String, Object> likeThread(UUID threadId, User user) {
         Thread thread = threadRepository.findById(threadId)
                 .orElseThrow(() -> new RuntimeException("Thread not found"));
 
-        // Check if user already liked this thread
-        Optional<ThreadLike> existingLike = threadLikeRepository.findByThreadAndUser(thread, user);
-        boolean wasLiked = existingLike.isPresent();
-
-        // Remove dislike if exists
-        Optional<ThreadDislike> existingDislike = threadDislikeRepository.findByThreadAndUser(thread, user);
-        if (existingDislike.isPresent()) {
-            threadDislikeRepository.delete(existingDislike.get());
-            thread.setDislikeCount(Math.max(0, thread.getDislikeCount() - 1));
-        }
-
-        if (wasLiked) {
-            // Unlike
-            threadLikeRepository.delete(existingLike.get());
-            thread.setLikeCount(Math.max(0, thread.getLikeCount() - 1));
-        } else {
-            // Like
-            ThreadLike newLike = new ThreadLike(thread, user);
-            threadLikeRepository.save(newLike);
-            thread.setLikeCount(thread.getLikeCount() + 1);
-
-            // Send notification to thread owner
-            notificationService.notifyThreadLike(thread.getCreatedBy(), user, thread.getTitle(), thread.getId());
-        }
-
-        threadRepository.save(thread);
-
-        Map<String, Object> result = new HashMap<>();
-        result.put("liked", !wasLiked);
-        result.put("disliked", false);
-        result.put("likeCount", thread.getLikeCount());
-        result.put("dislikeCount", thread.getDislikeCount());
-        return result;
+        return toLikeStatus(reactionService.likeThread(thread, user));
     }
 
     public Map<String, Object> dislikeThread(UUID threadId, User user) {
         Thread thread = threadRepository.findById(threadId)
                 .orElseThrow(() -> new RuntimeException("Thread not found"));
 
-        // Check if user already disliked this thread
-        Optional<ThreadDislike> existingDislike = threadDislikeRepository.findByThreadAndUser(thread, user);
-        boolean wasDisliked = existingDislike.isPresent();
-
-        // Remove like if exists
-        Optional<ThreadLike> existingLike = threadLikeRepository.findByThreadAndUser(thread, user);
-        if (existingLike.isPresent()) {
-            threadLikeRepository.delete(existingLike.get());
-            thread.setLikeCount(Math.max(0, thread.getLikeCount() - 1));
-        }
-
-        if (wasDisliked) {
-            // Un-dislike
-            threadDislikeRepository.delete(existingDislike.get());
-            thread.setDislikeCount(Math.max(0, thread.getDislikeCount() - 1));
-        } else {
-            // Dislike
-            ThreadDislike newDislike = new ThreadDislike(thread, user);
-            threadDislikeRepository.save(newDislike);
-            thread.setDislikeCount(thread.getDislikeCount() + 1);
-
-            // Send notification to thread owner
-            notificationService.notifyThreadDislike(thread.getCreatedBy(), user, thread.getTitle(), thread.getId());
-        }
-
-        threadRepository.save(thread);
-
-        Map<String, Object> result = new HashMap<>();
-        result.put("liked", false);
-        result.put("disliked", !wasDisliked);
-        result.put("likeCount", thread.getLikeCount());
-        result.put("dislikeCount", thread.getDislikeCount());
-        return result;
+        return toLikeStatus(reactionService.dislikeThread(thread, user));
     }
 
     public Map<String, Object> getLikeStatus(UUID threadId, User user) {
         Thread thread = threadRepository.findById(threadId)
                 .orElseThrow(() -> new RuntimeException("Thread not found"));
 
-        boolean liked = threadLikeRepository.existsByThreadAndUser(thread, user);
-        boolean disliked = threadDislikeRepository.existsByThreadAndUser(thread, user);
+        return toLikeStatus(reactionService.getUserReaction(thread, user));
+    }
 
-        Map<String, Object> result = new HashMap<>();
-        result.put("liked", liked);
-        result.put("disliked", disliked);
-        result.put("likeCount", thread.getLikeCount());
-        result.put("dislikeCount", thread.getDislikeCount());
-        return result;
+    public List<User> getThreadLikers(UUID threadId, int page, int size) {
+        requireThread(threadId);
+        return usersInOrder(reactionIndexService.likers(threadId, page, size));
     }
 
-    public List<User> getThreadLikers(UUID threadId) {
-        Thread thread = threadRepository.findById(threadId)
-                .orElseThrow(() -> new RuntimeException("Thread not found"));
+    public List<User> getThreadDislikers(UUID threadId, int page, int size) {
+        requireThread(threadId);
+        return usersInOrder(reactionIndexService.dislikers(threadId, page, size));
+    }
 
-        return threadLikeRepository.findByThread(thread)
-                .stream()
-                .map(ThreadLike::getUser)
-                .toList();
+    // Counts come from the thread row, which updateCounters keeps exact on every node
+
+    public int getLikerCount(UUID threadId) {
+        return threadRepository.findById(threadId)
+                .map(thread -> thread.getLikeCount() != null ? thread.getLikeCount() : 0)
+                .orElse(0);
     }
 
-    public List<User> getThreadDislikers(UUID threadId) {
-        Thread thread = threadRepository.findById(threadId)
-                .orElseThrow(() -> new RuntimeException("Thread not found"));
+    public int getDislikerCount(UUID threadId) {
+        return threadRepository.findById(threadId)
+                .map(thread -> thread.getDislikeCount() != null ? thread.getDislikeCount() : 0)
+                .orElse(0);
+    }
 
-        return threadDislikeRepository.findByThread(thread)
-                .stream()
-                .map(ThreadDislike::getUser)
-                .toList();
+    private void requireThread(UUID threadId) {
+        if (!threadRepository.existsById(threadId)) {
+            throw new RuntimeException("Thread not found");
+        }
+    }
+
+    private List<User> usersInOrder(List<UUID> userIds) {
+        Map<UUID, User> usersById = new HashMap<>();
+        for (User user : userRepository.findAllById(userIds)) {
+            usersById.put(user.getId(), user);
+        }
+        List<User> users = new ArrayList<>(userIds.size());
+        for (UUID userId : userIds) {
+            User user = usersById.get(userId);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    // The /threads endpoints have always answered with liked/disliked rather than isLiked/isDisliked
+    private Map<String, Object> toLikeStatus(Map<String, Object> reaction) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("liked", reaction.get("isLiked"));
+        result.put("disliked", reaction.get("isDisliked"));
+        result.put("likeCount", reaction.get("likeCount"));
+        result.put("dislikeCount", reaction.get("dislikeCount"));
+        return result;
     }
 
     // Comment like methods
+    @Transactional
     public Map<String, Object> likeComment(UUID commentId, User user) {
         Comment comment = commentRepository.findById(commentId)
                 .orElseThrow(() -> new RuntimeException("Comment not found"));
@@ -328,14 +348,15 @@ public class ThreadService {
             result.put("liked", true);
             result.put("message", "Comment liked successfully");
 
-            // Send notification to comment owner
-            notificationService.notifyCommentLike(comment.getCreatedBy(), user, comment.getThread().getTitle(),
-                    comment.getThread().getId());
+            // Notify the comment owner once the like commits
+            afterCommitService.run(() -> notificationService.notifyCommentLike(comment.getCreatedBy(), user,
+                    comment.getThread().getTitle(), comment.getThread().getId()));
         }
 
         long likeCount = commentLikeRepository.countByComment(comment);
         comment.setLikeCount((int) likeCount);
         commentRepository.save(comment);
+        threadStatsService.commentLiked(comment.getThread().getId(), (Boolean) result.get("liked"));
 
         result.put("likeCount", likeCount);
 
@@ -0,0 +1,133 @@
+package com.example.mediasphere_initial.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Materialized per-thread comment statistics (thread_stats).
+ *
+ * Comment likes, distinct commenters and the last comment time are adjusted
+ * by one UPDATE after each comment and comment-like write, so reading them is
+ * a primary-key lookup instead of a count per comment. A thread without a row
+ * yet (created before the table, or never commented on) is recounted from
+ * comments and comment_likes with the same aggregate as the nightly rebuild,
+ * which also corrects any drift.
+ */
+@Service
+@Slf4j
+public class ThreadStatsService {
+
+    // Parameters: comment like delta, commenter delta, last comment time, updated at, thread id
+    static final String ADJUST_SQL = "UPDATE thread_stats SET "
+            + "comment_like_count = GREATEST(comment_like_count + ?, 0), "
+            + "commenter_count = GREATEST(commenter_count + ?, 0), "
+            + "last_comment_at = GREATEST(last_comment_at, ?), "
+            + "updated_at = ? WHERE thread_id = ?";
+
+    // Parameters: updated at, thread id. A deleted comment may have been the latest one.
+    static final String RECALC_LAST_COMMENT_SQL = "UPDATE thread_stats SET updated_at = ?, "
+            + "last_comment_at = (SELECT MAX(c.created_at) FROM comments c WHERE c.thread_id = thread_stats.thread_id) "
+            + "WHERE thread_id = ?";
+
+    static final String REBUILD_SQL = "INSERT INTO thread_stats "
+            + "(thread_id, comment_like_count, commenter_count, last_comment_at, updated_at) "
+            + "SELECT t.id, COALESCE(l.likes, 0), COALESCE(c.commenters, 0), c.last_comment_at, ? "
+            + "FROM threads t "
+            + "LEFT JOIN (SELECT thread_id, COUNT(DISTINCT created_by) AS commenters, "
+            + "MAX(created_at) AS last_comment_at FROM comments GROUP BY thread_id) c ON c.thread_id = t.id "
+            + "LEFT JOIN (SELECT c.thread_id, COUNT(*) AS likes FROM comment_likes cl "
+            + "JOIN comments c ON c.id = cl.comment_id GROUP BY c.thread_id) l ON l.thread_id = t.id "
+            + "%s ON CONFLICT (thread_id) DO UPDATE SET "
+            + "comment_like_count = EXCLUDED.comment_like_count, commenter_count = EXCLUDED.commenter_count, "
+            + "last_comment_at = EXCLUDED.last_comment_at, updated_at = EXCLUDED.updated_at";
+
+    // Parameters: thread id
+    static final String REBUILD_ONE_SQL = String.format(REBUILD_SQL, "WHERE t.id = ?");
+
+    static final String REBUILD_ALL_SQL = String.format(REBUILD_SQL, "");
+
+    // Parameters: thread id. The thread row and its stats, by primary key, in one statement.
+    static final String LOAD_SQL = "SELECT t.id, t.title, t.view_count, t.comment_count, t.created_at, t.is_pinned, "
+            + "t.is_locked, t.like_count, t.dislike_count, s.thread_id AS stats_thread_id, s.comment_like_count, "
+            + "s.commenter_count, s.last_comment_at "
+            + "FROM threads t LEFT JOIN thread_stats s ON s.thread_id = t.id WHERE t.id = ?";
+
+    static final String DELETE_SQL = "DELETE FROM thread_stats WHERE thread_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * The thread's counters and comment statistics as one row (column name to value), empty when
+     * the thread does not exist
+     */
+    public Optional<Map<String, Object>> load(UUID threadId) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(LOAD_SQL, threadId);
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        if (rows.get(0).get("stats_thread_id") != null) {
+            return Optional.of(rows.get(0));
+        }
+
+        rebuild(threadId);
+        return jdbcTemplate.queryForList(LOAD_SQL, threadId).stream().findFirst();
+    }
+
+    public void commentAdded(UUID threadId, boolean firstByAuthor, LocalDateTime createdAt) {
+        adjust(threadId, 0, firstByAuthor ? 1 : 0, createdAt);
+    }
+
+    public void commentDeleted(UUID threadId, boolean lastByAuthor, int commentLikes) {
+        adjust(threadId, -commentLikes, lastByAuthor ? -1 : 0, null);
+        jdbcTemplate.update(RECALC_LAST_COMMENT_SQL, Timestamp.valueOf(LocalDateTime.now()), threadId);
+    }
+
+    public void commentLiked(UUID threadId, boolean liked) {
+        adjust(threadId, liked ? 1 : -1, 0, null);
+    }
+
+    public void remove(UUID threadId) {
+        jdbcTemplate.update(DELETE_SQL, threadId);
+    }
+
+    /**
+     * Recount one thread's statistics from comments and comment_likes
+     */
+    public void rebuild(UUID threadId) {
+        jdbcTemplate.update(REBUILD_ONE_SQL, Timestamp.valueOf(LocalDateTime.now()), threadId);
+    }
+
+    /**
+     * Recount every thread with a single aggregate pass, correcting any drift
+     */
+    @Scheduled(cron = "${feed.stats.rebuild-cron:0 30 4 * * *}")
+    public void rebuildAll() {
+        long start = System.currentTimeMillis();
+        int rows = jdbcTemplate.update(REBUILD_ALL_SQL, Timestamp.valueOf(LocalDateTime.now()));
+        log.info("Rebuilt thread stats for {} threads in {} ms", rows, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Apply a change that has already been written; a thread without a row is recounted instead,
+     * which picks the change up with everything before it
+     */
+    private void adjust(UUID threadId, int commentLikeDelta, int commenterDelta, LocalDateTime lastCommentAt) {
+        int updated = jdbcTemplate.update(ADJUST_SQL, commentLikeDelta, commenterDelta,
+                lastCommentAt != null ? Timestamp.valueOf(lastCommentAt) : null, Timestamp.valueOf(LocalDateTime.now()),
+                threadId);
+        if (updated == 0) {
+            rebuild(threadId);
+        }
+    }
+}
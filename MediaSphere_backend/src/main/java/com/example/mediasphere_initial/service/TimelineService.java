@@ -0,0 +1,528 @@
+package com.example.mediasphere_initial.service;
+
+import com.example.mediasphere_initial.dto.FeedCursor;
+import com.example.mediasphere_initial.model.Thread;
+import com.example.mediasphere_initial.model.UserTimelineEntry;
+import com.example.mediasphere_initial.model.UserTimelineSeed;
+import com.example.mediasphere_initial.repository.ThreadRepository;
+import com.example.mediasphere_initial.repository.UserClubRepository;
+import com.example.mediasphere_initial.repository.UserTimelineEntryRepository;
+import com.example.mediasphere_initial.repository.UserTimelineSeedRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+
+/**
+ * Per-user home timelines for the joined-clubs part of the personalized feed.
+ *
+ * New threads are pushed (fan-out-on-write) into a bounded timeline for every
+ * member of the club, both in memory and in user_timeline_entries. Clubs with
+ * more members than the configured threshold are not pushed; their threads are
+ * pulled and merged in at read time (fan-out-on-read) so one popular club does
+ * not turn every post into thousands of writes. The pull reads each large club's
+ * own recency index in parallel and k-way merges the streams with the pushed
+ * timeline, reading only as many rows per club as the page consumes.
+ *
+ * publish() only reaches this node's cached rings, so a cached timeline is
+ * checked against the newest stored entry every feed.timeline.check-interval-ms
+ * and reloaded from the table when they differ, and reloaded regardless after
+ * feed.timeline.max-age-ms. Stored timelines of members who never read the feed
+ * are trimmed back to capacity by a scheduled job.
+ */
+@Service
+@Slf4j
+public class TimelineService {
+
+    @Autowired
+    private UserTimelineEntryRepository timelineRepository;
+
+    @Autowired
+    private UserTimelineSeedRepository seedRepository;
+
+    @Autowired
+    private UserClubRepository userClubRepository;
+
+    @Autowired
+    private ThreadRepository threadRepository;
+
+    @Value("${feed.timeline.capacity:500}")
+    private int capacity;
+
+    @Value("${feed.timeline.fanout-max-members:1000}")
+    private long fanoutMaxMembers;
+
+    @Value("${feed.timeline.max-cached-users:10000}")
+    private int maxCachedUsers;
+
+    @Value("${feed.timeline.check-interval-ms:10000}")
+    private long checkIntervalMs;
+
+    @Value("${feed.timeline.max-age-ms:600000}")
+    private long maxAgeMs;
+
+    @Value("${feed.timeline.trim-chunk-size:500}")
+    private int trimChunkSize;
+
+    @Autowired
+    @Qualifier("feedMergeExecutor")
+    private Executor mergeExecutor;
+
+    private final ConcurrentHashMap<UUID, Timeline> timelines = new ConcurrentHashMap<>();
+
+    /**
+     * Push a newly created thread into the timelines of its club's members
+     */
+    public void publish(Thread thread) {
+        if (thread == null || thread.getId() == null || thread.getClub() == null || thread.getCreatedAt() == null) {
+            return;
+        }
+
+        UUID clubId = thread.getClub().getId();
+        if (userClubRepository.countByClubId(clubId) > fanoutMaxMembers) {
+            log.debug("Club {} is above the fan-out threshold, thread {} is served on read", clubId, thread.getId());
+            return;
+        }
+
+        Item item = new Item(thread.getId(), clubId, thread.getCreatedAt());
+        List<UUID> memberIds = userClubRepository.findUserIdsByClubId(clubId);
+        List<UserTimelineEntry> rows = new ArrayList<>(memberIds.size());
+        for (UUID memberId : memberIds) {
+            rows.add(new UserTimelineEntry(memberId, item.threadId, clubId, item.createdAt));
+        }
+        timelineRepository.saveAll(rows);
+
+        for (UUID memberId : memberIds) {
+            Timeline timeline = timelines.get(memberId);
+            if (timeline != null) {
+                timeline.push(item);
+            }
+        }
+    }
+
+    /**
+     * Backfill a club's recent threads into a new member's timeline
+     */
+    public void onJoin(UUID userId, UUID clubId) {
+        if (userClubRepository.countByClubId(clubId) <= fanoutMaxMembers) {
+            List<Thread> recent = threadRepository.findByClubIdsOrderByCreatedAtDesc(
+                    Collections.singletonList(clubId), PageRequest.of(0, capacity));
+            timelineRepository.saveAll(toRows(userId, recent));
+        }
+        // Reload on next read so the backfilled threads are merged in order
+        timelines.remove(userId);
+    }
+
+    /**
+     * Drop a club's threads from a former member's timeline
+     */
+    public void onLeave(UUID userId, UUID clubId) {
+        timelineRepository.deleteByUserIdAndClubId(userId, clubId);
+        timelines.remove(userId);
+    }
+
+    /**
+     * Drop a deleted thread from stored timelines; cached timelines skip it because it no longer loads
+     */
+    public void removeThread(UUID threadId) {
+        if (threadId != null) {
+            timelineRepository.deleteByThreadId(threadId);
+        }
+    }
+
+    /**
+     * Read up to {@code limit} timeline items strictly after the cursor, newest first.
+     * Pushed items come from the user's ring; threads of large joined clubs are merged in from the database.
+     */
+    public List<Item> page(UUID userId, Set<UUID> joinedClubIds, FeedCursor after, int limit) {
+        if (userId == null || joinedClubIds.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        LocalDateTime afterTime = after != null ? after.getTime() : null;
+        UUID afterThreadId = after != null ? after.getThreadId() : null;
+
+        List<UUID> largeClubIds = userClubRepository.findClubIdsWithMoreMembersThan(joinedClubIds, fanoutMaxMembers);
+        List<Item> pushed = timeline(userId, joinedClubIds, largeClubIds)
+                .read(afterTime, afterThreadId, limit, item -> joinedClubIds.contains(item.clubId));
+        if (largeClubIds.isEmpty()) {
+            return pushed;
+        }
+
+        List<Source> sources = openClubSources(largeClubIds, afterTime, afterThreadId, limit);
+        sources.add(new Source(pushed));
+        return merge(sources, limit);
+    }
+
+    /**
+     * Open one newest-first stream per large club, fetching the first batches in parallel.
+     * A batch is the club's even share of the page plus one; a club that takes more than
+     * its share is topped up during the merge, so no club is read past what the page needs.
+     */
+    private List<Source> openClubSources(List<UUID> clubIds, LocalDateTime afterTime, UUID afterThreadId, int limit) {
+        int batchSize = Math.min(limit, (limit + clubIds.size() - 1) / clubIds.size() + 1);
+        List<CompletableFuture<Source>> opening = new ArrayList<>(clubIds.size());
+        for (UUID clubId : clubIds) {
+            opening.add(CompletableFuture.supplyAsync(() -> {
+                Source source = new Source(clubId, afterTime, afterThreadId);
+                source.fetch(batchSize);
+                return source;
+            }, mergeExecutor));
+        }
+
+        List<Source> sources = new ArrayList<>(opening.size() + 1);
+        for (CompletableFuture<Source> source : opening) {
+            sources.add(source.join());
+        }
+        return sources;
+    }
+
+    /**
+     * Trim stored timelines back to capacity, a bounded chunk of users at a time. Fan-out appends to
+     * every member's timeline, but reads only trim the timelines of members who open the feed.
+     */
+    @Scheduled(cron = "${feed.timeline.trim-cron:0 45 3 * * *}")
+    public void trimTimelines() {
+        int users = 0;
+        int deleted = 0;
+        List<UUID> overCapacity;
+        do {
+            overCapacity = timelineRepository.findUserIdsWithMoreEntriesThan(capacity,
+                    PageRequest.of(0, trimChunkSize));
+            for (UUID userId : overCapacity) {
+                List<UserTimelineEntry> oldestKept = timelineRepository.findNewestByUserId(userId,
+                        PageRequest.of(capacity - 1, 1));
+                if (!oldestKept.isEmpty()) {
+                    deleted += trim(userId, oldestKept.get(0));
+                }
+            }
+            users += overCapacity.size();
+        } while (overCapacity.size() >= trimChunkSize);
+
+        if (deleted > 0) {
+            log.info("Trimmed {} timeline entries from {} users over the capacity of {}", deleted, users, capacity);
+        }
+    }
+
+    private Timeline timeline(UUID userId, Set<UUID> joinedClubIds, List<UUID> largeClubIds) {
+        Timeline timeline = timelines.get(userId);
+        if (timeline != null && isCurrent(userId, timeline)) {
+            return timeline;
+        }
+
+        // Load outside the map so a slow query does not block other users' timelines
+        Timeline loaded = load(userId, joinedClubIds, largeClubIds);
+        if (timeline != null) {
+            timelines.put(userId, loaded); // Replaces the stale ring
+            return loaded;
+        }
+        if (timelines.size() >= maxCachedUsers) {
+            Iterator<UUID> victims = timelines.keySet().iterator();
+            if (victims.hasNext()) {
+                victims.next();
+                victims.remove();
+            }
+        }
+        Timeline existing = timelines.putIfAbsent(userId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    /**
+     * Whether a cached ring can still be served: threads published or deleted through another node
+     * change the newest stored entry, which is compared at most once per check interval
+     */
+    private boolean isCurrent(UUID userId, Timeline timeline) {
+        long now = System.currentTimeMillis();
+        if (now - timeline.loadedAt > maxAgeMs) {
+            return false;
+        }
+        if (now - timeline.checkedAt < checkIntervalMs) {
+            return true;
+        }
+
+        List<UserTimelineEntry> head = timelineRepository.findNewestByUserId(userId, PageRequest.of(0, 1));
+        Item newest = timeline.newest();
+        boolean current = head.isEmpty()
+                ? newest == null
+                : newest != null && newest.threadId.equals(head.get(0).getThreadId());
+        if (current) {
+            timeline.checkedAt = now;
+        }
+        return current;
+    }
+
+    private Timeline load(UUID userId, Set<UUID> joinedClubIds, List<UUID> largeClubIds) {
+        if (!seedRepository.existsById(userId)) {
+            seed(userId, joinedClubIds, largeClubIds);
+        }
+
+        List<UserTimelineEntry> rows = timelineRepository.findNewestByUserId(userId, PageRequest.of(0, capacity + 1));
+        if (rows.size() > capacity) {
+            // Keep the stored timeline as bounded as the in-memory one
+            trim(userId, rows.get(capacity - 1));
+            rows = rows.subList(0, capacity);
+        }
+
+        Timeline timeline = new Timeline(capacity);
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            UserTimelineEntry row = rows.get(i);
+            timeline.push(new Item(row.getThreadId(), row.getClubId(), row.getCreatedAt()));
+        }
+        return timeline;
+    }
+
+    /**
+     * Fill the timeline of a user whose memberships predate the timeline table, once.
+     * Fan-out or a join may already have written some rows for them; those are kept and not duplicated.
+     */
+    private void seed(UUID userId, Set<UUID> joinedClubIds, List<UUID> largeClubIds) {
+        Set<UUID> pushedClubIds = new HashSet<>(joinedClubIds);
+        largeClubIds.forEach(pushedClubIds::remove);
+        if (!pushedClubIds.isEmpty()) {
+            List<Thread> recent = threadRepository.findByClubIdsOrderByCreatedAtDesc(pushedClubIds,
+                    PageRequest.of(0, capacity));
+            if (!recent.isEmpty()) {
+                Set<UUID> present = new HashSet<>(timelineRepository.findThreadIdsByUserIdAndThreadIdIn(userId,
+                        recent.stream().map(Thread::getId).toList()));
+                timelineRepository.saveAll(toRows(userId, recent.stream()
+                        .filter(thread -> !present.contains(thread.getId()))
+                        .toList()));
+            }
+        }
+        seedRepository.save(new UserTimelineSeed(userId));
+    }
+
+    private int trim(UUID userId, UserTimelineEntry oldestKept) {
+        return timelineRepository.deleteOlderThan(userId, oldestKept.getCreatedAt(), oldestKept.getThreadId());
+    }
+
+    private List<UserTimelineEntry> toRows(UUID userId, List<Thread> threads) {
+        List<UserTimelineEntry> rows = new ArrayList<>(threads.size());
+        for (Thread thread : threads) {
+            rows.add(new UserTimelineEntry(userId, thread.getId(), thread.getClub().getId(), thread.getCreatedAt()));
+        }
+        return rows;
+    }
+
+    /**
+     * K-way merge of newest-first sources with a heap keyed on each source's head,
+     * dropping threads seen twice (a club that grew past the threshold still has pushed entries)
+     */
+    private List<Item> merge(List<Source> sources, int limit) {
+        PriorityQueue<Source> heads = new PriorityQueue<>(sources.size(),
+                (a, b) -> b.peek().compareTo(a.peek()));
+        for (Source source : sources) {
+            if (source.peek() != null) {
+                heads.add(source);
+            }
+        }
+
+        List<Item> merged = new ArrayList<>(limit);
+        Set<UUID> seen = new HashSet<>();
+        while (merged.size() < limit && !heads.isEmpty()) {
+            Source source = heads.poll();
+            Item next = source.poll();
+            if (seen.add(next.threadId)) {
+                merged.add(next);
+            }
+            if (source.peek() == null && source.hasMore() && merged.size() < limit) {
+                source.fetch(limit - merged.size());
+            }
+            if (source.peek() != null) {
+                heads.add(source);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * A newest-first run of timeline items: either already in memory, or one club's
+     * threads read from the database in keyset batches
+     */
+    private final class Source {
+        private final UUID clubId;
+        private final ArrayDeque<Item> buffer = new ArrayDeque<>();
+        private LocalDateTime lastCreatedAt;
+        private UUID lastThreadId;
+        private boolean exhausted;
+
+        Source(List<Item> items) {
+            this.clubId = null;
+            this.buffer.addAll(items);
+            this.exhausted = true;
+        }
+
+        Source(UUID clubId, LocalDateTime afterTime, UUID afterThreadId) {
+            this.clubId = clubId;
+            this.lastCreatedAt = afterTime;
+            this.lastThreadId = afterThreadId;
+        }
+
+        Item peek() {
+            return buffer.peekFirst();
+        }
+
+        Item poll() {
+            return buffer.pollFirst();
+        }
+
+        boolean hasMore() {
+            return !exhausted;
+        }
+
+        void fetch(int count) {
+            PageRequest pageRequest = PageRequest.of(0, count);
+            List<ThreadRepository.ClubThreadView> rows = lastThreadId == null
+                    ? threadRepository.findNewestByClubId(clubId, pageRequest)
+                    : threadRepository.findNewestByClubIdAfter(clubId, lastCreatedAt, lastThreadId, pageRequest);
+            for (ThreadRepository.ClubThreadView row : rows) {
+                buffer.addLast(new Item(row.getThreadId(), row.getClubId(), row.getCreatedAt()));
+            }
+            if (!rows.isEmpty()) {
+                ThreadRepository.ClubThreadView last = rows.get(rows.size() - 1);
+                lastCreatedAt = last.getCreatedAt();
+                lastThreadId = last.getThreadId();
+            }
+            exhausted = rows.size() < count;
+        }
+    }
+
+    /**
+     * A thread in a timeline; ordered by creation time, thread id as tie-breaker
+     */
+    public static final class Item implements Comparable<Item> {
+        private final UUID threadId;
+        private final UUID clubId;
+        private final LocalDateTime createdAt;
+
+        Item(UUID threadId, UUID clubId, LocalDateTime createdAt) {
+            this.threadId = threadId;
+            this.clubId = clubId;
+            this.createdAt = createdAt;
+        }
+
+        public UUID getThreadId() {
+            return threadId;
+        }
+
+        public UUID getClubId() {
+            return clubId;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        // Natural order is oldest first
+        @Override
+        public int compareTo(Item other) {
+            int byTime = createdAt.compareTo(other.createdAt);
+            return byTime != 0 ? byTime : threadId.compareTo(other.threadId);
+        }
+
+        boolean isBefore(LocalDateTime time, UUID id) {
+            int byTime = createdAt.compareTo(time);
+            return byTime != 0 ? byTime < 0 : threadId.compareTo(id) < 0;
+        }
+    }
+
+    /**
+     * Fixed-size ring of timeline items kept in ascending order; the oldest item is overwritten when full
+     */
+    static final class Timeline {
+        private final Item[] slots;
+        private int head; // next write position
+        private int size;
+        private final long loadedAt = System.currentTimeMillis();
+        private volatile long checkedAt = loadedAt;
+
+        Timeline(int capacity) {
+            this.slots = new Item[Math.max(1, capacity)];
+        }
+
+        synchronized void push(Item item) {
+            if (size == slots.length && item.compareTo(get(0)) <= 0) {
+                return; // Older than everything kept
+            }
+            slots[head] = item;
+            head = (head + 1) % slots.length;
+            if (size < slots.length) {
+                size++;
+            }
+
+            // Threads created concurrently can arrive slightly out of order
+            for (int i = size - 1; i > 0 && get(i).compareTo(get(i - 1)) < 0; i--) {
+                Item previous = get(i - 1);
+                set(i - 1, get(i));
+                set(i, previous);
+            }
+        }
+
+        /**
+         * Newest-first items strictly older than the given position (or from the newest when null)
+         */
+        synchronized List<Item> read(LocalDateTime afterTime, UUID afterThreadId, int limit, Predicate<Item> filter) {
+            List<Item> result = new ArrayList<>(Math.min(limit, size));
+            int start = afterThreadId == null ? size - 1 : lastBefore(afterTime, afterThreadId);
+            for (int i = start; i >= 0 && result.size() < limit; i--) {
+                Item item = get(i);
+                if (filter.test(item)) {
+                    result.add(item);
+                }
+            }
+            return result;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized Item newest() {
+            return size > 0 ? get(size - 1) : null;
+        }
+
+        // Binary search for the newest logical index older than the position, -1 if none
+        private int lastBefore(LocalDateTime time, UUID threadId) {
+            int low = 0;
+            int high = size - 1;
+            int found = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (get(mid).isBefore(time, threadId)) {
+                    found = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return found;
+        }
+
+        // Logical index 0 is the oldest item
+        private Item get(int index) {
+            return slots[(head - size + index + slots.length) % slots.length];
+        }
+
+        private void set(int index, Item item) {
+            slots[(head - size + index + slots.length) % slots.length] = item;
+        }
+    }
+}
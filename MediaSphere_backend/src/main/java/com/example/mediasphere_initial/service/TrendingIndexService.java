@@ -0,0 +1,325 @@
+package com.example.mediasphere_initial.service;
+
+import com.example.mediasphere_initial.dto.FeedCursor;
+import com.example.mediasphere_initial.dto.ThreadRankingSnapshot;
+import com.example.mediasphere_initial.model.Thread;
+import com.example.mediasphere_initial.repository.ThreadRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * In-memory index of all club threads ordered by trending score.
+ *
+ * Scores are computed against the index's reference time, so entries stay
+ * comparable with each other between rebuilds. Engagement paths push updated
+ * counters through {@link #update(Thread)}; the index is rebuilt lazily from a
+ * counters-only projection once it is older than the configured interval so
+ * that decay (and any write that bypassed the hooks) is picked up. A rebuild
+ * keeps only the best {@code max-entries} threads; engagement updates may add
+ * others back until the next rebuild.
+ */
+@Service
+@Slf4j
+public class TrendingIndexService {
+
+    // Marks a thread removed while a rebuild was loading
+    private static final ThreadRankingSnapshot REMOVED =
+            new ThreadRankingSnapshot(null, null, 0, 0, 0, 0, null, null);
+
+    @Autowired
+    private ThreadRepository threadRepository;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Value("${feed.trending-index.rebuild-interval-minutes:15}")
+    private long rebuildIntervalMinutes;
+
+    @Value("${feed.trending-index.max-entries:50000}")
+    private int maxEntries;
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private volatile Index index;
+
+    // Non-null only while a rebuild is loading; replayed onto the fresh index
+    private volatile Map<UUID, ThreadRankingSnapshot> updatesDuringRebuild;
+
+    /**
+     * Re-score a thread after its counters or activity time changed
+     */
+    public void update(Thread thread) {
+        if (thread == null || thread.getId() == null) {
+            return;
+        }
+        if (thread.getClub() == null) {
+            remove(thread.getId());
+            return;
+        }
+
+        put(ThreadRankingSnapshot.from(thread));
+    }
+
+    /**
+     * Re-score a thread whose counters were changed in SQL; the loaded entity still holds the old values
+     */
+    public void update(Thread thread, ThreadRepository.ThreadCounters counters) {
+        if (thread == null || thread.getId() == null || counters == null) {
+            return;
+        }
+        if (thread.getClub() == null) {
+            remove(thread.getId());
+            return;
+        }
+
+        put(new ThreadRankingSnapshot(thread.getId(), thread.getClub().getId(), counters.getLikeCount(),
+                counters.getDislikeCount(), counters.getCommentCount(), counters.getUniqueViewerCount(), thread.getCreatedAt(),
+                counters.getLastActivityAt()));
+    }
+
+    private void put(ThreadRankingSnapshot snapshot) {
+        Map<UUID, ThreadRankingSnapshot> pending = updatesDuringRebuild;
+        if (pending != null) {
+            pending.put(snapshot.getThreadId(), snapshot);
+        }
+
+        Index current = index;
+        if (current != null) {
+            current.put(createEntry(snapshot, current.referenceTime));
+        }
+    }
+
+    /**
+     * Drop a thread from the index (e.g. after deletion)
+     */
+    public void remove(UUID threadId) {
+        if (threadId == null) {
+            return;
+        }
+        Map<UUID, ThreadRankingSnapshot> pending = updatesDuringRebuild;
+        if (pending != null) {
+            pending.put(threadId, REMOVED);
+        }
+
+        Index current = index;
+        if (current != null) {
+            current.remove(threadId);
+        }
+    }
+
+    /**
+     * Read up to {@code limit} matching entries that rank strictly after the cursor position.
+     * Seeking is logarithmic in the index size; cost after that is proportional to the page.
+     * A cursor scored against an older rebuild is decayed to the current reference time first.
+     */
+    public List<Entry> page(FeedCursor after, int limit, Predicate<Entry> filter) {
+        List<Entry> result = new ArrayList<>(Math.max(0, limit));
+        if (limit <= 0) {
+            return result;
+        }
+
+        Index current = currentIndex();
+        NavigableSet<Entry> window = current.ranking;
+        if (after != null && !after.isStartOfSegment()) {
+            double score = after.getScore();
+            if (after.getTime() != null && !after.getTime().equals(current.referenceTime)) {
+                score = trendingService.rescaleScore(score, after.getTime(), current.referenceTime);
+            }
+            window = current.ranking.tailSet(Entry.probe(score, after.getThreadId()), false);
+        }
+
+        for (Entry entry : window) {
+            if (!filter.test(entry)) {
+                continue;
+            }
+            result.add(entry);
+            if (result.size() >= limit) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Number of indexed threads
+     */
+    public int size() {
+        return currentIndex().byThreadId.size();
+    }
+
+    /**
+     * Time the current scores were computed against
+     */
+    public LocalDateTime getReferenceTime() {
+        return currentIndex().referenceTime;
+    }
+
+    /**
+     * Force a rebuild on the next read
+     */
+    public void invalidate() {
+        index = null;
+    }
+
+    private Index currentIndex() {
+        Index current = index;
+        if (current == null) {
+            // Nothing to serve yet: wait for the first build
+            rebuildLock.lock();
+            try {
+                current = index;
+                if (current == null) {
+                    current = rebuild();
+                }
+            } finally {
+                rebuildLock.unlock();
+            }
+        } else if (isStale(current) && rebuildLock.tryLock()) {
+            // Stale but usable: rebuild if nobody else is, otherwise keep serving the old index
+            try {
+                current = index;
+                if (current == null || isStale(current)) {
+                    current = rebuild();
+                }
+            } finally {
+                rebuildLock.unlock();
+            }
+        }
+        return current;
+    }
+
+    private boolean isStale(Index current) {
+        return current.referenceTime.plusMinutes(rebuildIntervalMinutes).isBefore(LocalDateTime.now());
+    }
+
+    private Index rebuild() {
+        Map<UUID, ThreadRankingSnapshot> pending = new ConcurrentHashMap<>();
+        updatesDuringRebuild = pending;
+        try {
+            long start = System.currentTimeMillis();
+            Index fresh = new Index(LocalDateTime.now());
+            LocalDateTime referenceTime = fresh.referenceTime;
+
+            // Score every thread once against the same time, keep only the top of the ranking
+            FeedRankingUtil.Ranking<ThreadRankingSnapshot> ranking = FeedRankingUtil.topK(
+                    threadRepository.findRankingSnapshots(),
+                    snapshot -> trendingService.calculateTrendingScore(snapshot, referenceTime),
+                    maxEntries);
+            for (int i = 0; i < ranking.size(); i++) {
+                ThreadRankingSnapshot snapshot = ranking.get(i);
+                fresh.put(new Entry(snapshot.getThreadId(), snapshot, ranking.getScore(i), referenceTime));
+            }
+            index = fresh;
+
+            // Apply writes that raced with the load
+            for (Map.Entry<UUID, ThreadRankingSnapshot> update : pending.entrySet()) {
+                if (update.getValue() == REMOVED) {
+                    fresh.remove(update.getKey());
+                } else {
+                    fresh.put(createEntry(update.getValue(), fresh.referenceTime));
+                }
+            }
+
+            log.info("Trending index rebuilt with {} threads in {} ms",
+                    fresh.byThreadId.size(), System.currentTimeMillis() - start);
+            return fresh;
+        } finally {
+            updatesDuringRebuild = null;
+        }
+    }
+
+    private Entry createEntry(ThreadRankingSnapshot snapshot, LocalDateTime referenceTime) {
+        return new Entry(snapshot.getThreadId(), snapshot,
+                trendingService.calculateTrendingScore(snapshot, referenceTime), referenceTime);
+    }
+
+    /**
+     * A ranked thread: its counters snapshot and the score computed from it
+     */
+    public static final class Entry implements Comparable<Entry> {
+        private final UUID threadId;
+        private final ThreadRankingSnapshot snapshot;
+        private final double score;
+        private final LocalDateTime scoredAt;
+
+        Entry(UUID threadId, ThreadRankingSnapshot snapshot, double score, LocalDateTime scoredAt) {
+            this.threadId = threadId;
+            this.snapshot = snapshot;
+            this.score = score;
+            this.scoredAt = scoredAt;
+        }
+
+        // Search key for seeking to a cursor position
+        static Entry probe(double score, UUID threadId) {
+            return new Entry(threadId, null, score, null);
+        }
+
+        public UUID getThreadId() {
+            return threadId;
+        }
+
+        public UUID getClubId() {
+            return snapshot.getClubId();
+        }
+
+        public ThreadRankingSnapshot getSnapshot() {
+            return snapshot;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public LocalDateTime getScoredAt() {
+            return scoredAt;
+        }
+
+        // Highest score first, thread id as a stable tie-breaker
+        @Override
+        public int compareTo(Entry other) {
+            int byScore = Double.compare(other.score, score);
+            return byScore != 0 ? byScore : other.threadId.compareTo(threadId);
+        }
+    }
+
+    private static final class Index {
+        private final LocalDateTime referenceTime;
+        private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>();
+        private final ConcurrentHashMap<UUID, Entry> byThreadId = new ConcurrentHashMap<>();
+
+        Index(LocalDateTime referenceTime) {
+            this.referenceTime = referenceTime;
+        }
+
+        void put(Entry entry) {
+            // compute() serializes writers per thread id, keeping ranking and lookup in step
+            byThreadId.compute(entry.getThreadId(), (id, previous) -> {
+                if (previous != null) {
+                    ranking.remove(previous);
+                }
+                ranking.add(entry);
+                return entry;
+            });
+        }
+
+        void remove(UUID threadId) {
+            byThreadId.computeIfPresent(threadId, (id, previous) -> {
+                ranking.remove(previous);
+                return null;
+            });
+        }
+    }
+}
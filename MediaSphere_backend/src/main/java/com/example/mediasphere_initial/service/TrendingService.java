@@ -1,5 +1,6 @@
 package com.example.mediasphere_initial.service;
 
+import com.example.mediasphere_initial.dto.ThreadRankingSnapshot;
 import com.example.mediasphere_initial.model.Thread;
 import org.springframework.stereotype.Service;
 
@@ -15,28 +16,71 @@ public class TrendingService {
     private static final double DISLIKE_PENALTY = 0.5;
     private static final double TIME_DECAY_HOURS = 24.0; // Half-life in hours
 
+    // Hot rank: a 10x engagement lead is worth as much as being created one
+    // decade-of-half-lives later, i.e. the same 24h half-life expressed in log10 space
+    private static final LocalDateTime HOT_RANK_EPOCH = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final double HOT_RANK_SECONDS_PER_DECADE = TIME_DECAY_HOURS * 3600 / Math.log10(2);
+
+    // The same hot rank in SQL (PostgreSQL), for statements that change counters without loading
+    // the entity. It reads likes, dislikes, comments and views from a derived row holding the new
+    // counter values, and created_at from the thread row. "views" is the unique viewer count.
+    private static final String ENGAGEMENT_SQL = "((likes - dislikes * " + DISLIKE_PENALTY + ") * " + LIKE_WEIGHT
+            + " + comments * " + COMMENT_WEIGHT + " + views * " + VIEW_WEIGHT + ")";
+    public static final String HOT_RANK_SQL = "SIGN(" + ENGAGEMENT_SQL + ") * LOG(GREATEST(ABS(" + ENGAGEMENT_SQL + "), 1))"
+            + " + EXTRACT(EPOCH FROM (COALESCE(created_at, TIMESTAMP '2025-01-01 00:00:00')"
+            + " - TIMESTAMP '2025-01-01 00:00:00')) / (" + TIME_DECAY_HOURS + " * 3600 / LOG(2))";
+
+    public static final int HOT_WINDOW_HOURS = 6;
+    public static final int HOT_MIN_ENGAGEMENT = 5;
+
     /**
      * Calculate trending score for a thread
      * Formula: (likes - (dislikes * penalty)) * 1.0 + comments * 2.0 + views * 0.1) * time_decay_factor
+     * Views are distinct viewers, so repeat views from one visitor do not move the score.
      */
     public double calculateTrendingScore(Thread thread) {
         if (thread == null) {
             return 0.0;
         }
+        return calculateTrendingScore(ThreadRankingSnapshot.from(thread), LocalDateTime.now());
+    }
 
-        // Get engagement metrics (handle nulls)
-        int likes = thread.getLikeCount() != null ? thread.getLikeCount() : 0;
-        int dislikes = thread.getDislikeCount() != null ? thread.getDislikeCount() : 0;
-        int comments = thread.getCommentCount() != null ? thread.getCommentCount() : 0;
-        int views = thread.getViewCount() != null ? thread.getViewCount() : 0;
+    /**
+     * Calculate the decay-free hot rank persisted on the thread (Reddit-style "hot" ranking).
+     * Formula: sign(engagement) * log10(max(|engagement|, 1)) + seconds_since_epoch / seconds_per_decade
+     * It only changes when engagement changes, so the database can index and ORDER BY it.
+     * Keep in sync with SQL_files/hot_rank_migration.sql and SQL_files/unique_viewers_migration.sql.
+     */
+    public static double calculateHotRank(int likes, int dislikes, int comments, int views, LocalDateTime createdAt) {
+        double engagementScore = calculateEngagementScore(likes, dislikes, comments, views);
+        double order = Math.log10(Math.max(Math.abs(engagementScore), 1.0));
+        double seconds = createdAt != null ? ChronoUnit.SECONDS.between(HOT_RANK_EPOCH, createdAt) : 0;
+
+        return Math.signum(engagementScore) * order + seconds / HOT_RANK_SECONDS_PER_DECADE;
+    }
+
+    private static double calculateEngagementScore(int likes, int dislikes, int comments, int views) {
+        return (likes - (dislikes * DISLIKE_PENALTY)) * LIKE_WEIGHT
+             + comments * COMMENT_WEIGHT
+             + views * VIEW_WEIGHT;
+    }
+
+    /**
+     * Calculate trending score against a fixed reference time.
+     * Scores computed against the same reference time are directly comparable,
+     * which is what the trending index relies on between rebuilds.
+     */
+    public double calculateTrendingScore(ThreadRankingSnapshot snapshot, LocalDateTime now) {
+        if (snapshot == null) {
+            return 0.0;
+        }
 
         // Calculate base engagement score
-        double engagementScore = (likes - (dislikes * DISLIKE_PENALTY)) * LIKE_WEIGHT 
-                               + comments * COMMENT_WEIGHT 
-                               + views * VIEW_WEIGHT;
+        double engagementScore = calculateEngagementScore(snapshot.getLikeCount(), snapshot.getDislikeCount(),
+                snapshot.getCommentCount(), snapshot.getUniqueViewerCount());
 
         // Calculate time decay factor
-        double timeDecayFactor = calculateTimeDecayFactor(thread);
+        double timeDecayFactor = calculateTimeDecayFactor(snapshot.getActivityTime(), now);
 
         // Final trending score
         double trendingScore = engagementScore * timeDecayFactor;
@@ -49,17 +93,13 @@ public class TrendingService {
      * Calculate time decay factor based on thread's last activity
      * More recent activity gets higher weight
      */
-    private double calculateTimeDecayFactor(Thread thread) {
-        LocalDateTime activityTime = thread.getLastActivityAt() != null 
-            ? thread.getLastActivityAt() 
-            : thread.getCreatedAt();
-
+    private double calculateTimeDecayFactor(LocalDateTime activityTime, LocalDateTime now) {
         if (activityTime == null) {
             return 0.1; // Very low weight for threads without timestamps
         }
 
         // Calculate hours since last activity
-        long hoursSinceActivity = ChronoUnit.HOURS.between(activityTime, LocalDateTime.now());
+        long hoursSinceActivity = ChronoUnit.HOURS.between(activityTime, now);
 
         // Exponential decay: factor = 0.5^(hours / half_life)
         double decayFactor = Math.pow(0.5, hoursSinceActivity / TIME_DECAY_HOURS);
@@ -68,6 +108,15 @@ public class TrendingService {
         return Math.max(0.01, decayFactor);
     }
 
+    /**
+     * Re-express a score computed at {@code from} as if it had been computed at {@code to},
+     * applying the same half-life decay. Used to position feed cursors across index rebuilds.
+     */
+    public double rescaleScore(double score, LocalDateTime from, LocalDateTime to) {
+        double hoursElapsed = ChronoUnit.MINUTES.between(from, to) / 60.0;
+        return score * Math.pow(0.5, hoursElapsed / TIME_DECAY_HOURS);
+    }
+
     /**
      * Update thread's last activity timestamp
      * Call this when thread receives new comments, likes, or views
@@ -85,20 +134,21 @@ public class TrendingService {
         if (thread == null) {
             return false;
         }
+        return isHotThread(ThreadRankingSnapshot.from(thread), LocalDateTime.now());
+    }
 
-        LocalDateTime activityTime = thread.getLastActivityAt() != null 
-            ? thread.getLastActivityAt() 
-            : thread.getCreatedAt();
-
-        if (activityTime == null) {
+    /**
+     * Check if a thread should be considered "hot" relative to the given time
+     */
+    public boolean isHotThread(ThreadRankingSnapshot snapshot, LocalDateTime now) {
+        if (snapshot == null || snapshot.getActivityTime() == null) {
             return false;
         }
 
         // Consider "hot" if activity within last 6 hours and has significant engagement
-        long hoursSinceActivity = ChronoUnit.HOURS.between(activityTime, LocalDateTime.now());
-        int totalEngagement = (thread.getLikeCount() != null ? thread.getLikeCount() : 0) +
-                             (thread.getCommentCount() != null ? thread.getCommentCount() : 0);
+        long hoursSinceActivity = ChronoUnit.HOURS.between(snapshot.getActivityTime(), now);
+        int totalEngagement = snapshot.getLikeCount() + snapshot.getCommentCount();
 
-        return hoursSinceActivity <= 6 && totalEngagement >= 5;
+        return hoursSinceActivity <= HOT_WINDOW_HOURS && totalEngagement >= HOT_MIN_ENGAGEMENT;
     }
 }
@@ -0,0 +1,228 @@
+package com.example.mediasphere_initial.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Approximate distinct viewers per thread, counted with a HyperLogLog sketch.
+ *
+ * A viewer is identified by user id when signed in and by a hash of client
+ * address and user agent otherwise; the key itself is never stored, only the
+ * 4 KB of sketch registers in thread_viewer_sketches. Re-offering a known
+ * viewer leaves the sketch unchanged, which is how refreshes are told apart
+ * from new viewers without a row per (user, thread).
+ *
+ * Sketches of recently viewed threads stay in memory. Changed ones are
+ * written back with the threads' unique_viewer_count and hot_rank on the view
+ * flush interval. Every node holds its own copy of a hot thread's sketch, so
+ * a flush merges rather than overwrites: it locks the stored sketches, folds
+ * them into the cached ones and writes back the union. Each node's copy then
+ * also picks up the viewers other nodes have seen. A thread without a stored
+ * sketch is seeded from its legacy user_thread_views rows the first time it
+ * is loaded.
+ */
+@Service
+@Slf4j
+public class UniqueViewerService {
+
+    static final String LOAD_SQL = "SELECT registers FROM thread_viewer_sketches WHERE thread_id = ?";
+
+    static final String LEGACY_VIEWERS_SQL = "SELECT user_id FROM user_thread_views WHERE thread_id = ?";
+
+    // Parameters: thread id, registers, updated at. An existing row is left for the merge.
+    static final String INSERT_SQL = "INSERT INTO thread_viewer_sketches (thread_id, registers, updated_at) "
+            + "VALUES (?, ?, ?) ON CONFLICT (thread_id) DO NOTHING";
+
+    // Parameters: the thread ids
+    static final String LOCK_SQL = "SELECT thread_id, registers FROM thread_viewer_sketches "
+            + "WHERE thread_id IN (%s) ORDER BY thread_id FOR UPDATE";
+
+    // Parameters: registers, updated at, thread id
+    static final String SAVE_SQL = "UPDATE thread_viewer_sketches SET registers = ?, updated_at = ? "
+            + "WHERE thread_id = ?";
+
+    // Sketches merged per transaction, keeping row locks short and the IN list bounded
+    static final int FLUSH_CHUNK = 500;
+
+    // Parameters: unique viewer count, thread id
+    static final String COUNT_SQL = "UPDATE threads SET (unique_viewer_count, hot_rank) = "
+            + "(SELECT n.views, " + TrendingService.HOT_RANK_SQL
+            + " FROM (SELECT COALESCE(like_count, 0) AS likes, COALESCE(dislike_count, 0) AS dislikes, "
+            + "COALESCE(comment_count, 0) AS comments, ? AS views) n) "
+            + "WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${feed.viewers.max-cached-sketches:10000}")
+    private int maxCachedSketches;
+
+    private final Map<UUID, HyperLogLog> sketches = new ConcurrentHashMap<>();
+
+    private final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Viewer key for a signed-in user
+     */
+    public static String userKey(UUID userId) {
+        return "user:" + userId;
+    }
+
+    /**
+     * Viewer key for an anonymous visitor, from the client address and user agent
+     */
+    public static String anonymousKey(String remoteAddr, String userAgent) {
+        return "anon:" + remoteAddr + "|" + (userAgent != null ? userAgent : "");
+    }
+
+    /**
+     * Offer a viewer to the thread's sketch; returns whether they are (probably) a new viewer
+     */
+    public boolean recordViewer(UUID threadId, String viewerKey) {
+        if (threadId == null || viewerKey == null) {
+            return false;
+        }
+
+        boolean isNew = sketchFor(threadId).offer(HyperLogLog.hash(viewerKey));
+        if (isNew) {
+            dirty.add(threadId);
+        }
+        return isNew;
+    }
+
+    /**
+     * Estimated distinct viewers, including ones not yet written back
+     */
+    public long getUniqueViewers(UUID threadId) {
+        return sketchFor(threadId).cardinality();
+    }
+
+    @Scheduled(fixedDelayString = "${feed.views.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        if (!dirty.isEmpty()) {
+            write();
+        }
+        if (sketches.size() > maxCachedSketches) {
+            // Clean sketches reload from the table on their next view
+            sketches.keySet().removeIf(threadId -> !dirty.contains(threadId));
+        }
+    }
+
+    @PreDestroy
+    public synchronized void flushAll() {
+        if (!dirty.isEmpty()) {
+            write();
+        }
+    }
+
+    private void write() {
+        // Sorted so concurrent flushes on other nodes insert, and so lock, rows in the same order
+        List<UUID> threadIds = new ArrayList<>(dirty);
+        Collections.sort(threadIds);
+        for (int from = 0; from < threadIds.size(); from += FLUSH_CHUNK) {
+            List<UUID> chunk = threadIds.subList(from, Math.min(from + FLUSH_CHUNK, threadIds.size()));
+            try {
+                TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+                transaction.executeWithoutResult(status -> writeChunk(chunk));
+                log.debug("Flushed unique viewer sketches for {} threads", chunk.size());
+            } catch (RuntimeException e) {
+                log.warn("Failed to flush unique viewer sketches for {} threads, retrying next interval",
+                        chunk.size(), e);
+                dirty.addAll(chunk);
+            }
+        }
+    }
+
+    private void writeChunk(List<UUID> chunk) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Map<UUID, HyperLogLog> flushed = new LinkedHashMap<>();
+        List<Object[]> insertBatch = new ArrayList<>(chunk.size());
+        for (UUID threadId : chunk) {
+            // Clear the flag before reading the sketch: a viewer offered meanwhile marks it again
+            dirty.remove(threadId);
+            HyperLogLog sketch = sketches.get(threadId);
+            if (sketch != null) {
+                flushed.put(threadId, sketch);
+                insertBatch.add(new Object[] {threadId, sketch.toBytes(), now});
+            }
+        }
+        if (flushed.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, insertBatch);
+
+        // Fold every stored sketch, including ones written by other nodes, into the cached copy
+        List<Object[]> saveBatch = new ArrayList<>(flushed.size());
+        String lockSql = String.format(LOCK_SQL, String.join(", ", Collections.nCopies(flushed.size(), "?")));
+        jdbcTemplate.query(lockSql, rs -> {
+            UUID threadId = rs.getObject(1, UUID.class);
+            HyperLogLog sketch = flushed.get(threadId);
+            byte[] stored = rs.getBytes(2);
+            sketch.merge(stored);
+            byte[] merged = sketch.toBytes();
+            if (!Arrays.equals(stored, merged)) {
+                saveBatch.add(new Object[] {merged, now, threadId});
+            }
+        }, flushed.keySet().toArray());
+
+        List<Object[]> countBatch = new ArrayList<>(flushed.size());
+        for (Map.Entry<UUID, HyperLogLog> entry : flushed.entrySet()) {
+            long viewers = entry.getValue().cardinality();
+            countBatch.add(new Object[] {(int) Math.min(Integer.MAX_VALUE, viewers), entry.getKey()});
+        }
+        if (!saveBatch.isEmpty()) {
+            jdbcTemplate.batchUpdate(SAVE_SQL, saveBatch);
+        }
+        jdbcTemplate.batchUpdate(COUNT_SQL, countBatch);
+    }
+
+    private HyperLogLog sketchFor(UUID threadId) {
+        HyperLogLog sketch = sketches.get(threadId);
+        if (sketch != null) {
+            return sketch;
+        }
+
+        // Load outside the map so a slow query does not block other threads' sketches
+        HyperLogLog loaded = load(threadId);
+        HyperLogLog existing = sketches.putIfAbsent(threadId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private HyperLogLog load(UUID threadId) {
+        List<byte[]> stored = jdbcTemplate.query(LOAD_SQL, (rs, rowNum) -> rs.getBytes(1), threadId);
+        if (!stored.isEmpty()) {
+            return HyperLogLog.fromBytes(stored.get(0));
+        }
+
+        HyperLogLog sketch = new HyperLogLog();
+        for (UUID userId : jdbcTemplate.queryForList(LEGACY_VIEWERS_SQL, UUID.class, threadId)) {
+            sketch.offer(HyperLogLog.hash(userKey(userId)));
+        }
+        if (!sketch.isEmpty()) {
+            dirty.add(threadId);
+        }
+        return sketch;
+    }
+}
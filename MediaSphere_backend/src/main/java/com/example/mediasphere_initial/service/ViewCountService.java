@@ -0,0 +1,115 @@
+package com.example.mediasphere_initial.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind buffer for thread view counts.
+ *
+ * A view only bumps an in-memory LongAdder for its thread, so views of a busy
+ * thread neither load the entity nor contend on its row. Pending views are
+ * written back on a fixed interval and on shutdown as one batched
+ * {@code UPDATE threads SET view_count = view_count + ?}, which also moves
+ * last_activity_at. Raw views do not feed ranking; distinct viewers do, see
+ * {@link UniqueViewerService}.
+ *
+ * Views are counted into the current generation. Each flush writes out the
+ * previous generation and retires the current one, so increments that raced
+ * with the swap have landed before their generation is written. Reads add the
+ * pending views of both generations to the stored count.
+ */
+@Service
+@Slf4j
+public class ViewCountService {
+
+    // Parameters: delta, activity time, thread id
+    static final String FLUSH_SQL = "UPDATE threads SET view_count = COALESCE(view_count, 0) + ?, "
+            + "last_activity_at = GREATEST(COALESCE(last_activity_at, created_at), ?) WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private volatile Map<UUID, LongAdder> current = new ConcurrentHashMap<>();
+    private volatile Map<UUID, LongAdder> retiring = new ConcurrentHashMap<>();
+
+    public void recordView(UUID threadId) {
+        if (threadId != null) {
+            current.computeIfAbsent(threadId, id -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * Views recorded for a thread that are not yet in the database
+     */
+    public long getPendingViews(UUID threadId) {
+        return pendingIn(current, threadId) + pendingIn(retiring, threadId);
+    }
+
+    /**
+     * A stored view count with the pending views added
+     */
+    public int currentViewCount(UUID threadId, Integer storedCount) {
+        long total = (storedCount != null ? storedCount : 0) + getPendingViews(threadId);
+        return (int) Math.min(Integer.MAX_VALUE, total);
+    }
+
+    @Scheduled(fixedDelayString = "${feed.views.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        write(retiring);
+        retiring = current;
+        current = new ConcurrentHashMap<>();
+    }
+
+    @PreDestroy
+    public synchronized void flushAll() {
+        write(retiring);
+        retiring = new ConcurrentHashMap<>();
+        Map<UUID, LongAdder> last = current;
+        current = new ConcurrentHashMap<>();
+        write(last);
+    }
+
+    private void write(Map<UUID, LongAdder> views) {
+        if (views.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(views.size());
+        for (Map.Entry<UUID, LongAdder> entry : views.entrySet()) {
+            long delta = entry.getValue().sum();
+            if (delta > 0) {
+                batch.add(new Object[] {delta, now, entry.getKey()});
+            }
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(FLUSH_SQL, batch);
+            log.debug("Flushed view counts for {} threads", batch.size());
+        } catch (RuntimeException e) {
+            // Keep the views for the next flush rather than dropping them
+            log.warn("Failed to flush view counts for {} threads, retrying next interval", batch.size(), e);
+            for (Map.Entry<UUID, LongAdder> entry : views.entrySet()) {
+                current.computeIfAbsent(entry.getKey(), id -> new LongAdder()).add(entry.getValue().sum());
+            }
+        }
+    }
+
+    private long pendingIn(Map<UUID, LongAdder> views, UUID threadId) {
+        LongAdder adder = views.get(threadId);
+        return adder != null ? adder.sum() : 0;
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.mediasphere_initial.service;
+
+import com.example.mediasphere_initial.dto.EngagementEvent;
+import com.example.mediasphere_initial.model.Thread;
+import com.example.mediasphere_initial.model.User;
+import com.example.mediasphere_initial.model.UserThreadReaction;
+import com.example.mediasphere_initial.repository.ThreadRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for EngagementBatchService
+ */
+@ExtendWith(MockitoExtension.class)
+class EngagementBatchServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ThreadRepository threadRepository;
+
+    @Mock
+    private ReactionService reactionService;
+
+    @Mock
+    private ReactionIndexService reactionIndexService;
+
+    @Mock
+    private TrendingIndexService trendingIndexService;
+
+    @Mock
+    private EngagementWindowService engagementWindowService;
+
+    @Mock
+    private FeedCacheService feedCacheService;
+
+    @Mock
+    private ViewCountService viewCountService;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Spy
+    private AfterCommitService afterCommitService;
+
+    @InjectMocks
+    private EngagementBatchService engagementBatchService;
+
+    private User user;
+    private User owner;
+    private Thread liked;
+    private Thread disliked;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setId(UUID.randomUUID());
+        owner = new User();
+        owner.setId(UUID.randomUUID());
+        liked = thread("liked");
+        disliked = thread("disliked");
+    }
+
+    @Test
+    void applyBatch_WritesOnlyTheNetReactionChangePerThread() throws Exception {
+        // Given - "liked" is liked then unliked; "disliked" switches from an existing like, sent twice
+        when(threadRepository.findAllById(anyCollection())).thenReturn(List.of(liked, disliked));
+        givenRows(EngagementBatchService.CURRENT_REACTIONS_SQL.substring(0, 40),
+                new Object[] {disliked.getId(), "LIKE"});
+        givenRows(EngagementBatchService.READ_COUNTERS_SQL.substring(0, 40),
+                new Object[] {disliked.getId(), 3, 1});
+        List<EngagementEvent> events = List.of(
+                new EngagementEvent(liked.getId(), "like", 2L),
+                new EngagementEvent(liked.getId(), "like", 1L),
+                new EngagementEvent(disliked.getId(), "dislike", 5L),
+                new EngagementEvent(disliked.getId(), "dislike", 5L));
+
+        // When
+        List<Map<String, Object>> results = engagementBatchService.applyBatch(user,
+                UniqueViewerService.userKey(user.getId()), events);
+
+        // Then
+        assertThat(results).extracting(r -> r.get("status")).containsExactly(
+                "applied", "applied", "applied", "duplicate");
+        assertThat(results.get(0)).containsEntry("isLiked", false);
+        assertThat(results.get(2)).containsEntry("isDisliked", true).containsEntry("likeCount", 3);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> counters = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(EngagementBatchService.UPDATE_REACTION_SQL), anyList());
+        verify(jdbcTemplate).batchUpdate(eq(EngagementBatchService.COUNTERS_SQL), counters.capture());
+        verify(jdbcTemplate, never()).batchUpdate(eq(EngagementBatchService.INSERT_REACTION_SQL), anyList());
+        verify(jdbcTemplate, never()).batchUpdate(eq(EngagementBatchService.DELETE_REACTION_SQL), anyList());
+        assertThat(counters.getValue()).hasSize(1);
+        assertThat(counters.getValue().get(0)).containsSubsequence(-1, 1, disliked.getId());
+
+        verify(reactionIndexService).applyAfterCommit(user.getId(), disliked.getId(),
+                UserThreadReaction.ReactionType.DISLIKE);
+        verify(notificationService).notifyThreadDislike(owner, user, "disliked", disliked.getId());
+        verify(notificationService, never()).notifyThreadLike(any(), any(), any(), any());
+        verify(feedCacheService, times(1)).bumpVersion();
+    }
+
+    @Test
+    void applyBatch_AnonymousViewerOnlyRecordsOneViewPerThread() {
+        // Given
+        UUID missing = UUID.randomUUID();
+        String viewerKey = UniqueViewerService.anonymousKey("203.0.113.7", "Mozilla/5.0");
+        when(threadRepository.findAllById(anyCollection())).thenReturn(List.of(liked));
+        when(reactionService.trackView(liked, viewerKey)).thenReturn(true);
+        when(viewCountService.currentViewCount(liked.getId(), 0)).thenReturn(1);
+        List<EngagementEvent> events = List.of(
+                new EngagementEvent(liked.getId(), "view", 1L),
+                new EngagementEvent(liked.getId(), "view", 2L),
+                new EngagementEvent(liked.getId(), "like", 3L),
+                new EngagementEvent(missing, "view", 4L),
+                new EngagementEvent(liked.getId(), "share", 5L));
+
+        // When
+        List<Map<String, Object>> results = engagementBatchService.applyBatch(null, viewerKey, events);
+
+        // Then
+        assertThat(results).extracting(r -> r.get("status")).containsExactly(
+                "applied", "duplicate", "unauthorized", "not_found", "invalid");
+        assertThat(results.get(0)).containsEntry("isNewView", true).containsEntry("viewCount", 1);
+        verify(reactionService, times(1)).trackView(liked, viewerKey);
+        verifyNoInteractions(jdbcTemplate, notificationService, feedCacheService);
+    }
+
+    private Thread thread(String title) {
+        Thread thread = new Thread();
+        thread.setId(UUID.randomUUID());
+        thread.setTitle(title);
+        thread.setCreatedBy(owner);
+        thread.setViewCount(0);
+        return thread;
+    }
+
+    private void givenRows(String sqlPrefix, Object[]... rows) throws Exception {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Object[] row : rows) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getObject(1, UUID.class)).thenReturn((UUID) row[0]);
+                if (row[1] instanceof String) {
+                    when(rs.getString(2)).thenReturn((String) row[1]);
+                } else {
+                    when(rs.getInt(2)).thenReturn((Integer) row[1]);
+                    when(rs.getInt(3)).thenReturn((Integer) row[2]);
+                }
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(startsWith(sqlPrefix), any(RowCallbackHandler.class), any(Object[].class));
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.mediasphere_initial.service;
+
+import com.example.mediasphere_initial.dto.FeedCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for EngagementWindowService
+ */
+class EngagementWindowServiceTest {
+
+    private static final long MINUTE = 60_000L;
+
+    private EngagementWindowService engagementWindowService;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        engagementWindowService = new EngagementWindowService();
+        ReflectionTestUtils.setField(engagementWindowService, "bucketMinutes", 5);
+        ReflectionTestUtils.setField(engagementWindowService, "windowHours", 6);
+        ReflectionTestUtils.setField(engagementWindowService, "risingWindowMinutes", 60);
+        ReflectionTestUtils.setField(engagementWindowService, "hotMinPoints", 20);
+        now = 1_000 * 60 * MINUTE; // Aligned to a bucket boundary
+    }
+
+    @Test
+    void rankHot_OrdersByWindowPointsAndDropsColdThreads() {
+        // Given
+        UUID busy = UUID.randomUUID();
+        UUID quiet = UUID.randomUUID();
+        UUID cold = UUID.randomUUID();
+        engagementWindowService.record(busy, EngagementWindowService.COMMENT_POINTS, now);
+        engagementWindowService.record(busy, EngagementWindowService.LIKE_POINTS, now);
+        engagementWindowService.record(quiet, EngagementWindowService.COMMENT_POINTS, now);
+        engagementWindowService.record(cold, EngagementWindowService.VIEW_POINTS, now);
+
+        // When
+        FeedRankingUtil.Ranking<UUID> ranking = engagementWindowService.rankHot(null, 10, now);
+
+        // Then
+        assertThat(ranking.getItems()).containsExactly(busy, quiet);
+        assertThat(ranking.getScore(0)).isEqualTo(30.0);
+    }
+
+    @Test
+    void rankHot_ExpiresPointsOutsideTheWindow() {
+        // Given
+        UUID threadId = UUID.randomUUID();
+        engagementWindowService.record(threadId, EngagementWindowService.COMMENT_POINTS, now);
+        engagementWindowService.record(threadId, EngagementWindowService.COMMENT_POINTS, now + 3 * 60 * MINUTE);
+
+        // When
+        FeedRankingUtil.Ranking<UUID> beforeExpiry = engagementWindowService.rankHot(null, 10, now + 5 * 60 * MINUTE);
+        FeedRankingUtil.Ranking<UUID> afterExpiry = engagementWindowService.rankHot(null, 10, now + 7 * 60 * MINUTE);
+
+        // Then
+        assertThat(beforeExpiry.getScore(0)).isEqualTo(40.0);
+        assertThat(afterExpiry.getItems()).containsExactly(threadId);
+        assertThat(afterExpiry.getScore(0)).isEqualTo(20.0);
+    }
+
+    @Test
+    void rankHot_ResumesStrictlyAfterCursor() {
+        // Given
+        UUID first = new UUID(0, 3);
+        UUID second = new UUID(0, 2);
+        UUID third = new UUID(0, 1);
+        for (UUID threadId : new UUID[] {first, second, third}) {
+            engagementWindowService.record(threadId, EngagementWindowService.COMMENT_POINTS, now);
+        }
+        FeedRankingUtil.Ranking<UUID> firstPage = engagementWindowService.rankHot(null, 2, now);
+        FeedCursor cursor = FeedCursor.forScore("hot", firstPage.getScore(1), null, firstPage.get(1));
+
+        // When
+        FeedRankingUtil.Ranking<UUID> nextPage = engagementWindowService.rankHot(cursor, 2, now);
+
+        // Then
+        assertThat(firstPage.getItems()).containsExactly(first, second);
+        assertThat(nextPage.getItems()).containsExactly(third);
+    }
+
+    @Test
+    void rankRising_FavoursRecentBurstOverSteadyVolume() {
+        // Given
+        UUID steady = UUID.randomUUID();
+        UUID burst = UUID.randomUUID();
+        for (int hour = 0; hour < 6; hour++) {
+            engagementWindowService.record(steady, EngagementWindowService.COMMENT_POINTS, now + hour * 60 * MINUTE);
+        }
+        long later = now + 5 * 60 * MINUTE + 30 * MINUTE;
+        engagementWindowService.record(burst, EngagementWindowService.COMMENT_POINTS, later);
+        engagementWindowService.record(burst, EngagementWindowService.LIKE_POINTS, later);
+
+        // When
+        FeedRankingUtil.Ranking<UUID> ranking = engagementWindowService.rankRising(null, 10, later);
+
+        // Then
+        assertThat(ranking.getItems()).startsWith(burst);
+        assertThat(ranking.getScore(0)).isGreaterThan(ranking.size() > 1 ? ranking.getScore(1) : 0.0);
+    }
+}
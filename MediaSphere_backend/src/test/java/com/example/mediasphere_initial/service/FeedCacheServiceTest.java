@@ -0,0 +1,89 @@
+package com.example.mediasphere_initial.service;
+
+import com.example.mediasphere_initial.dto.FeedPage;
+import com.example.mediasphere_initial.dto.FeedThreadDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for FeedCacheService
+ */
+class FeedCacheServiceTest {
+
+    private FeedCacheService feedCacheService;
+    private AtomicInteger loads;
+    private FeedPage<FeedThreadDto> page;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        feedCacheService = new FeedCacheService();
+        ReflectionTestUtils.setField(feedCacheService, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(feedCacheService, "ttlSeconds", 30L);
+        ReflectionTestUtils.setField(feedCacheService, "maxEntries", 2);
+        loads = new AtomicInteger();
+        LocalDateTime createdAt = LocalDateTime.of(2025, 6, 1, 12, 0);
+        page = new FeedPage<>(List.of(new FeedThreadDto(UUID.randomUUID(), "title", "content", UUID.randomUUID(),
+                "club", null, UUID.randomUUID(), "author", null, createdAt, createdAt, createdAt, 0, 0, 0, 0, 1.0)),
+                10, null);
+        now = 1_000_000L;
+    }
+
+    @Test
+    void get_ServesCachedPageUntilVersionBump() {
+        // When
+        FeedCacheService.CachedPage first = feedCacheService.get("trending", null, 10, loader(), now);
+        FeedCacheService.CachedPage second = feedCacheService.get("trending", null, 10, loader(), now + 1000);
+        feedCacheService.bumpVersion();
+        FeedCacheService.CachedPage third = feedCacheService.get("trending", null, 10, loader(), now + 2000);
+
+        // Then
+        assertThat(second).isSameAs(first);
+        assertThat(third).isNotSameAs(first);
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void get_ReloadsAfterTtlButKeepsEtagForUnchangedContent() {
+        // When
+        FeedCacheService.CachedPage first = feedCacheService.get("hot", null, 10, loader(), now);
+        FeedCacheService.CachedPage expired = feedCacheService.get("hot", null, 10, loader(), now + 31_000);
+
+        // Then
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(expired.getEtag()).isEqualTo(first.getEtag()).startsWith("\"");
+        assertThat(expired.matches("W/\"x\", " + first.getEtag())).isTrue();
+        assertThat(expired.matches(null)).isFalse();
+    }
+
+    @Test
+    void get_KeysBySizeAndCursorAndStaysBounded() {
+        // When
+        feedCacheService.get("new", null, 10, loader(), now);
+        feedCacheService.get("new", null, 20, loader(), now);
+        feedCacheService.get("new", "abc", 10, loader(), now);
+        feedCacheService.get("new", "abc", 10, loader(), now);
+
+        // Then
+        assertThat(loads.get()).isEqualTo(3);
+        assertThat((Map<?, ?>) ReflectionTestUtils.getField(feedCacheService, "pages")).hasSizeLessThanOrEqualTo(2);
+    }
+
+    private Supplier<FeedPage<FeedThreadDto>> loader() {
+        return () -> {
+            loads.incrementAndGet();
+            return page;
+        };
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.mediasphere_initial.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for FeedRankingUtil
+ */
+class FeedRankingUtilTest {
+
+    @Test
+    void topK_ReturnsBestFirstAndScoresOncePerCandidate() {
+        // Given
+        List<Double> candidates = Arrays.asList(3.0, 9.0, 1.0, 7.0, 5.0);
+        AtomicInteger scoreCalls = new AtomicInteger();
+
+        // When
+        FeedRankingUtil.Ranking<Double> ranking = FeedRankingUtil.topK(candidates, value -> {
+            scoreCalls.incrementAndGet();
+            return value;
+        }, 3);
+
+        // Then
+        assertThat(ranking.getItems()).containsExactly(9.0, 7.0, 5.0);
+        assertThat(ranking.getScore(0)).isEqualTo(9.0);
+        assertThat(scoreCalls.get()).isEqualTo(candidates.size());
+    }
+
+    @Test
+    void topK_KeepsCandidateOrderOnTiesAndRanksNaNLast() {
+        // Given
+        List<String> candidates = Arrays.asList("a", "nan", "b", "c");
+
+        // When
+        FeedRankingUtil.Ranking<String> ranking = FeedRankingUtil.topK(candidates,
+                value -> "nan".equals(value) ? Double.NaN : 1.0, 10);
+
+        // Then
+        assertThat(ranking.getItems()).containsExactly("a", "b", "c", "nan");
+    }
+
+    @Test
+    void topK_MatchesFullSort() {
+        // Given
+        Random random = new Random(42);
+        List<Double> candidates = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            candidates.add(random.nextDouble());
+        }
+        List<Double> sorted = new ArrayList<>(candidates);
+        sorted.sort(Collections.reverseOrder());
+
+        // When
+        FeedRankingUtil.Ranking<Double> ranking = FeedRankingUtil.topK(candidates, value -> value, 25);
+
+        // Then
+        assertThat(ranking.getItems()).isEqualTo(sorted.subList(0, 25));
+    }
+
+    @Test
+    void topK_HandlesEmptyAndNonPositiveLimits() {
+        assertThat(FeedRankingUtil.topK(Collections.<Double>emptyList(), value -> value, 5).size()).isZero();
+        assertThat(FeedRankingUtil.topK(Arrays.asList(1.0, 2.0), value -> value, 0).size()).isZero();
+    }
+}
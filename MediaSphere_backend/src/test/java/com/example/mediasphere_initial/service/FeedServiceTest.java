@@ -0,0 +1,140 @@
+package com.example.mediasphere_initial.service;
+
+import com.example.mediasphere_initial.dto.FeedPage;
+import com.example.mediasphere_initial.dto.FeedThreadDto;
+import com.example.mediasphere_initial.model.User;
+import com.example.mediasphere_initial.model.UserThreadReaction;
+import com.example.mediasphere_initial.repository.ThreadRepository;
+import com.example.mediasphere_initial.repository.UserClubRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for FeedService
+ */
+@ExtendWith(MockitoExtension.class)
+class FeedServiceTest {
+
+    @Mock
+    private ThreadRepository threadRepository;
+
+    @Mock
+    private UserClubRepository userClubRepository;
+
+    @Mock
+    private TrendingIndexService trendingIndexService;
+
+    @Mock
+    private TimelineService timelineService;
+
+    @Mock
+    private EngagementWindowService engagementWindowService;
+
+    @Mock
+    private ViewCountService viewCountService;
+
+    @Mock
+    private ReactionIndexService reactionIndexService;
+
+    @InjectMocks
+    private FeedService feedService;
+
+    private User viewer;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        viewer = new User();
+        viewer.setId(UUID.randomUUID());
+        now = LocalDateTime.now();
+    }
+
+    @Test
+    void getNewFeed_FillsReactionsFromTheReactionIndex() {
+        // Given
+        FeedThreadDto liked = dto(now);
+        FeedThreadDto disliked = dto(now.minusMinutes(1));
+        FeedThreadDto untouched = dto(now.minusMinutes(2));
+        when(threadRepository.findNewest(any(Pageable.class))).thenReturn(Arrays.asList(liked, disliked, untouched));
+        when(reactionIndexService.reactionsOf(eq(viewer.getId()), anyCollection())).thenReturn(Map.of(
+                liked.getId(), UserThreadReaction.ReactionType.LIKE,
+                disliked.getId(), UserThreadReaction.ReactionType.DISLIKE));
+
+        // When
+        FeedPage<FeedThreadDto> page = feedService.getNewFeed(viewer, null, 2);
+
+        // Then
+        assertThat(page.getContent()).containsExactly(liked, disliked);
+        assertThat(page.getNextCursor()).isNotNull();
+        assertThat(liked.getIsLiked()).isTrue();
+        assertThat(disliked.getIsDisliked()).isTrue();
+        assertThat(untouched.getIsLiked()).isFalse();
+        verify(reactionIndexService, times(1)).reactionsOf(eq(viewer.getId()), anyCollection());
+    }
+
+    @Test
+    void getTrendingFeed_AnonymousViewerSkipsReactionLookup() {
+        // Given
+        FeedThreadDto thread = dto(now);
+        when(threadRepository.findTopByHotRank(any(Pageable.class))).thenReturn(Collections.singletonList(thread));
+
+        // When
+        FeedPage<FeedThreadDto> page = feedService.getTrendingFeed(null, null, 10);
+
+        // Then
+        assertThat(page.getContent()).containsExactly(thread);
+        assertThat(page.isLast()).isTrue();
+        verifyNoInteractions(reactionIndexService);
+    }
+
+    @Test
+    void getPersonalizedFeed_LoadsWholePageWithOneProjectionQuery() {
+        // Given
+        UUID clubId = UUID.randomUUID();
+        FeedThreadDto joined = dto(now);
+        FeedThreadDto other = dto(now.minusHours(1));
+        when(userClubRepository.findClubIdsByUserId(viewer.getId())).thenReturn(List.of(clubId));
+        when(timelineService.page(eq(viewer.getId()), anySet(), isNull(), eq(11)))
+                .thenReturn(List.of(timelineItem(joined.getId(), clubId)));
+        TrendingIndexService.Entry entry = mock(TrendingIndexService.Entry.class);
+        when(entry.getThreadId()).thenReturn(other.getId());
+        when(entry.getScore()).thenReturn(4.5);
+        when(trendingIndexService.page(isNull(), eq(10), any())).thenReturn(List.of(entry));
+        when(threadRepository.findFeedThreadsByIds(List.of(joined.getId(), other.getId())))
+                .thenReturn(Arrays.asList(other, joined));
+
+        // When
+        FeedPage<FeedThreadDto> page = feedService.getPersonalizedFeed(viewer, null, 10);
+
+        // Then
+        assertThat(page.getContent()).containsExactly(joined, other);
+        assertThat(other.getTrendingScore()).isEqualTo(4.5);
+        verify(threadRepository, times(1)).findFeedThreadsByIds(anyCollection());
+        verify(reactionIndexService, times(1)).reactionsOf(eq(viewer.getId()), anyCollection());
+    }
+
+    private FeedThreadDto dto(LocalDateTime createdAt) {
+        return new FeedThreadDto(UUID.randomUUID(), "title", "content", UUID.randomUUID(), "club", null,
+                UUID.randomUUID(), "author", null, createdAt, createdAt, createdAt, 0, 0, 0, 0, 1.0);
+    }
+
+    private TimelineService.Item timelineItem(UUID threadId, UUID clubId) {
+        return new TimelineService.Item(threadId, clubId, now);
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.mediasphere_initial.service;
+
+import com.example.mediasphere_initial.model.Notification;
+import com.example.mediasphere_initial.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for NotificationFanoutService
+ */
+@ExtendWith(MockitoExtension.class)
+class NotificationFanoutServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private NotificationRelayService notificationRelayService;
+
+    @InjectMocks
+    private NotificationFanoutService notificationFanoutService;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Runnable> queued = new ArrayList<>();
+
+    private User actor;
+
+    @BeforeEach
+    void setUp() {
+        actor = new User();
+        actor.setId(UUID.randomUUID());
+        actor.setUsername("creator");
+        Executor executor = queued::add;
+        ReflectionTestUtils.setField(notificationFanoutService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(notificationFanoutService, "fanoutExecutor", executor);
+        ReflectionTestUtils.setField(notificationFanoutService, "batchSize", 2);
+        ReflectionTestUtils.invokeMethod(notificationFanoutService, "registerMetrics");
+    }
+
+    @Test
+    void fanOut_OnlyQueuesOnTheCallingThread() {
+        // When
+        notificationFanoutService.fanOut(recipients(3), actor, "New thread", "content", "club_thread_created",
+                UUID.randomUUID(), "thread");
+
+        // Then
+        assertThat(queued).hasSize(1);
+        assertThat(gauge("notifications.fanout.queue.depth")).isEqualTo(1.0);
+        assertThat(gauge("notifications.fanout.pending.recipients")).isEqualTo(3.0);
+        verifyNoInteractions(jdbcTemplate, notificationRelayService);
+    }
+
+    @Test
+    void fanOut_AFullQueueDropsTheJobInsteadOfRunningItOnTheCaller() {
+        // Given
+        Executor full = task -> {
+            throw new RejectedExecutionException("queue full");
+        };
+        ReflectionTestUtils.setField(notificationFanoutService, "fanoutExecutor", full);
+
+        // When
+        notificationFanoutService.fanOut(recipients(3), actor, "New thread", "content", "club_thread_created",
+                UUID.randomUUID(), "thread");
+
+        // Then
+        assertThat(meterRegistry.counter("notifications.fanout.rejected").count()).isEqualTo(3.0);
+        assertThat(gauge("notifications.fanout.queue.depth")).isZero();
+        assertThat(gauge("notifications.fanout.pending.recipients")).isZero();
+        verifyNoInteractions(jdbcTemplate, notificationRelayService);
+    }
+
+    @Test
+    void fanOut_WritesMultiRowChunksSkippingTheActorAndPushesEachChunk() {
+        // Given
+        List<UUID> recipients = recipients(5);
+        recipients.add(actor.getId());
+
+        // When
+        notificationFanoutService.fanOut(recipients, actor, "New thread", "content", "club_thread_created",
+                UUID.randomUUID(), "thread");
+        queued.forEach(Runnable::run);
+
+        // Then - five recipients in chunks of two
+        verify(jdbcTemplate, times(2)).update(eq(NotificationFanoutService.insertSql(2)), any(Object[].class));
+        verify(jdbcTemplate, times(1)).update(eq(NotificationFanoutService.insertSql(1)), any(Object[].class));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Notification>> pushed = ArgumentCaptor.forClass(List.class);
+        verify(notificationRelayService, times(3)).publishAll(pushed.capture());
+        assertThat(pushed.getAllValues()).extracting(List::size).containsExactly(2, 2, 1);
+        assertThat(pushed.getValue().get(0).getUser().getId()).isEqualTo(recipients.get(4));
+        assertThat(meterRegistry.counter("notifications.fanout.delivered").count()).isEqualTo(5.0);
+        assertThat(meterRegistry.timer("notifications.fanout.lag").count()).isEqualTo(3);
+        assertThat(gauge("notifications.fanout.queue.depth")).isZero();
+        assertThat(gauge("notifications.fanout.pending.recipients")).isZero();
+    }
+
+    @Test
+    void fanOut_AFailedChunkDoesNotStopTheRest() {
+        // Given
+        when(jdbcTemplate.update(eq(NotificationFanoutService.insertSql(2)), any(Object[].class)))
+                .thenThrow(new DataAccessResourceFailureException("down"))
+                .thenReturn(2);
+
+        // When
+        notificationFanoutService.fanOut(recipients(4), actor, "Event updated", "content", "event_updated",
+                UUID.randomUUID(), "event");
+        queued.forEach(Runnable::run);
+
+        // Then
+        assertThat(meterRegistry.counter("notifications.fanout.failed").count()).isEqualTo(2.0);
+        assertThat(meterRegistry.counter("notifications.fanout.delivered").count()).isEqualTo(2.0);
+        assertThat(gauge("notifications.fanout.pending.recipients")).isZero();
+    }
+
+    @Test
+    void coalesce_UpsertsOneRowPerRecipientAndPushesOnlyWhatChanged() throws Exception {
+        // Given - recipient 0's aggregate is due a push, 1's was pushed recently, 2 has none and 3's already
+        // counts this actor, so the upsert leaves it alone
+        List<UUID> recipients = recipients(4);
+        UUID threadId = UUID.randomUUID();
+        ReflectionTestUtils.setField(notificationFanoutService, "batchSize", 4);
+        String mergeSql = NotificationFanoutService.mergeSql(4);
+        String merged = "creator and 4 others liked your thread 'Dune'";
+        doAnswer(invocation -> {
+            RowMapper<?> mapper = invocation.getArgument(1);
+            Object[] args = (Object[]) invocation.getRawArguments()[2];
+            UUID insertedId = (UUID) args[2 * NotificationFanoutService.AGGREGATE_ROW_PARAMETERS];
+            return List.of(mapper.mapRow(stored(UUID.randomUUID(), recipients.get(0), merged, 5, true), 0),
+                    mapper.mapRow(stored(UUID.randomUUID(), recipients.get(1), merged, 5, false), 1),
+                    mapper.mapRow(stored(insertedId, recipients.get(2), "creator liked your thread 'Dune'", 1, true),
+                            2));
+        }).when(jdbcTemplate).query(eq(mergeSql), ArgumentMatchers.<RowMapper<Object>>any(), any(Object[].class));
+
+        // When
+        notificationFanoutService.coalesce(recipients, actor, "Thread liked", " liked your thread 'Dune'",
+                "thread_like", threadId, "thread");
+        queued.forEach(Runnable::run);
+
+        // Then - stale aggregates are closed, then one upsert; the new row and the due aggregate are pushed
+        verify(jdbcTemplate).update(eq(NotificationFanoutService.closeSql(4)), any(Object[].class));
+        verify(jdbcTemplate).query(eq(mergeSql), ArgumentMatchers.<RowMapper<Object>>any(), any(Object[].class));
+        verify(jdbcTemplate, never()).update(startsWith(NotificationFanoutService.INSERT_SQL), any(Object[].class));
+        ArgumentCaptor<Notification> pushed = ArgumentCaptor.forClass(Notification.class);
+        verify(notificationRelayService).publish(pushed.capture());
+        assertThat(pushed.getValue().getUser().getId()).isEqualTo(recipients.get(0));
+        assertThat(pushed.getValue().getContent()).isEqualTo(merged);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Notification>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(notificationRelayService).publishAll(inserted.capture());
+        assertThat(inserted.getValue()).singleElement().satisfies(notification -> {
+            assertThat(notification.getUser().getId()).isEqualTo(recipients.get(2));
+            assertThat(notification.getContent()).isEqualTo("creator liked your thread 'Dune'");
+        });
+        assertThat(meterRegistry.counter("notifications.fanout.coalesced").count()).isEqualTo(3.0);
+        assertThat(meterRegistry.counter("notifications.fanout.delivered").count()).isEqualTo(4.0);
+    }
+
+    @Test
+    void coalesce_DeduplicatesRecipientsForTheUpsert() {
+        // Given
+        UUID recipient = UUID.randomUUID();
+        String mergeSql = NotificationFanoutService.mergeSql(1);
+        doReturn(List.of()).when(jdbcTemplate).query(eq(mergeSql), ArgumentMatchers.<RowMapper<Object>>any(), any(Object[].class));
+
+        // When
+        notificationFanoutService.coalesce(List.of(recipient, recipient), actor, "New member", " joined your club",
+                "club_join", UUID.randomUUID(), "club");
+        queued.forEach(Runnable::run);
+
+        // Then
+        verify(jdbcTemplate).query(eq(mergeSql), ArgumentMatchers.<RowMapper<Object>>any(), any(Object[].class));
+        assertThat(meterRegistry.counter("notifications.fanout.delivered").count()).isEqualTo(1.0);
+    }
+
+    private static ResultSet stored(UUID id, UUID userId, String content, int count, boolean push) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getObject("id", UUID.class)).thenReturn(id);
+        when(rs.getObject("user_id", UUID.class)).thenReturn(userId);
+        when(rs.getString("content")).thenReturn(content);
+        when(rs.getInt("aggregate_count")).thenReturn(count);
+        when(rs.getBoolean("push")).thenReturn(push);
+        return rs;
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    private static List<UUID> recipients(int count) {
+        List<UUID> recipients = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            recipients.add(UUID.randomUUID());
+        }
+        return recipients;
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.mediasphere_initial.service;
+
+import com.example.mediasphere_initial.dto.NotificationEventDto;
+import com.example.mediasphere_initial.model.Notification;
+import com.example.mediasphere_initial.model.User;
+import com.example.mediasphere_initial.repository.NotificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for NotificationRelayService
+ */
+@ExtendWith(MockitoExtension.class)
+class NotificationRelayServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private NotificationStreamService notificationStreamService;
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Spy
+    private AfterCommitService afterCommitService;
+
+    @InjectMocks
+    private NotificationRelayService notificationRelayService;
+
+    private final NotificationRelayService otherNode = new NotificationRelayService();
+
+    private User actor;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(notificationRelayService, "active", true);
+        actor = new User();
+        actor.setId(UUID.randomUUID());
+        actor.setUsername("creator");
+    }
+
+    @Test
+    void publishAll_PushesLocallyAndNotifiesOtherNodesInBatches() {
+        // Given
+        List<Notification> notifications = copies(60, "content");
+
+        // When
+        notificationRelayService.publishAll(notifications);
+
+        // Then
+        verify(notificationStreamService, times(60)).sendNotificationToUser(any(UUID.class), any(Notification.class));
+        ArgumentCaptor<String> payloads = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, times(2)).queryForList(eq(NotificationRelayService.NOTIFY_SQL),
+                eq(NotificationRelayService.CHANNEL), payloads.capture());
+        assertThat(payloads.getAllValues().get(0)).contains("\"title\":\"New thread\"")
+                .contains(notifications.get(49).getId().toString())
+                .doesNotContain(notifications.get(50).getId().toString());
+    }
+
+    @Test
+    void publishAll_WaitsForTheCommitAndSurvivesAFailedNotify() {
+        // Given
+        ReflectionTestUtils.setField(afterCommitService, "transactionManager", mock(PlatformTransactionManager.class));
+        List<Notification> notifications = copies(2, "content");
+        when(jdbcTemplate.queryForList(eq(NotificationRelayService.NOTIFY_SQL), any(Object[].class)))
+                .thenThrow(new DataAccessResourceFailureException("connection reset"));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            notificationRelayService.publishAll(notifications);
+
+            // Then - nothing leaves the node, nor reaches local connections, before the commit
+            verifyNoInteractions(notificationStreamService, jdbcTemplate);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(notificationStreamService, times(2)).sendNotificationToUser(any(UUID.class), any(Notification.class));
+        verify(jdbcTemplate).queryForList(eq(NotificationRelayService.NOTIFY_SQL), any(Object[].class));
+    }
+
+    @Test
+    void handle_IgnoresMessagesFromThisNode() throws Exception {
+        // Given
+        List<Notification> notifications = copies(2, "content");
+        String payload = notificationRelayService.payload(event(notifications), notifications);
+
+        // When
+        notificationRelayService.handle(payload);
+
+        // Then
+        verifyNoInteractions(notificationStreamService, notificationRepository);
+    }
+
+    @Test
+    void handle_PushesToLocallyConnectedRecipientsWithTheirOwnIds() throws Exception {
+        // Given
+        List<Notification> notifications = copies(3, "content");
+        Notification connected = notifications.get(1);
+        when(notificationStreamService.acceptsEvents(any(UUID.class)))
+                .thenAnswer(invocation -> connected.getUser().getId().equals(invocation.getArgument(0)));
+
+        // When
+        notificationRelayService.handle(otherNode.payload(event(notifications), notifications));
+
+        // Then
+        ArgumentCaptor<NotificationEventDto> pushed = ArgumentCaptor.forClass(NotificationEventDto.class);
+        verify(notificationStreamService).sendEventToUser(eq(connected.getUser().getId()), pushed.capture());
+        assertThat(pushed.getValue().getId()).isEqualTo(connected.getId());
+        assertThat(pushed.getValue().getActor().getUsername()).isEqualTo("creator");
+        verifyNoInteractions(notificationRepository);
+    }
+
+    @Test
+    void handle_LoadsRowsWhenTheBodyDidNotFitThePayload() throws Exception {
+        // Given - a body well over Postgres' 8000 byte NOTIFY limit
+        List<Notification> notifications = copies(2, "x".repeat(9000));
+        Notification connected = notifications.get(0);
+        String payload = otherNode.payload(event(notifications), notifications);
+        when(notificationStreamService.acceptsEvents(any(UUID.class)))
+                .thenAnswer(invocation -> connected.getUser().getId().equals(invocation.getArgument(0)));
+        when(notificationRepository.findAllById(List.of(connected.getId()))).thenReturn(List.of(connected));
+
+        // When
+        notificationRelayService.handle(payload);
+
+        // Then
+        assertThat(payload).doesNotContain("xxxx");
+        verify(notificationStreamService).sendNotificationToUser(connected.getUser().getId(), connected);
+        verify(notificationStreamService, never()).sendEventToUser(any(), any());
+    }
+
+    private NotificationEventDto event(List<Notification> notifications) {
+        NotificationEventDto event = new NotificationEventDto(notifications.get(0));
+        event.setId(null);
+        return event;
+    }
+
+    private List<Notification> copies(int count, String content) {
+        List<Notification> notifications = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            User recipient = new User();
+            recipient.setId(UUID.randomUUID());
+            notifications.add(new Notification(UUID.randomUUID(), recipient, actor, "New thread", content,
+                    "club_thread_created"));
+        }
+        return notifications;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.mediasphere_initial.service;
+
+import com.example.mediasphere_initial.model.User;
+import com.example.mediasphere_initial.repository.NotificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for NotificationService
+ */
+@ExtendWith(MockitoExtension.class)
+class NotificationServiceTest {
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private NotificationRelayService notificationRelayService;
+
+    @Mock
+    private NotificationFanoutService notificationFanoutService;
+
+    @InjectMocks
+    private NotificationService notificationService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setId(UUID.randomUUID());
+        ReflectionTestUtils.setField(notificationService, "retentionDays", 30);
+        ReflectionTestUtils.setField(notificationService, "retentionChunkSize", 100);
+    }
+
+    @Test
+    void markAllAsRead_IsOneUpdateReturningTheCount() {
+        // Given
+        when(notificationRepository.markAllRead(user.getId())).thenReturn(2500);
+
+        // When
+        int updated = notificationService.markAllAsRead(user);
+
+        // Then
+        assertThat(updated).isEqualTo(2500);
+        verify(notificationRepository, never()).findByUserAndIsReadOrderByCreatedAtDesc(any(), any());
+        verify(notificationRepository, never()).save(any());
+    }
+
+    @Test
+    void markAsRead_EmptyIdListSkipsTheQuery() {
+        // When / Then
+        assertThat(notificationService.markAsRead(user, Collections.emptyList())).isZero();
+        verifyNoInteractions(notificationRepository);
+    }
+
+    @Test
+    void markAsRead_ByIdsIsScopedToTheUser() {
+        // Given
+        List<UUID> ids = List.of(UUID.randomUUID(), UUID.randomUUID());
+        when(notificationRepository.markReadByIds(user.getId(), ids)).thenReturn(2);
+
+        // When / Then
+        assertThat(notificationService.markAsRead(user, ids)).isEqualTo(2);
+    }
+
+    @Test
+    void purgeReadNotifications_DeletesInChunksUntilAShortOne() {
+        // Given
+        when(notificationRepository.deleteReadOlderThan(any(LocalDateTime.class), eq(100)))
+                .thenReturn(100, 100, 37);
+
+        // When
+        notificationService.purgeReadNotifications();
+
+        // Then
+        verify(notificationRepository, times(3)).deleteReadOlderThan(
+                argThat(cutoff -> cutoff.isBefore(LocalDateTime.now().minusDays(29))), eq(100));
+    }
+
+    @Test
+    void notifyThreadLike_CoalescesIntoTheOwnersAggregateAndSkipsSelfLikes() {
+        // Given
+        User liker = new User();
+        liker.setId(UUID.randomUUID());
+        liker.setUsername("fan");
+        UUID threadId = UUID.randomUUID();
+
+        // When
+        notificationService.notifyThreadLike(user, liker, "Dune", threadId);
+        notificationService.notifyThreadLike(user, user, "Dune", threadId);
+
+        // Then
+        verify(notificationFanoutService, times(1)).coalesce(List.of(user.getId()), liker, "Thread liked",
+                " liked your thread 'Dune'", "thread_like", threadId, "thread");
+        verifyNoInteractions(notificationRepository, notificationRelayService);
+    }
+}
@@ -0,0 +1,373 @@
+package com.example.mediasphere_initial.service;
+
+import com.example.mediasphere_initial.model.Notification;
+import com.example.mediasphere_initial.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for NotificationStreamService
+ */
+class NotificationStreamServiceTest {
+
+    private NotificationStreamService notificationStreamService;
+    private Notification notification;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Runnable> queued = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        notificationStreamService = new NotificationStreamService();
+        Executor executor = queued::add;
+        ReflectionTestUtils.setField(notificationStreamService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(notificationStreamService, "dispatchExecutor", executor);
+        ReflectionTestUtils.setField(notificationStreamService, "queueCapacity", 2);
+        ReflectionTestUtils.setField(notificationStreamService, "evictAfterMs", 30000L);
+        ReflectionTestUtils.setField(notificationStreamService, "maxPerUser", 2);
+        ReflectionTestUtils.setField(notificationStreamService, "maxConnections", 3);
+        ReflectionTestUtils.setField(notificationStreamService, "replaySize", 4);
+        ReflectionTestUtils.setField(notificationStreamService, "replayTtlMs", 300000L);
+        ReflectionTestUtils.invokeMethod(notificationStreamService, "registerMetrics");
+
+        User recipient = new User();
+        recipient.setId(UUID.randomUUID());
+        recipient.setEmail("recipient@example.com");
+        User actor = new User();
+        actor.setId(UUID.randomUUID());
+        actor.setUsername("liker");
+        actor.setFirstName("Ada");
+        notification = new Notification(UUID.randomUUID(), recipient, actor, "New like", "Ada liked your thread",
+                "thread_like");
+        notification.setCreatedAt(LocalDateTime.of(2025, 3, 1, 12, 30));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sendNotificationToAllUsers_WritesOneSharedFrameToEveryEmitter() throws IOException {
+        // Given
+        UUID userId = UUID.randomUUID();
+        SseEmitter first = connected(userId);
+        SseEmitter second = connected(userId);
+        SseEmitter third = connected(UUID.randomUUID());
+
+        // When
+        notificationStreamService.sendNotificationToAllUsers(notification);
+        runQueued();
+
+        // Then
+        ArgumentCaptor<Set<DataWithMediaType>> frames = ArgumentCaptor.forClass(Set.class);
+        verify(first).send(frames.capture());
+        verify(second).send(frames.capture());
+        verify(third).send(frames.capture());
+        assertThat(frames.getAllValues()).hasSize(3).allSatisfy(frame -> assertThat(frame).isSameAs(
+                frames.getAllValues().get(0)));
+
+        String text = render(frames.getValue());
+        assertThat(text).startsWith("id:").contains("\nevent:notification\ndata:")
+                .contains("\"createdAt\":\"2025-03-01T12:30:00\"")
+                .contains("\"username\":\"liker\"")
+                .doesNotContain("recipient@example.com");
+    }
+
+    @Test
+    void sendNotificationToUser_OnlyEnqueuesOnTheCallingThread() throws IOException {
+        // Given
+        UUID userId = UUID.randomUUID();
+        SseEmitter emitter = connected(userId);
+
+        // When
+        notificationStreamService.sendNotificationToUser(userId, notification);
+        notificationStreamService.sendNotificationToUser(userId, notification);
+
+        // Then - one drain for the connection, nothing written yet
+        assertThat(queued).hasSize(1);
+        assertThat(gauge("notifications.stream.queue.depth")).isEqualTo(2.0);
+        verifyNoInteractions(emitter);
+
+        runQueued();
+        verify(emitter, times(2)).send(anySet());
+        assertThat(gauge("notifications.stream.queue.depth")).isZero();
+    }
+
+    @Test
+    void sendNotificationToUser_DropsOldestFramesAndEvictsASaturatedConnection() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        SseEmitter stalled = connected(userId);
+
+        // When - the drain never runs, so the two-frame queue overflows
+        for (int i = 0; i < 3; i++) {
+            notificationStreamService.sendNotificationToUser(userId, notification);
+        }
+
+        // Then
+        assertThat(meterRegistry.counter("notifications.stream.dropped").count()).isEqualTo(1.0);
+        assertThat(gauge("notifications.stream.queue.depth")).isEqualTo(2.0);
+        assertThat(notificationStreamService.hasActiveConnections(userId)).isTrue();
+
+        // When - it stays saturated past the eviction window
+        ReflectionTestUtils.setField(notificationStreamService, "evictAfterMs", 0L);
+        notificationStreamService.sendNotificationToUser(userId, notification);
+        runQueued();
+
+        // Then
+        assertThat(meterRegistry.counter("notifications.stream.evicted").count()).isEqualTo(1.0);
+        assertThat(notificationStreamService.hasActiveConnections(userId)).isFalse();
+        assertThat(gauge("notifications.stream.queue.depth")).isZero();
+        verify(stalled).complete();
+    }
+
+    @Test
+    void sendNotificationToUser_DropsAFailedEmitterAndKeepsTheRest() throws IOException {
+        // Given
+        UUID userId = UUID.randomUUID();
+        SseEmitter broken = connected(userId);
+        SseEmitter healthy = connected(userId);
+        doThrow(new IOException("closed")).when(broken).send(anySet());
+
+        // When
+        notificationStreamService.sendNotificationToUser(userId, notification);
+        runQueued();
+
+        // Then
+        verify(healthy).send(anySet());
+        verify(broken).complete();
+        assertThat(notificationStreamService.getActiveConnectionsCount()).isEqualTo(1);
+        assertThat(meterRegistry.counter("notifications.stream.reaped").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void sendNotificationToUser_SkipsEncodingWithoutConnections() {
+        // Given
+        NotificationStreamService spy = spy(notificationStreamService);
+
+        // When
+        spy.sendNotificationToUser(UUID.randomUUID(), notification);
+
+        // Then
+        verify(spy, never()).encode(any());
+    }
+
+    @Test
+    void addEmitter_SendsConnectedAndEnforcesPerUserAndGlobalLimits() throws IOException {
+        // Given
+        UUID userId = UUID.randomUUID();
+        SseEmitter oldest = mock(SseEmitter.class);
+        assertThat(notificationStreamService.addEmitter(userId, oldest)).isTrue();
+        runQueued();
+        verify(oldest).send(connectedFrame());
+        connected(userId);
+
+        // When - a third tab for the same user replaces the oldest one
+        connected(userId);
+
+        // Then
+        verify(oldest).complete();
+        assertThat(notificationStreamService.getActiveConnectionsCount()).isEqualTo(2);
+
+        // When - the global limit of three is reached
+        connected(UUID.randomUUID());
+        boolean accepted = notificationStreamService.addEmitter(UUID.randomUUID(), mock(SseEmitter.class));
+
+        // Then
+        assertThat(accepted).isFalse();
+        assertThat(gauge("notifications.stream.connections")).isEqualTo(3.0);
+        assertThat(gauge("notifications.stream.users")).isEqualTo(2.0);
+        assertThat(meterRegistry.counter("notifications.stream.rejected").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void sendHeartbeats_SharesOneCommentFrameAndReapsStalledWriters() throws IOException {
+        // Given
+        SseEmitter idle = connected(UUID.randomUUID());
+        UUID stalledUser = UUID.randomUUID();
+        SseEmitter stalled = connected(stalledUser);
+        notificationStreamService.sendNotificationToUser(stalledUser, notification);
+        Runnable stuckDrain = queued.remove(0);
+        ReflectionTestUtils.setField(notificationStreamService, "evictAfterMs", 0L);
+
+        // When
+        notificationStreamService.sendHeartbeats();
+        runQueued();
+
+        // Then - the stalled connection is unregistered at once and completed when its drain returns
+        verify(idle).send(NotificationStreamService.HEARTBEAT_FRAME);
+        assertThat(render(NotificationStreamService.HEARTBEAT_FRAME)).isEqualTo(":heartbeat\n\n");
+        verifyNoInteractions(stalled);
+        stuckDrain.run();
+        verify(stalled, never()).send(anySet());
+        verify(stalled).complete();
+        assertThat(notificationStreamService.hasActiveConnections(stalledUser)).isFalse();
+        assertThat(meterRegistry.counter("notifications.stream.reaped").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void addEmitter_ReplaysOnlyTheFramesMissedAfterLastEventId() throws IOException {
+        // Given - one frame seen, then the connection drops and two more arrive
+        ReflectionTestUtils.setField(notificationStreamService, "queueCapacity", 4);
+        UUID userId = UUID.randomUUID();
+        SseEmitter before = connected(userId);
+        notificationStreamService.sendNotificationToUser(userId, notification);
+        runQueued();
+        ArgumentCaptor<Set<DataWithMediaType>> seen = ArgumentCaptor.forClass(Set.class);
+        verify(before).send(seen.capture());
+        notificationStreamService.removeEmitter(userId, before);
+        runQueued();
+
+        assertThat(notificationStreamService.acceptsEvents(userId)).isTrue();
+        notificationStreamService.sendNotificationToUser(userId, notification);
+        notificationStreamService.sendNotificationToUser(userId, notification);
+
+        // When
+        SseEmitter after = mock(SseEmitter.class);
+        notificationStreamService.addEmitter(userId, after, eventId(seen.getValue()));
+        runQueued();
+
+        // Then
+        ArgumentCaptor<Set<DataWithMediaType>> resent = ArgumentCaptor.forClass(Set.class);
+        verify(after, times(3)).send(resent.capture());
+        assertThat(isConnected(resent.getAllValues().get(0))).isTrue();
+        List<String> ids = resent.getAllValues().subList(1, 3).stream().map(NotificationStreamServiceTest::eventId)
+                .toList();
+        assertThat(ids).doesNotContain(eventId(seen.getValue())).doesNotHaveDuplicates();
+        assertThat(meterRegistry.counter("notifications.stream.replayed").count()).isEqualTo(2.0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void addEmitter_SendsResyncWhenTheGapLeftTheRingOrTheIdIsForeign() throws IOException {
+        // Given - six frames while disconnected overflow a ring of four
+        UUID userId = UUID.randomUUID();
+        SseEmitter before = connected(userId);
+        notificationStreamService.sendNotificationToUser(userId, notification);
+        runQueued();
+        ArgumentCaptor<Set<DataWithMediaType>> seen = ArgumentCaptor.forClass(Set.class);
+        verify(before).send(seen.capture());
+        notificationStreamService.removeEmitter(userId, before);
+        runQueued();
+        for (int i = 0; i < 6; i++) {
+            notificationStreamService.sendNotificationToUser(userId, notification);
+        }
+
+        // When
+        SseEmitter behind = mock(SseEmitter.class);
+        SseEmitter foreign = mock(SseEmitter.class);
+        notificationStreamService.addEmitter(userId, behind, eventId(seen.getValue()));
+        notificationStreamService.addEmitter(userId, foreign, "otherNode-1");
+        runQueued();
+
+        // Then
+        for (SseEmitter emitter : List.of(behind, foreign)) {
+            verify(emitter).send(connectedFrame());
+            verify(emitter).send(NotificationStreamService.RESYNC_FRAME);
+            verifyNoMoreInteractions(emitter);
+        }
+        assertThat(meterRegistry.counter("notifications.stream.resyncs").count()).isEqualTo(2.0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void addEmitter_ResumesFromTheConnectedIdWhenNothingWasReceived() throws IOException {
+        // Given - a connection that saw only its "connected" event, then two frames while disconnected
+        ReflectionTestUtils.setField(notificationStreamService, "queueCapacity", 4);
+        UUID userId = UUID.randomUUID();
+        SseEmitter before = mock(SseEmitter.class);
+        notificationStreamService.addEmitter(userId, before);
+        runQueued();
+        ArgumentCaptor<Set<DataWithMediaType>> seen = ArgumentCaptor.forClass(Set.class);
+        verify(before).send(seen.capture());
+        notificationStreamService.removeEmitter(userId, before);
+        runQueued();
+        notificationStreamService.sendNotificationToUser(userId, notification);
+        notificationStreamService.sendNotificationToUser(userId, notification);
+
+        // When
+        SseEmitter after = mock(SseEmitter.class);
+        notificationStreamService.addEmitter(userId, after, eventId(seen.getValue()));
+        runQueued();
+
+        // Then - both frames are replayed rather than a resync
+        ArgumentCaptor<Set<DataWithMediaType>> resent = ArgumentCaptor.forClass(Set.class);
+        verify(after, times(3)).send(resent.capture());
+        assertThat(resent.getAllValues().subList(1, 3)).allMatch(frame -> render(frame).contains("event:notification"));
+        assertThat(meterRegistry.counter("notifications.stream.replayed").count()).isEqualTo(2.0);
+        assertThat(meterRegistry.counter("notifications.stream.resyncs").count()).isZero();
+    }
+
+    @Test
+    void sendHeartbeats_ForgetsDisconnectedUsersAfterTheReplayWindow() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        SseEmitter emitter = connected(userId);
+        notificationStreamService.removeEmitter(userId, emitter);
+        ReflectionTestUtils.setField(notificationStreamService, "replayTtlMs", 0L);
+
+        // When
+        notificationStreamService.sendHeartbeats();
+
+        // Then
+        assertThat(notificationStreamService.acceptsEvents(userId)).isFalse();
+    }
+
+    /**
+     * Register a mock emitter and flush its "connected" event
+     */
+    private SseEmitter connected(UUID userId) {
+        SseEmitter emitter = mock(SseEmitter.class);
+        assertThat(notificationStreamService.addEmitter(userId, emitter)).isTrue();
+        runQueued();
+        clearInvocations(emitter);
+        return emitter;
+    }
+
+    private void runQueued() {
+        while (!queued.isEmpty()) {
+            queued.remove(0).run();
+        }
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    private static String eventId(Set<DataWithMediaType> frame) {
+        String text = render(frame);
+        return text.substring("id:".length(), text.indexOf('\n'));
+    }
+
+    /**
+     * Matches a "connected" event, which carries the connection's resume id
+     */
+    private static Set<DataWithMediaType> connectedFrame() {
+        return argThat(NotificationStreamServiceTest::isConnected);
+    }
+
+    private static boolean isConnected(Set<DataWithMediaType> frame) {
+        return render(frame).startsWith("id:") && render(frame).contains("event:connected\n");
+    }
+
+    private static String render(Set<DataWithMediaType> frame) {
+        return frame.stream().map(part -> part.getData().toString()).collect(Collectors.joining());
+    }
+}
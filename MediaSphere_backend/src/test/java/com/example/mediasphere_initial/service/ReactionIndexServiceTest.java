@@ -0,0 +1,154 @@
+package com.example.mediasphere_initial.service;
+
+import com.example.mediasphere_initial.model.UserThreadReaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ReactionIndexService
+ */
+@ExtendWith(MockitoExtension.class)
+class ReactionIndexServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private ReactionIndexService reactionIndexService;
+
+    private UUID threadId;
+
+    @BeforeEach
+    void setUp() {
+        threadId = UUID.randomUUID();
+    }
+
+    @Test
+    void reactionOf_AnswersFromTheLoadedRows() throws Exception {
+        // Given
+        UUID liker = UUID.randomUUID();
+        UUID disliker = UUID.randomUUID();
+        givenStoredReactions(new Object[] {liker, threadId, "LIKE"}, new Object[] {disliker, threadId, "DISLIKE"});
+
+        // When / Then
+        assertThat(reactionIndexService.reactionOf(liker, threadId)).isEqualTo(UserThreadReaction.ReactionType.LIKE);
+        assertThat(reactionIndexService.reactionOf(disliker, threadId))
+                .isEqualTo(UserThreadReaction.ReactionType.DISLIKE);
+        assertThat(reactionIndexService.reactionOf(UUID.randomUUID(), threadId)).isNull();
+        assertThat(reactionIndexService.reactionOf(null, threadId)).isNull();
+        assertThat(reactionIndexService.reactionsOf(null, List.of(threadId))).isEmpty();
+        assertThat(reactionIndexService.likeCount(threadId)).isEqualTo(1);
+        assertThat(reactionIndexService.dislikeCount(threadId)).isEqualTo(1);
+        verify(jdbcTemplate, times(1)).query(eq(ReactionIndexService.LOAD_SQL), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void applyAfterCommit_SwitchingAndRemovingMovesTheUserBetweenSets() throws Exception {
+        // Given
+        UUID user = UUID.randomUUID();
+        givenStoredReactions(new Object[] {user, threadId, "LIKE"});
+        reactionIndexService.likeCount(threadId);
+
+        // When
+        reactionIndexService.applyAfterCommit(user, threadId, UserThreadReaction.ReactionType.DISLIKE);
+
+        // Then
+        assertThat(reactionIndexService.likeCount(threadId)).isZero();
+        assertThat(reactionIndexService.dislikers(threadId, 0, 10)).containsExactly(user);
+
+        // When
+        reactionIndexService.applyAfterCommit(user, threadId, null);
+
+        // Then
+        assertThat(reactionIndexService.reactionOf(user, threadId)).isNull();
+        assertThat(reactionIndexService.dislikeCount(threadId)).isZero();
+    }
+
+    @Test
+    void likers_PagesLargeThreadsAcrossContainerConversions() throws Exception {
+        // Given
+        givenStoredReactions();
+        reactionIndexService.likeCount(threadId);
+        List<UUID> users = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            UUID user = new UUID(i, i);
+            users.add(user);
+            reactionIndexService.applyAfterCommit(user, threadId, UserThreadReaction.ReactionType.LIKE);
+        }
+
+        // When
+        List<UUID> page = reactionIndexService.likers(threadId, 40, 100);
+
+        // Then
+        assertThat(reactionIndexService.likeCount(threadId)).isEqualTo(5000);
+        assertThat(page).containsExactlyElementsOf(users.subList(4000, 4100));
+
+        // When - shrink back below the array limit
+        for (int i = 0; i < 2000; i++) {
+            reactionIndexService.applyAfterCommit(users.get(i), threadId, null);
+        }
+
+        // Then
+        assertThat(reactionIndexService.likeCount(threadId)).isEqualTo(3000);
+        assertThat(reactionIndexService.likers(threadId, 0, 2)).containsExactly(users.get(2000), users.get(2001));
+        assertThat(reactionIndexService.likers(threadId, 30, 100)).isEmpty();
+    }
+
+    @Test
+    void reload_PicksUpOtherNodesWritesAndKeepsChangesCommittedMeanwhile() throws Exception {
+        // Given - loaded once; then another node stores a like and a local like commits during the reload
+        UUID local = UUID.randomUUID();
+        UUID remote = UUID.randomUUID();
+        UUID removed = UUID.randomUUID();
+        givenStoredReactions(new Object[] {local, removed, "LIKE"});
+        reactionIndexService.likeCount(threadId);
+        doAnswer(invocation -> {
+            reactionIndexService.applyAfterCommit(local, threadId, UserThreadReaction.ReactionType.LIKE);
+            reactionIndexService.removeThread(removed);
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(row(remote, threadId, "LIKE"));
+            handler.processRow(row(local, removed, "LIKE"));
+            return null;
+        }).when(jdbcTemplate).query(eq(ReactionIndexService.LOAD_SQL), any(RowCallbackHandler.class));
+
+        // When
+        reactionIndexService.reload();
+
+        // Then
+        assertThat(reactionIndexService.likers(threadId, 0, 10)).containsExactlyInAnyOrder(local, remote);
+        assertThat(reactionIndexService.reactionOf(local, removed)).isNull();
+    }
+
+    private void givenStoredReactions(Object[]... rows) throws Exception {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Object[] row : rows) {
+                handler.processRow(row((UUID) row[0], (UUID) row[1], (String) row[2]));
+            }
+            return null;
+        }).when(jdbcTemplate).query(eq(ReactionIndexService.LOAD_SQL), any(RowCallbackHandler.class));
+    }
+
+    private static ResultSet row(UUID userId, UUID threadId, String type) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getObject(1, UUID.class)).thenReturn(userId);
+        when(rs.getObject(2, UUID.class)).thenReturn(threadId);
+        when(rs.getString(3)).thenReturn(type);
+        return rs;
+    }
+}
@@ -4,29 +4,32 @@ import com.example.mediasphere_initial.config.TestConfig;
 import com.example.mediasphere_initial.model.Thread;
 import com.example.mediasphere_initial.model.Comment;
 import com.example.mediasphere_initial.model.User;
-import com.example.mediasphere_initial.model.ThreadLike;
-import com.example.mediasphere_initial.model.ThreadDislike;
 import com.example.mediasphere_initial.repository.ThreadRepository;
 import com.example.mediasphere_initial.repository.CommentRepository;
 import com.example.mediasphere_initial.repository.UserRepository;
-import com.example.mediasphere_initial.repository.ThreadLikeRepository;
-import com.example.mediasphere_initial.repository.ThreadDislikeRepository;
 import com.example.mediasphere_initial.repository.CommentLikeRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.annotation.Import;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.Map;
+import java.util.HashMap;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -50,16 +53,40 @@ class ThreadServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private ThreadLikeRepository threadLikeRepository;
+    private CommentLikeRepository commentLikeRepository;
 
     @Mock
-    private ThreadDislikeRepository threadDislikeRepository;
+    private NotificationService notificationService;
 
     @Mock
-    private CommentLikeRepository commentLikeRepository;
+    private TrendingIndexService trendingIndexService;
 
     @Mock
-    private NotificationService notificationService;
+    private TimelineService timelineService;
+
+    @Mock
+    private EngagementWindowService engagementWindowService;
+
+    @Mock
+    private FeedCacheService feedCacheService;
+
+    @Mock
+    private ViewCountService viewCountService;
+
+    @Mock
+    private UniqueViewerService uniqueViewerService;
+
+    @Mock
+    private ReactionService reactionService;
+
+    @Mock
+    private ReactionIndexService reactionIndexService;
+
+    @Mock
+    private ThreadStatsService threadStatsService;
+
+    @Spy
+    private AfterCommitService afterCommitService;
 
     @InjectMocks
     private ThreadService threadService;
@@ -215,6 +242,7 @@ class ThreadServiceTest {
         // Given
         when(threadRepository.findById(testThreadId)).thenReturn(Optional.of(testThread));
         when(commentRepository.save(any(Comment.class))).thenReturn(testComment);
+        when(threadRepository.incrementCommentCount(testThreadId)).thenReturn(counters(0, 0, 1));
 
         // When
         Comment result = threadService.addComment(testThreadId, testComment, testUser);
@@ -225,55 +253,110 @@ class ThreadServiceTest {
 
         verify(threadRepository).findById(testThreadId);
         verify(commentRepository).save(any(Comment.class));
+        verify(threadRepository, never()).save(any(Thread.class));
+        verify(threadStatsService).commentAdded(eq(testThreadId), eq(true), any(LocalDateTime.class));
+    }
+
+    @Test
+    void addComment_DefersRankingAndNotificationUntilCommit() {
+        // Given
+        ReflectionTestUtils.setField(afterCommitService, "transactionManager", mock(PlatformTransactionManager.class));
+        when(threadRepository.findById(testThreadId)).thenReturn(Optional.of(testThread));
+        when(commentRepository.save(any(Comment.class))).thenReturn(testComment);
+        when(threadRepository.incrementCommentCount(testThreadId)).thenReturn(counters(0, 0, 1));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            threadService.addComment(testThreadId, testComment, testUser);
+
+            // Then - nothing outside the database moves before the commit
+            verifyNoInteractions(trendingIndexService, feedCacheService, engagementWindowService, notificationService);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(trendingIndexService).update(eq(testThread), any(ThreadRepository.ThreadCounters.class));
+        verify(feedCacheService).bumpVersion();
+        verify(engagementWindowService).recordComment(testThreadId);
+        verify(notificationService).notifyThreadComment(testThread.getCreatedBy(), testUser, testThread.getTitle(),
+                testThreadId);
     }
 
     @Test
     void likeThread_Success() {
         // Given
         when(threadRepository.findById(testThreadId)).thenReturn(Optional.of(testThread));
-        when(threadLikeRepository.findByThreadAndUser(testThread, testUser)).thenReturn(Optional.empty());
-        when(threadDislikeRepository.findByThreadAndUser(testThread, testUser)).thenReturn(Optional.empty());
-        when(threadLikeRepository.save(any(ThreadLike.class))).thenReturn(new ThreadLike());
+        when(reactionService.likeThread(testThread, testUser)).thenReturn(Map.of(
+                "isLiked", true, "isDisliked", false, "likeCount", 1, "dislikeCount", 0));
 
         // When
         Map<String, Object> result = threadService.likeThread(testThreadId, testUser);
 
         // Then
         assertThat(result).isNotNull();
-        assertThat(result).containsKey("liked");
-        assertThat(result).containsKey("likeCount");
+        assertThat(result).containsEntry("liked", true);
+        assertThat(result).containsEntry("likeCount", 1);
 
         verify(threadRepository).findById(testThreadId);
-        verify(threadLikeRepository).findByThreadAndUser(testThread, testUser);
-        verify(threadDislikeRepository).findByThreadAndUser(testThread, testUser);
+        verify(reactionService).likeThread(testThread, testUser);
     }
 
     @Test
     void dislikeThread_Success() {
         // Given
         when(threadRepository.findById(testThreadId)).thenReturn(Optional.of(testThread));
-        when(threadDislikeRepository.findByThreadAndUser(testThread, testUser)).thenReturn(Optional.empty());
-        when(threadLikeRepository.findByThreadAndUser(testThread, testUser)).thenReturn(Optional.empty());
-        when(threadDislikeRepository.save(any(ThreadDislike.class))).thenReturn(new ThreadDislike());
+        when(reactionService.dislikeThread(testThread, testUser)).thenReturn(Map.of(
+                "isLiked", false, "isDisliked", true, "likeCount", 0, "dislikeCount", 1));
 
         // When
         Map<String, Object> result = threadService.dislikeThread(testThreadId, testUser);
 
         // Then
         assertThat(result).isNotNull();
-        assertThat(result).containsKey("disliked");
-        assertThat(result).containsKey("dislikeCount");
+        assertThat(result).containsEntry("disliked", true);
+        assertThat(result).containsEntry("dislikeCount", 1);
 
         verify(threadRepository).findById(testThreadId);
-        verify(threadDislikeRepository).findByThreadAndUser(testThread, testUser);
-        verify(threadLikeRepository).findByThreadAndUser(testThread, testUser);
+        verify(reactionService).dislikeThread(testThread, testUser);
+    }
+
+    @Test
+    void getThreadLikers_KeepsIndexOrder() {
+        // Given
+        User first = new User();
+        first.setId(UUID.randomUUID());
+        User second = new User();
+        second.setId(UUID.randomUUID());
+        when(threadRepository.existsById(testThreadId)).thenReturn(true);
+        when(reactionIndexService.likers(testThreadId, 0, 10)).thenReturn(List.of(first.getId(), second.getId()));
+        when(userRepository.findAllById(List.of(first.getId(), second.getId())))
+                .thenReturn(Arrays.asList(second, first));
+
+        // When
+        List<User> likers = threadService.getThreadLikers(testThreadId, 0, 10);
+
+        // Then
+        assertThat(likers).containsExactly(first, second);
     }
 
     @Test
     void getThreadStats_Success() {
         // Given
-        when(threadRepository.findById(testThreadId)).thenReturn(Optional.of(testThread));
-        testThread.setCommentCount(10);
+        Map<String, Object> row = new HashMap<>();
+        row.put("title", "Test Thread");
+        row.put("view_count", 7);
+        row.put("comment_count", 10);
+        row.put("created_at", Timestamp.valueOf(LocalDateTime.now()));
+        row.put("is_pinned", false);
+        row.put("is_locked", false);
+        row.put("like_count", 3);
+        row.put("dislike_count", 1);
+        row.put("stats_thread_id", testThreadId);
+        row.put("comment_like_count", 42L);
+        row.put("commenter_count", 4);
+        row.put("last_comment_at", null);
+        when(threadStatsService.load(testThreadId)).thenReturn(Optional.of(row));
+        when(viewCountService.currentViewCount(testThreadId, 7)).thenReturn(9);
 
         // When
         Map<String, Object> result = threadService.getThreadStats(testThreadId);
@@ -287,7 +370,41 @@ class ThreadServiceTest {
         assertThat(result).containsKey("createdAt");
         assertThat(result).containsKey("isPinned");
         assertThat(result).containsKey("isLocked");
+        assertThat(result).containsEntry("viewCount", 9);
+        assertThat(result).containsEntry("commentCount", 10);
+        assertThat(result).containsEntry("commentLikeCount", 42L);
+        assertThat(result).containsEntry("commenterCount", 4);
 
-        verify(threadRepository).findById(testThreadId);
+        // One primary-key read, no walk over the thread's comments
+        verifyNoInteractions(commentRepository, commentLikeRepository);
+    }
+
+    private static ThreadRepository.ThreadCounters counters(int likes, int dislikes, int comments) {
+        return new ThreadRepository.ThreadCounters() {
+            @Override
+            public Integer getLikeCount() {
+                return likes;
+            }
+
+            @Override
+            public Integer getDislikeCount() {
+                return dislikes;
+            }
+
+            @Override
+            public Integer getCommentCount() {
+                return comments;
+            }
+
+            @Override
+            public Integer getUniqueViewerCount() {
+                return 0;
+            }
+
+            @Override
+            public LocalDateTime getLastActivityAt() {
+                return LocalDateTime.now();
+            }
+        };
     }
 }
@@ -0,0 +1,95 @@
+package com.example.mediasphere_initial.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ThreadStatsService
+ */
+@ExtendWith(MockitoExtension.class)
+class ThreadStatsServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private ThreadStatsService threadStatsService;
+
+    private UUID threadId;
+
+    @BeforeEach
+    void setUp() {
+        threadId = UUID.randomUUID();
+    }
+
+    @Test
+    void commentLiked_AdjustsTheExistingRowInPlace() {
+        // Given
+        when(jdbcTemplate.update(eq(ThreadStatsService.ADJUST_SQL), any(Object[].class))).thenReturn(1);
+
+        // When
+        threadStatsService.commentLiked(threadId, true);
+
+        // Then
+        verify(jdbcTemplate, never()).update(eq(ThreadStatsService.REBUILD_ONE_SQL), any(Object[].class));
+    }
+
+    @Test
+    void commentAdded_RecountsAThreadWithoutARow() {
+        // Given
+        when(jdbcTemplate.update(eq(ThreadStatsService.ADJUST_SQL), any(Object[].class))).thenReturn(0);
+
+        // When
+        threadStatsService.commentAdded(threadId, true, LocalDateTime.now());
+
+        // Then
+        verify(jdbcTemplate).update(eq(ThreadStatsService.REBUILD_ONE_SQL), any(), eq(threadId));
+    }
+
+    @Test
+    void load_ReadsOneRowAndRebuildsOnlyWhenStatsAreMissing() {
+        // Given
+        Map<String, Object> missing = new HashMap<>();
+        missing.put("title", "Thread");
+        missing.put("stats_thread_id", null);
+        Map<String, Object> present = new HashMap<>(missing);
+        present.put("stats_thread_id", threadId);
+        when(jdbcTemplate.queryForList(ThreadStatsService.LOAD_SQL, threadId))
+                .thenReturn(List.of(missing))
+                .thenReturn(List.of(present));
+
+        // When
+        Optional<Map<String, Object>> row = threadStatsService.load(threadId);
+
+        // Then
+        assertThat(row).contains(present);
+        verify(jdbcTemplate).update(eq(ThreadStatsService.REBUILD_ONE_SQL), any(), eq(threadId));
+    }
+
+    @Test
+    void load_UnknownThreadIsEmpty() {
+        // Given
+        when(jdbcTemplate.queryForList(ThreadStatsService.LOAD_SQL, threadId)).thenReturn(Collections.emptyList());
+
+        // When / Then
+        assertThat(threadStatsService.load(threadId)).isEmpty();
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+}
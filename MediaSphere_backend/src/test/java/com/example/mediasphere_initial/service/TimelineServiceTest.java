@@ -0,0 +1,307 @@
+package com.example.mediasphere_initial.service;
+
+import com.example.mediasphere_initial.dto.FeedCursor;
+import com.example.mediasphere_initial.model.Club;
+import com.example.mediasphere_initial.model.Thread;
+import com.example.mediasphere_initial.model.UserTimelineEntry;
+import com.example.mediasphere_initial.repository.ThreadRepository;
+import com.example.mediasphere_initial.repository.UserClubRepository;
+import com.example.mediasphere_initial.repository.UserTimelineEntryRepository;
+import com.example.mediasphere_initial.repository.UserTimelineSeedRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TimelineService
+ */
+@ExtendWith(MockitoExtension.class)
+class TimelineServiceTest {
+
+    @Mock
+    private UserTimelineEntryRepository timelineRepository;
+
+    @Mock
+    private UserTimelineSeedRepository seedRepository;
+
+    @Mock
+    private UserClubRepository userClubRepository;
+
+    @Mock
+    private ThreadRepository threadRepository;
+
+    @InjectMocks
+    private TimelineService timelineService;
+
+    private UUID userId;
+    private UUID clubId;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(timelineService, "capacity", 3);
+        ReflectionTestUtils.setField(timelineService, "fanoutMaxMembers", 100L);
+        ReflectionTestUtils.setField(timelineService, "maxCachedUsers", 10);
+        ReflectionTestUtils.setField(timelineService, "checkIntervalMs", 60000L);
+        ReflectionTestUtils.setField(timelineService, "maxAgeMs", 600000L);
+        ReflectionTestUtils.setField(timelineService, "trimChunkSize", 2);
+        ReflectionTestUtils.setField(timelineService, "mergeExecutor", (Executor) Runnable::run);
+        userId = UUID.randomUUID();
+        clubId = UUID.randomUUID();
+        now = LocalDateTime.now();
+    }
+
+    @Test
+    void publish_PushesIntoCachedTimelineAndPersists() {
+        // Given
+        UserTimelineEntry older = new UserTimelineEntry(userId, UUID.randomUUID(), clubId, now.minusHours(1));
+        when(userClubRepository.findClubIdsWithMoreMembersThan(anyCollection(), eq(100L)))
+                .thenReturn(Collections.emptyList());
+        when(timelineRepository.findNewestByUserId(eq(userId), any(Pageable.class)))
+                .thenReturn(new ArrayList<>(List.of(older)));
+        timelineService.page(userId, Set.of(clubId), null, 10);
+
+        Thread thread = thread(clubId, now);
+        when(userClubRepository.countByClubId(clubId)).thenReturn(2L);
+        when(userClubRepository.findUserIdsByClubId(clubId)).thenReturn(Arrays.asList(userId, UUID.randomUUID()));
+
+        // When
+        timelineService.publish(thread);
+        List<TimelineService.Item> page = timelineService.page(userId, Set.of(clubId), null, 10);
+
+        // Then
+        assertThat(page).extracting(TimelineService.Item::getThreadId)
+                .containsExactly(thread.getId(), older.getThreadId());
+        verify(timelineRepository).saveAll(argThat(rows -> ((Collection<?>) rows).size() == 2));
+        verify(timelineRepository, times(1)).findNewestByUserId(eq(userId), any(Pageable.class));
+    }
+
+    @Test
+    void page_SeedsExistingMembershipsEvenAfterAFanOutRow() {
+        // Given - a member who never opened the feed, backed by an in-memory timeline table
+        List<UserTimelineEntry> stored = new ArrayList<>();
+        when(timelineRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            Iterable<UserTimelineEntry> rows = invocation.getArgument(0);
+            rows.forEach(stored::add);
+            return stored;
+        });
+        when(timelineRepository.findThreadIdsByUserIdAndThreadIdIn(eq(userId), anyCollection()))
+                .thenAnswer(invocation -> stored.stream()
+                        .filter(row -> row.getUserId().equals(userId))
+                        .map(UserTimelineEntry::getThreadId)
+                        .filter(((Collection<?>) invocation.getArgument(1))::contains)
+                        .toList());
+        when(timelineRepository.findNewestByUserId(eq(userId), any(Pageable.class)))
+                .thenAnswer(invocation -> stored.stream()
+                        .filter(row -> row.getUserId().equals(userId))
+                        .sorted(Comparator.comparing(UserTimelineEntry::getCreatedAt).reversed())
+                        .toList());
+        Thread older = thread(clubId, now.minusDays(2));
+        Thread old = thread(clubId, now.minusDays(1));
+        Thread posted = thread(clubId, now);
+        when(userClubRepository.countByClubId(clubId)).thenReturn(2L);
+        when(userClubRepository.findUserIdsByClubId(clubId)).thenReturn(List.of(userId, UUID.randomUUID()));
+        when(userClubRepository.findClubIdsWithMoreMembersThan(anyCollection(), eq(100L)))
+                .thenReturn(Collections.emptyList());
+        when(threadRepository.findByClubIdsOrderByCreatedAtDesc(eq(Set.of(clubId)), any(Pageable.class)))
+                .thenReturn(List.of(posted, old, older));
+
+        // When - someone posts in their club, then they open the feed
+        timelineService.publish(posted);
+        List<TimelineService.Item> page = timelineService.page(userId, Set.of(clubId), null, 10);
+
+        // Then
+        assertThat(page).extracting(TimelineService.Item::getThreadId)
+                .containsExactly(posted.getId(), old.getId(), older.getId());
+        assertThat(stored).filteredOn(row -> row.getUserId().equals(userId)).hasSize(3);
+        verify(seedRepository).save(argThat(seed -> seed.getUserId().equals(userId)));
+    }
+
+    @Test
+    void page_ReloadsACachedTimelineWhenAnotherNodePublished() {
+        // Given - a cached timeline, then a thread published through another node lands only in the table
+        List<UserTimelineEntry> stored = new ArrayList<>();
+        stored.add(new UserTimelineEntry(userId, UUID.randomUUID(), clubId, now.minusHours(1)));
+        when(timelineRepository.findNewestByUserId(eq(userId), any(Pageable.class))).thenAnswer(invocation -> {
+            Pageable pageable = invocation.getArgument(1);
+            return stored.stream()
+                    .sorted(Comparator.comparing(UserTimelineEntry::getCreatedAt).reversed())
+                    .skip(pageable.getOffset())
+                    .limit(pageable.getPageSize())
+                    .toList();
+        });
+        when(userClubRepository.findClubIdsWithMoreMembersThan(anyCollection(), eq(100L)))
+                .thenReturn(Collections.emptyList());
+        timelineService.page(userId, Set.of(clubId), null, 10);
+        UserTimelineEntry remote = new UserTimelineEntry(userId, UUID.randomUUID(), clubId, now);
+        stored.add(remote);
+
+        // When - read again within and then after the check interval
+        List<TimelineService.Item> cached = timelineService.page(userId, Set.of(clubId), null, 10);
+        ReflectionTestUtils.setField(timelineService, "checkIntervalMs", 0L);
+        List<TimelineService.Item> checked = timelineService.page(userId, Set.of(clubId), null, 10);
+
+        // Then
+        assertThat(cached).hasSize(1);
+        assertThat(checked).extracting(TimelineService.Item::getThreadId).first().isEqualTo(remote.getThreadId());
+        assertThat(checked).hasSize(2);
+    }
+
+    @Test
+    void trimTimelines_TrimsEveryUserOverCapacityInChunks() {
+        // Given
+        List<UUID> users = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        when(timelineRepository.findUserIdsWithMoreEntriesThan(eq(3L), any(Pageable.class)))
+                .thenReturn(users.subList(0, 2))
+                .thenReturn(users.subList(2, 3));
+        when(timelineRepository.findNewestByUserId(any(), argThat(page -> page.getOffset() == 2)))
+                .thenAnswer(invocation -> List.of(
+                        new UserTimelineEntry(invocation.getArgument(0), UUID.randomUUID(), clubId, now)));
+        when(timelineRepository.deleteOlderThan(any(), eq(now), any())).thenReturn(4);
+
+        // When
+        timelineService.trimTimelines();
+
+        // Then
+        for (UUID user : users) {
+            verify(timelineRepository).deleteOlderThan(eq(user), eq(now), any());
+        }
+        verify(timelineRepository, times(2)).findUserIdsWithMoreEntriesThan(eq(3L), any(Pageable.class));
+    }
+
+    @Test
+    void publish_LargeClubSkipsFanOut() {
+        // Given
+        Thread thread = thread(clubId, now);
+        when(userClubRepository.countByClubId(clubId)).thenReturn(5000L);
+
+        // When
+        timelineService.publish(thread);
+
+        // Then
+        verify(userClubRepository, never()).findUserIdsByClubId(any());
+        verify(timelineRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void page_ResumesAfterCursorAndMergesLargeClubs() {
+        // Given
+        UUID largeClubId = UUID.randomUUID();
+        UserTimelineEntry newest = new UserTimelineEntry(userId, UUID.randomUUID(), clubId, now);
+        UserTimelineEntry middle = new UserTimelineEntry(userId, UUID.randomUUID(), clubId, now.minusHours(2));
+        UserTimelineEntry oldest = new UserTimelineEntry(userId, UUID.randomUUID(), clubId, now.minusHours(4));
+        ThreadRepository.ClubThreadView pulled = view(largeClubId, now.minusHours(3));
+        when(userClubRepository.findClubIdsWithMoreMembersThan(anyCollection(), eq(100L)))
+                .thenReturn(List.of(largeClubId));
+        when(timelineRepository.findNewestByUserId(eq(userId), any(Pageable.class)))
+                .thenReturn(new ArrayList<>(Arrays.asList(newest, middle, oldest)));
+        when(threadRepository.findNewestByClubIdAfter(eq(largeClubId), eq(newest.getCreatedAt()),
+                eq(newest.getThreadId()), any(Pageable.class))).thenReturn(List.of(pulled));
+        FeedCursor cursor = FeedCursor.forTime("personalized-joined", newest.getCreatedAt(), newest.getThreadId());
+
+        // When
+        List<TimelineService.Item> page = timelineService.page(userId, Set.of(clubId, largeClubId), cursor, 10);
+
+        // Then
+        assertThat(page).extracting(TimelineService.Item::getThreadId)
+                .containsExactly(middle.getThreadId(), pulled.getThreadId(), oldest.getThreadId());
+    }
+
+    @Test
+    void page_MergesLargeClubStreamsAndTopsUpTheBusiestClub() {
+        // Given
+        UUID busyClubId = UUID.randomUUID();
+        UUID quietClubId = UUID.randomUUID();
+        ThreadRepository.ClubThreadView busy1 = view(busyClubId, now);
+        ThreadRepository.ClubThreadView busy2 = view(busyClubId, now.minusMinutes(1));
+        ThreadRepository.ClubThreadView busy3 = view(busyClubId, now.minusMinutes(2));
+        ThreadRepository.ClubThreadView busy4 = view(busyClubId, now.minusMinutes(3));
+        ThreadRepository.ClubThreadView quiet1 = view(quietClubId, now.minusHours(1));
+        when(userClubRepository.findClubIdsWithMoreMembersThan(anyCollection(), eq(100L)))
+                .thenReturn(List.of(busyClubId, quietClubId));
+        when(threadRepository.findNewestByClubId(eq(busyClubId), argThat(page -> page.getPageSize() == 3)))
+                .thenReturn(List.of(busy1, busy2, busy3));
+        when(threadRepository.findNewestByClubId(eq(quietClubId), argThat(page -> page.getPageSize() == 3)))
+                .thenReturn(List.of(quiet1));
+        when(threadRepository.findNewestByClubIdAfter(eq(busyClubId), eq(busy3.getCreatedAt()), eq(busy3.getThreadId()),
+                argThat(page -> page.getPageSize() == 1))).thenReturn(List.of(busy4));
+
+        // When
+        List<TimelineService.Item> page = timelineService.page(userId, Set.of(busyClubId, quietClubId), null, 4);
+
+        // Then
+        assertThat(page).extracting(TimelineService.Item::getThreadId)
+                .containsExactly(busy1.getThreadId(), busy2.getThreadId(), busy3.getThreadId(), busy4.getThreadId());
+        verify(threadRepository, never()).findNewestByClubIdAfter(eq(quietClubId), any(), any(), any(Pageable.class));
+    }
+
+    @Test
+    void timeline_KeepsNewestItemsWhenFull() {
+        // Given
+        TimelineService.Timeline timeline = new TimelineService.Timeline(2);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+
+        // When
+        timeline.push(new TimelineService.Item(first, clubId, now.minusMinutes(3)));
+        timeline.push(new TimelineService.Item(third, clubId, now));
+        timeline.push(new TimelineService.Item(second, clubId, now.minusMinutes(1)));
+
+        // Then
+        assertThat(timeline.size()).isEqualTo(2);
+        assertThat(timeline.read(null, null, 10, item -> true))
+                .extracting(TimelineService.Item::getThreadId)
+                .containsExactly(third, second);
+    }
+
+    private ThreadRepository.ClubThreadView view(UUID threadClubId, LocalDateTime createdAt) {
+        UUID threadId = UUID.randomUUID();
+        return new ThreadRepository.ClubThreadView() {
+            @Override
+            public UUID getThreadId() {
+                return threadId;
+            }
+
+            @Override
+            public UUID getClubId() {
+                return threadClubId;
+            }
+
+            @Override
+            public LocalDateTime getCreatedAt() {
+                return createdAt;
+            }
+        };
+    }
+
+    private Thread thread(UUID threadClubId, LocalDateTime createdAt) {
+        Club club = new Club();
+        club.setId(threadClubId);
+        Thread thread = new Thread();
+        thread.setId(UUID.randomUUID());
+        thread.setClub(club);
+        thread.setCreatedAt(createdAt);
+        return thread;
+    }
+}
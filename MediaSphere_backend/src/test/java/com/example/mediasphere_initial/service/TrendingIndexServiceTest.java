@@ -0,0 +1,158 @@
+package com.example.mediasphere_initial.service;
+
+import com.example.mediasphere_initial.dto.FeedCursor;
+import com.example.mediasphere_initial.dto.ThreadRankingSnapshot;
+import com.example.mediasphere_initial.model.Club;
+import com.example.mediasphere_initial.model.Thread;
+import com.example.mediasphere_initial.repository.ThreadRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TrendingIndexService
+ */
+@ExtendWith(MockitoExtension.class)
+class TrendingIndexServiceTest {
+
+    @Mock
+    private ThreadRepository threadRepository;
+
+    @Spy
+    private TrendingService trendingService;
+
+    @InjectMocks
+    private TrendingIndexService trendingIndexService;
+
+    private UUID clubId;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(trendingIndexService, "rebuildIntervalMinutes", 15L);
+        ReflectionTestUtils.setField(trendingIndexService, "maxEntries", 100);
+        clubId = UUID.randomUUID();
+        now = LocalDateTime.now();
+    }
+
+    @Test
+    void page_OrdersByTrendingScore() {
+        // Given
+        ThreadRankingSnapshot low = snapshot(1, now);
+        ThreadRankingSnapshot high = snapshot(50, now);
+        ThreadRankingSnapshot mid = snapshot(10, now);
+        when(threadRepository.findRankingSnapshots()).thenReturn(Arrays.asList(low, high, mid));
+
+        // When
+        List<TrendingIndexService.Entry> page = trendingIndexService.page(null, 10, entry -> true);
+
+        // Then
+        assertThat(page).extracting(TrendingIndexService.Entry::getThreadId)
+                .containsExactly(high.getThreadId(), mid.getThreadId(), low.getThreadId());
+        verify(threadRepository, times(1)).findRankingSnapshots();
+    }
+
+    @Test
+    void page_ResumesAfterCursorAndAppliesFilter() {
+        // Given
+        UUID otherClubId = UUID.randomUUID();
+        ThreadRankingSnapshot first = snapshot(40, now);
+        ThreadRankingSnapshot second = snapshot(30, now);
+        ThreadRankingSnapshot otherClub = new ThreadRankingSnapshot(UUID.randomUUID(), otherClubId,
+                35, 0, 0, 0, now, now);
+        when(threadRepository.findRankingSnapshots()).thenReturn(Arrays.asList(first, second, otherClub));
+        TrendingIndexService.Entry firstEntry = trendingIndexService.page(null, 1, entry -> true).get(0);
+        FeedCursor cursor = FeedCursor.forScore("trending", firstEntry.getScore(), firstEntry.getScoredAt(),
+                firstEntry.getThreadId());
+
+        // When
+        List<TrendingIndexService.Entry> page = trendingIndexService.page(cursor, 5,
+                entry -> entry.getClubId().equals(clubId));
+
+        // Then
+        assertThat(firstEntry.getThreadId()).isEqualTo(first.getThreadId());
+        assertThat(page).extracting(TrendingIndexService.Entry::getThreadId)
+                .containsExactly(second.getThreadId());
+    }
+
+    @Test
+    void update_RepositionsThreadWithoutRebuild() {
+        // Given
+        ThreadRankingSnapshot leader = snapshot(20, now);
+        ThreadRankingSnapshot trailer = snapshot(5, now);
+        when(threadRepository.findRankingSnapshots()).thenReturn(Arrays.asList(leader, trailer));
+        trendingIndexService.page(null, 10, entry -> true);
+
+        Club club = new Club();
+        club.setId(clubId);
+        Thread thread = new Thread();
+        thread.setId(trailer.getThreadId());
+        thread.setClub(club);
+        thread.setLikeCount(100);
+        thread.setCreatedAt(now);
+        thread.setLastActivityAt(now);
+
+        // When
+        trendingIndexService.update(thread);
+        List<TrendingIndexService.Entry> page = trendingIndexService.page(null, 10, entry -> true);
+
+        // Then
+        assertThat(page).extracting(TrendingIndexService.Entry::getThreadId)
+                .containsExactly(trailer.getThreadId(), leader.getThreadId());
+        assertThat(trendingIndexService.size()).isEqualTo(2);
+        verify(threadRepository, times(1)).findRankingSnapshots();
+    }
+
+    @Test
+    void remove_DropsThread() {
+        // Given
+        ThreadRankingSnapshot kept = snapshot(10, now);
+        ThreadRankingSnapshot removed = snapshot(20, now);
+        when(threadRepository.findRankingSnapshots()).thenReturn(Arrays.asList(kept, removed));
+        trendingIndexService.page(null, 10, entry -> true);
+
+        // When
+        trendingIndexService.remove(removed.getThreadId());
+
+        // Then
+        assertThat(trendingIndexService.page(null, 10, entry -> true))
+                .extracting(TrendingIndexService.Entry::getThreadId)
+                .containsExactly(kept.getThreadId());
+    }
+
+    @Test
+    void rebuild_KeepsOnlyTopEntries() {
+        // Given
+        ReflectionTestUtils.setField(trendingIndexService, "maxEntries", 2);
+        ThreadRankingSnapshot low = snapshot(1, now);
+        ThreadRankingSnapshot high = snapshot(50, now);
+        ThreadRankingSnapshot mid = snapshot(10, now);
+        when(threadRepository.findRankingSnapshots()).thenReturn(Arrays.asList(low, high, mid));
+
+        // When
+        List<TrendingIndexService.Entry> page = trendingIndexService.page(null, 10, entry -> true);
+
+        // Then
+        assertThat(page).extracting(TrendingIndexService.Entry::getThreadId)
+                .containsExactly(high.getThreadId(), mid.getThreadId());
+        verify(trendingService, times(3)).calculateTrendingScore(any(ThreadRankingSnapshot.class),
+                any(LocalDateTime.class));
+    }
+
+    private ThreadRankingSnapshot snapshot(int likes, LocalDateTime activityTime) {
+        return new ThreadRankingSnapshot(UUID.randomUUID(), clubId, likes, 0, 0, 0, activityTime, activityTime);
+    }
+}
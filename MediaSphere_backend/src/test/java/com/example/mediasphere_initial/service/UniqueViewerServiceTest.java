@@ -0,0 +1,156 @@
+package com.example.mediasphere_initial.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for UniqueViewerService
+ */
+@ExtendWith(MockitoExtension.class)
+class UniqueViewerServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private UniqueViewerService uniqueViewerService;
+
+    private UUID threadId;
+
+    @BeforeEach
+    void setUp() {
+        threadId = UUID.randomUUID();
+        ReflectionTestUtils.setField(uniqueViewerService, "maxCachedSketches", 10000);
+    }
+
+    @Test
+    void recordViewer_RepeatViewsAreNotNewViewers() {
+        // Given
+        givenNoStoredSketch(Collections.emptyList());
+        String anonymous = UniqueViewerService.anonymousKey("203.0.113.7", "Mozilla/5.0");
+
+        // When / Then
+        assertThat(uniqueViewerService.recordViewer(threadId, anonymous)).isTrue();
+        assertThat(uniqueViewerService.recordViewer(threadId, anonymous)).isFalse();
+        assertThat(uniqueViewerService.recordViewer(threadId, UniqueViewerService.userKey(UUID.randomUUID())))
+                .isTrue();
+        assertThat(uniqueViewerService.getUniqueViewers(threadId)).isEqualTo(2);
+    }
+
+    @Test
+    void getUniqueViewers_EstimatesLargeAudiencesWithinAFewPercent() {
+        // Given
+        givenNoStoredSketch(Collections.emptyList());
+        int viewers = 50_000;
+        for (int i = 0; i < viewers; i++) {
+            String viewer = UniqueViewerService.userKey(new UUID(i, i * 31L));
+            uniqueViewerService.recordViewer(threadId, viewer);
+            uniqueViewerService.recordViewer(threadId, viewer); // Refresh
+        }
+
+        // When
+        long estimate = uniqueViewerService.getUniqueViewers(threadId);
+
+        // Then
+        assertThat(estimate).isBetween((long) (viewers * 0.95), (long) (viewers * 1.05));
+    }
+
+    @Test
+    void flush_WritesChangedSketchesOnce() {
+        // Given
+        givenNoStoredSketch(Collections.emptyList());
+        uniqueViewerService.recordViewer(threadId, UniqueViewerService.userKey(UUID.randomUUID()));
+
+        // When
+        uniqueViewerService.flush();
+        uniqueViewerService.flush();
+
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> counts = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(UniqueViewerService.INSERT_SQL), anyList());
+        verify(jdbcTemplate).batchUpdate(eq(UniqueViewerService.COUNT_SQL), counts.capture());
+        verify(transactionManager).commit(any());
+        assertThat(counts.getValue()).hasSize(1);
+        assertThat(counts.getValue().get(0)[0]).isEqualTo(1);
+        assertThat(counts.getValue().get(0)[1]).isEqualTo(threadId);
+    }
+
+    @Test
+    void flush_MergesTheStoredSketchInsteadOfOverwritingIt() throws Exception {
+        // Given - another node has stored a viewer this node has not seen
+        givenNoStoredSketch(Collections.emptyList());
+        String remoteViewer = UniqueViewerService.userKey(UUID.randomUUID());
+        HyperLogLog stored = new HyperLogLog();
+        stored.offer(HyperLogLog.hash(remoteViewer));
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getObject(1, UUID.class)).thenReturn(threadId);
+            when(rs.getBytes(2)).thenReturn(stored.toBytes());
+            handler.processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT thread_id, registers"), any(RowCallbackHandler.class),
+                any(Object[].class));
+        uniqueViewerService.recordViewer(threadId, UniqueViewerService.userKey(UUID.randomUUID()));
+
+        // When
+        uniqueViewerService.flush();
+
+        // Then - the union is written back and counted, and this node now knows the remote viewer
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> saved = ArgumentCaptor.forClass(List.class);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> counts = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(UniqueViewerService.SAVE_SQL), saved.capture());
+        verify(jdbcTemplate).batchUpdate(eq(UniqueViewerService.COUNT_SQL), counts.capture());
+        assertThat(HyperLogLog.fromBytes((byte[]) saved.getValue().get(0)[0]).cardinality()).isEqualTo(2);
+        assertThat(counts.getValue().get(0)[0]).isEqualTo(2);
+        assertThat(uniqueViewerService.recordViewer(threadId, remoteViewer)).isFalse();
+    }
+
+    @Test
+    void recordViewer_SeedsNewSketchesFromLegacyViewRows() {
+        // Given
+        UUID legacyViewer = UUID.randomUUID();
+        givenNoStoredSketch(Arrays.asList(legacyViewer, UUID.randomUUID()));
+
+        // When
+        boolean isNew = uniqueViewerService.recordViewer(threadId, UniqueViewerService.userKey(legacyViewer));
+
+        // Then
+        assertThat(isNew).isFalse();
+        assertThat(uniqueViewerService.getUniqueViewers(threadId)).isEqualTo(2);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenNoStoredSketch(List<UUID> legacyViewers) {
+        when(jdbcTemplate.query(eq(UniqueViewerService.LOAD_SQL), any(RowMapper.class), eq(threadId)))
+                .thenReturn(Collections.emptyList());
+        when(jdbcTemplate.queryForList(UniqueViewerService.LEGACY_VIEWERS_SQL, UUID.class, threadId))
+                .thenReturn(legacyViewers);
+    }
+}
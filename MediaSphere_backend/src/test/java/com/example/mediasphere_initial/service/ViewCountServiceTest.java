@@ -0,0 +1,102 @@
+package com.example.mediasphere_initial.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ViewCountService
+ */
+@ExtendWith(MockitoExtension.class)
+class ViewCountServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private ViewCountService viewCountService;
+
+    private UUID threadId;
+
+    @BeforeEach
+    void setUp() {
+        threadId = UUID.randomUUID();
+    }
+
+    @Test
+    void flush_WritesOneBatchedDeltaPerThreadOnTheFollowingInterval() {
+        // Given
+        viewCountService.recordView(threadId);
+        viewCountService.recordView(threadId);
+        viewCountService.recordView(threadId);
+
+        // When
+        viewCountService.flush();
+        verifyNoInteractions(jdbcTemplate);
+        viewCountService.flush();
+
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(ViewCountService.FLUSH_SQL), batch.capture());
+        assertThat(batch.getValue()).hasSize(1);
+        assertThat(batch.getValue().get(0)[0]).isEqualTo(3L);
+        assertThat(batch.getValue().get(0)[2]).isEqualTo(threadId);
+        assertThat(viewCountService.getPendingViews(threadId)).isZero();
+    }
+
+    @Test
+    void currentViewCount_AddsPendingViewsFromBothGenerations() {
+        // Given
+        viewCountService.recordView(threadId);
+        viewCountService.flush();
+        viewCountService.recordView(threadId);
+
+        // When
+        int count = viewCountService.currentViewCount(threadId, 10);
+
+        // Then
+        assertThat(count).isEqualTo(12);
+    }
+
+    @Test
+    void flush_KeepsViewsWhenTheWriteFails() {
+        // Given
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+        viewCountService.recordView(threadId);
+        viewCountService.flush();
+
+        // When
+        viewCountService.flush();
+
+        // Then
+        assertThat(viewCountService.getPendingViews(threadId)).isEqualTo(1);
+    }
+
+    @Test
+    void flushAll_WritesEveryPendingView() {
+        // Given
+        viewCountService.recordView(threadId);
+
+        // When
+        viewCountService.flushAll();
+
+        // Then
+        verify(jdbcTemplate).batchUpdate(eq(ViewCountService.FLUSH_SQL), anyList());
+        assertThat(viewCountService.getPendingViews(threadId)).isZero();
+    }
+}
@@ -31,6 +31,8 @@ function NotificationsContent() {
   const [newNotificationIds, setNewNotificationIds] = useState<Set<string>>(new Set())
   const [isSSEConnected, setIsSSEConnected] = useState(false)
   const eventSourceRef = useRef<EventSource | null>(null)
+  // Id of the last stream event seen, so a reconnect only replays what was missed
+  const lastEventIdRef = useRef<string | null>(null)
 
   // Notification settings state
   const [notificationSettings, setNotificationSettings] = useState({
@@ -92,7 +94,11 @@ function NotificationsContent() {
     if (!token) return
 
     try {
-      const eventSource = new EventSource(`http://localhost:8080/api/notifications/stream?token=${token}`)
+      // A new EventSource cannot set Last-Event-ID, so the resume point goes in the query string
+      const resumeFrom = lastEventIdRef.current
+        ? `&lastEventId=${encodeURIComponent(lastEventIdRef.current)}`
+        : ''
+      const eventSource = new EventSource(`http://localhost:8080/api/notifications/stream?token=${token}${resumeFrom}`)
       eventSourceRef.current = eventSource
 
       eventSource.onopen = () => {
@@ -100,9 +106,25 @@ function NotificationsContent() {
         setIsSSEConnected(true)
       }
 
-      eventSource.onmessage = (event) => {
+      // The server names its events, so they never reach onmessage
+      eventSource.addEventListener('connected', (event) => {
+        if ((event as MessageEvent).lastEventId) {
+          lastEventIdRef.current = (event as MessageEvent).lastEventId
+        }
+      })
+
+      // Missed notifications are no longer held by the server; reload the list instead
+      eventSource.addEventListener('resync', () => {
+        fetchNotifications()
+      })
+
+      eventSource.addEventListener('notification', (event) => {
+        const message = event as MessageEvent
+        if (message.lastEventId) {
+          lastEventIdRef.current = message.lastEventId
+        }
         try {
-          const newNotification = JSON.parse(event.data)
+          const newNotification = JSON.parse(message.data)
 
           // Transform the notification to match frontend format
           const transformedNotification = {
@@ -113,8 +135,8 @@ function NotificationsContent() {
             link: generateNotificationLink(newNotification)
           }
 
-          // Add new notification to the list
-          setNotifications(prev => [transformedNotification, ...prev])
+          // Add new notification to the list; a merged aggregate is pushed again under the same id
+          setNotifications(prev => [transformedNotification, ...prev.filter(n => n.id !== transformedNotification.id)])
           setNewNotificationIds(prev => new Set([...prev, newNotification.id]))
 
           // Show toast notification for instant feedback
@@ -157,14 +179,15 @@ function NotificationsContent() {
         } catch (error) {
           console.error('Error parsing SSE message:', error)
         }
-      }
+      })
 
       eventSource.onerror = (error) => {
         console.error('SSE connection error:', error)
         setIsSSEConnected(false)
         eventSource.close()
-        // Reconnect after 3 seconds
-        setTimeout(connectSSE, 3000)
+        if (eventSourceRef.current !== eventSource) return
+        // Reconnect after about 3 seconds, spread out so clients do not all return at once
+        setTimeout(connectSSE, 3000 + Math.random() * 2000)
       }
     } catch (error) {
       console.error('Error setting up real-time connection:', error)
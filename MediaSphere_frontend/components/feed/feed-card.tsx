@@ -37,23 +37,11 @@ export function FeedCard({
   const [dislikeCount, setDislikeCount] = useState(thread.dislikeCount || 0)
   const [hasBeenViewed, setHasBeenViewed] = useState(false)
 
-  // Initialize reaction state from user's previous reactions
+  // Reaction state arrives with the feed page, no per-card request needed
   useEffect(() => {
-    const loadUserReaction = async () => {
-      try {
-        const userReaction = await feedService.getThreadReaction(thread.id)
-        if (userReaction) {
-          setIsLiked(userReaction.type === 'LIKE')
-          setIsDisliked(userReaction.type === 'DISLIKE')
-        }
-      } catch (error) {
-        // User not authenticated or no reaction - keep defaults
-        console.log('No user reaction found:', error)
-      }
-    }
-    
-    loadUserReaction()
-  }, [thread.id])
+    setIsLiked(thread.isLiked || false)
+    setIsDisliked(thread.isDisliked || false)
+  }, [thread.id, thread.isLiked, thread.isDisliked])
 
   // Track view when card becomes visible
   useEffect(() => {
@@ -12,6 +12,7 @@ import {
   TrendingUp, 
   Flame, 
   Clock, 
+  Rocket,
   User,
   AlertCircle,
   Loader2
@@ -42,7 +43,6 @@ export function InfiniteScrollFeed({
     loading,
     error,
     hasMore,
-    totalElements,
     initialLoad,
     loadMore,
     refresh,
@@ -100,7 +100,7 @@ export function InfiniteScrollFeed({
     return (
       <Tabs value={activeFeedType} onValueChange={(value) => handleFeedTypeChange(value as FeedType)}>
         <div className="flex items-center justify-between mb-6">
-          <TabsList className="grid w-full max-w-md grid-cols-4">
+          <TabsList className="grid w-full max-w-lg grid-cols-5">
             {isSignedIn && (
               <TabsTrigger value="personalized" className="flex items-center space-x-1">
                 <User className="h-4 w-4" />
@@ -115,6 +115,10 @@ export function InfiniteScrollFeed({
               <Flame className="h-4 w-4" />
               <span className="hidden sm:inline">Hot</span>
             </TabsTrigger>
+            <TabsTrigger value="rising" className="flex items-center space-x-1">
+              <Rocket className="h-4 w-4" />
+              <span className="hidden sm:inline">Rising</span>
+            </TabsTrigger>
             <TabsTrigger value="new" className="flex items-center space-x-1">
               <Clock className="h-4 w-4" />
               <span className="hidden sm:inline">New</span>
@@ -122,9 +126,9 @@ export function InfiniteScrollFeed({
           </TabsList>
 
           <div className="flex items-center space-x-2">
-            {totalElements > 0 && (
+            {threads.length > 0 && (
               <Badge variant="outline" className="text-xs">
-                {totalElements} posts
+                {threads.length}{hasMore ? '+' : ''} posts
               </Badge>
             )}
             <Button
@@ -196,6 +200,7 @@ export function InfiniteScrollFeed({
       personalized: "No posts from your joined clubs yet. Try exploring trending posts or join more clubs!",
       trending: "No trending posts at the moment. Check back later!",
       hot: "No hot discussions right now. Be the first to start one!",
+      rising: "Nothing is picking up speed right now. Check back soon!",
       new: "No new posts yet. Create the first one!"
     }
 
@@ -206,6 +211,7 @@ export function InfiniteScrollFeed({
             {activeFeedType === 'personalized' && <User className="h-12 w-12 mx-auto text-gray-300" />}
             {activeFeedType === 'trending' && <TrendingUp className="h-12 w-12 mx-auto text-gray-300" />}
             {activeFeedType === 'hot' && <Flame className="h-12 w-12 mx-auto text-gray-300" />}
+            {activeFeedType === 'rising' && <Rocket className="h-12 w-12 mx-auto text-gray-300" />}
             {activeFeedType === 'new' && <Clock className="h-12 w-12 mx-auto text-gray-300" />}
           </div>
           <h3 className="text-lg font-medium text-gray-900 mb-2">No posts found</h3>
@@ -4,7 +4,7 @@ import { useState, useEffect, useCallback, useRef } from 'react'
 import { feedService, FeedThread, FeedResponse, FeedOptions } from '@/lib/feed-service'
 import { useAuth } from '@clerk/nextjs'
 
-export type FeedType = 'personalized' | 'trending' | 'hot' | 'new'
+export type FeedType = 'personalized' | 'trending' | 'hot' | 'rising' | 'new'
 
 interface UseFeedOptions extends FeedOptions {
   feedType?: FeedType
@@ -18,8 +18,7 @@ interface FeedState {
   error: string | null
   hasMore: boolean
   page: number
-  totalElements: number
-  totalPages: number
+  nextCursor: string | null
   initialLoad: boolean
 }
 
@@ -38,8 +37,7 @@ export function useFeed(options: UseFeedOptions = {}) {
     error: null,
     hasMore: true,
     page: 0,
-    totalElements: 0,
-    totalPages: 0,
+    nextCursor: null,
     initialLoad: true
   })
 
@@ -53,6 +51,8 @@ export function useFeed(options: UseFeedOptions = {}) {
         return (opts: FeedOptions) => feedService.getTrendingFeed(opts)
       case 'hot':
         return (opts: FeedOptions) => feedService.getHotFeed(opts)
+      case 'rising':
+        return (opts: FeedOptions) => feedService.getRisingFeed(opts)
       case 'new':
         return (opts: FeedOptions) => feedService.getNewFeed(opts)
       case 'personalized':
@@ -61,7 +61,7 @@ export function useFeed(options: UseFeedOptions = {}) {
     }
   }, [feedType, userId, clerkUserId, isSignedIn])
 
-  const loadPage = useCallback(async (pageNum: number, append = false) => {
+  const loadPage = useCallback(async (cursor: string | null, append = false) => {
     // Cancel previous request if still pending
     if (abortControllerRef.current) {
       abortControllerRef.current.abort()
@@ -79,7 +79,7 @@ export function useFeed(options: UseFeedOptions = {}) {
     try {
       const feedFunction = getFeedFunction()
       const response: FeedResponse = await feedFunction({
-        page: pageNum,
+        cursor,
         size: pageSize
       })
 
@@ -91,9 +91,8 @@ export function useFeed(options: UseFeedOptions = {}) {
         threads: append ? [...prev.threads, ...processedThreads] : processedThreads,
         loading: false,
         hasMore: !response.last,
-        page: response.number,
-        totalElements: response.totalElements,
-        totalPages: response.totalPages,
+        page: append ? prev.page + 1 : 0,
+        nextCursor: response.nextCursor,
         initialLoad: false
       }))
 
@@ -110,18 +109,18 @@ export function useFeed(options: UseFeedOptions = {}) {
   }, [getFeedFunction, pageSize])
 
   const loadInitial = useCallback(() => {
-    loadPage(0, false)
+    loadPage(null, false)
   }, [loadPage])
 
   const loadMore = useCallback(() => {
-    if (state.hasMore && !state.loading) {
-      loadPage(state.page + 1, true)
+    if (state.hasMore && !state.loading && state.nextCursor) {
+      loadPage(state.nextCursor, true)
     }
-  }, [state.hasMore, state.loading, state.page, loadPage])
+  }, [state.hasMore, state.loading, state.nextCursor, loadPage])
 
   const refresh = useCallback(() => {
     setState(prev => ({ ...prev, initialLoad: true }))
-    loadPage(0, false)
+    loadPage(null, false)
   }, [loadPage])
 
   // Auto-load on mount and when dependencies change
@@ -174,8 +173,6 @@ export function useFeed(options: UseFeedOptions = {}) {
     error: state.error,
     hasMore: state.hasMore,
     page: state.page,
-    totalElements: state.totalElements,
-    totalPages: state.totalPages,
     initialLoad: state.initialLoad,
 
     // Actions
@@ -16,6 +16,11 @@ export interface FeedThread {
   likeCount: number
   dislikeCount: number
   commentCount: number
+  // Flat club/author fields as sent by the feed endpoints
+  clubName?: string
+  clubMediaId?: string
+  authorUsername?: string
+  authorProfilePic?: string
   // Additional computed fields for feed display
   club?: {
     id: string
@@ -34,37 +39,17 @@ export interface FeedThread {
   mediaUrl?: string
 }
 
+// Cursor-paginated page: follow nextCursor until last is true
 export interface FeedResponse {
   content: FeedThread[]
-  pageable: {
-    pageNumber: number
-    pageSize: number
-    sort: {
-      sorted: boolean
-      empty: boolean
-      unsorted: boolean
-    }
-    offset: number
-    paged: boolean
-    unpaged: boolean
-  }
-  totalElements: number
-  totalPages: number
-  last: boolean
-  first: boolean
   size: number
-  number: number
   numberOfElements: number
-  sort: {
-    sorted: boolean
-    empty: boolean
-    unsorted: boolean
-  }
-  empty: boolean
+  nextCursor: string | null
+  last: boolean
 }
 
 export interface FeedOptions {
-  page?: number
+  cursor?: string | null
   size?: number
   userId?: string
 }
@@ -112,17 +97,22 @@ class FeedService {
     }
   }
 
+  private buildPageParams(cursor: string | null | undefined, size: number): URLSearchParams {
+    const params = new URLSearchParams({ size: size.toString() })
+    if (cursor) {
+      params.append('cursor', cursor)
+    }
+    return params
+  }
+
   /**
    * Get personalized feed for authenticated user
    * Shows posts from joined clubs first, then trending posts
    */
   async getPersonalizedFeed(options: FeedOptions = {}): Promise<FeedResponse> {
-    const { page = 0, size = 10, userId } = options
+    const { cursor, size = 10, userId } = options
     
-    const params = new URLSearchParams({
-      page: page.toString(),
-      size: size.toString(),
-    })
+    const params = this.buildPageParams(cursor, size)
 
     if (userId) {
       params.append('userId', userId)
@@ -136,12 +126,9 @@ class FeedService {
    * Shows posts ordered by trending score
    */
   async getTrendingFeed(options: FeedOptions = {}): Promise<FeedResponse> {
-    const { page = 0, size = 10 } = options
+    const { cursor, size = 10 } = options
     
-    const params = new URLSearchParams({
-      page: page.toString(),
-      size: size.toString(),
-    })
+    const params = this.buildPageParams(cursor, size)
 
     return this.makeRequest<FeedResponse>(`/api/feed/trending?${params}`)
   }
@@ -150,26 +137,31 @@ class FeedService {
    * Get hot feed (high recent activity)
    */
   async getHotFeed(options: FeedOptions = {}): Promise<FeedResponse> {
-    const { page = 0, size = 10 } = options
+    const { cursor, size = 10 } = options
     
-    const params = new URLSearchParams({
-      page: page.toString(),
-      size: size.toString(),
-    })
+    const params = this.buildPageParams(cursor, size)
 
     return this.makeRequest<FeedResponse>(`/api/feed/hot?${params}`)
   }
 
+  /**
+   * Get rising feed (engagement accelerating in the last hour)
+   */
+  async getRisingFeed(options: FeedOptions = {}): Promise<FeedResponse> {
+    const { cursor, size = 10 } = options
+    
+    const params = this.buildPageParams(cursor, size)
+
+    return this.makeRequest<FeedResponse>(`/api/feed/rising?${params}`)
+  }
+
   /**
    * Get new feed (recently created threads)
    */
   async getNewFeed(options: FeedOptions = {}): Promise<FeedResponse> {
-    const { page = 0, size = 10 } = options
+    const { cursor, size = 10 } = options
     
-    const params = new URLSearchParams({
-      page: page.toString(),
-      size: size.toString(),
-    })
+    const params = this.buildPageParams(cursor, size)
 
     return this.makeRequest<FeedResponse>(`/api/feed/new?${params}`)
   }
@@ -270,6 +262,12 @@ class FeedService {
   processFeedThreads(threads: FeedThread[]): FeedThread[] {
     return threads.map(thread => ({
       ...thread,
+      club: thread.club ?? (thread.clubId
+        ? { id: thread.clubId, name: thread.clubName || '', mediaId: thread.clubMediaId || '' }
+        : undefined),
+      author: thread.author ?? (thread.authorId
+        ? { id: thread.authorId, username: thread.authorUsername || '', profilePic: thread.authorProfilePic }
+        : undefined),
       timeAgo: this.formatTimeAgo(thread.lastActivityAt || thread.createdAt),
       // Add other computed fields as needed
     }))
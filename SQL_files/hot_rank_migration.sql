@@ -0,0 +1,30 @@
+-- Hot rank migration
+-- Adds the decay-free hot_rank column used to serve /api/feed/trending and /api/feed/hot
+-- straight from an index. Keep the formula in sync with TrendingService.calculateHotRank:
+--   engagement = (likes - dislikes * 0.5) * 1.0 + comments * 2.0 + views * 0.1
+--   hot_rank   = sign(engagement) * log10(max(|engagement|, 1))
+--              + seconds(created_at - 2025-01-01) / (24 * 3600 / log10(2))
+
+ALTER TABLE threads ADD COLUMN IF NOT EXISTS hot_rank DOUBLE PRECISION;
+
+-- Backfill existing threads
+UPDATE threads
+SET hot_rank = SIGN(e.engagement) * LOG(GREATEST(ABS(e.engagement), 1))
+             + EXTRACT(EPOCH FROM (COALESCE(threads.created_at, TIMESTAMP '2025-01-01 00:00:00')
+                                   - TIMESTAMP '2025-01-01 00:00:00')) / (24 * 3600 / LOG(2))
+FROM (
+    SELECT id,
+           (COALESCE(like_count, 0) - COALESCE(dislike_count, 0) * 0.5) * 1.0
+           + COALESCE(comment_count, 0) * 2.0
+           + COALESCE(view_count, 0) * 0.1 AS engagement
+    FROM threads
+) e
+WHERE threads.id = e.id;
+
+ALTER TABLE threads ALTER COLUMN hot_rank SET DEFAULT 0;
+ALTER TABLE threads ALTER COLUMN hot_rank SET NOT NULL;
+
+-- idx_threads_hot_rank_id (hot_rank DESC, id DESC) is declared on the Thread entity and created
+-- by Hibernate on startup, so run this script before deploying. Drop any copy left by an earlier
+-- version of this script so it is recreated with that definition.
+DROP INDEX IF EXISTS idx_threads_hot_rank_id;
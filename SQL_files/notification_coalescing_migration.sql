@@ -0,0 +1,23 @@
+-- Notification coalescing migration
+-- Likes and club joins merge into the recipient's recent unread notification of the same
+-- type and reference ("X and 12 others liked your thread") instead of adding a row each.
+-- aggregate_count is the number of distinct actors merged; actor_ids holds those actors while
+-- the aggregate is still open to merges and is cleared once it falls out of the coalescing
+-- window. last_pushed_at throttles the real-time push of a merged notification. Existing rows
+-- count as single, closed notifications.
+
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS aggregate_count INTEGER DEFAULT 1;
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS actor_ids UUID[];
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS last_pushed_at TIMESTAMP;
+
+UPDATE notifications SET aggregate_count = 1 WHERE aggregate_count IS NULL;
+
+-- At most one open aggregate per recipient, type and reference. NotificationFanoutService.MERGE_SQL
+-- upserts against it with ON CONFLICT, so concurrent fan-outs merge instead of both inserting.
+-- Hibernate cannot declare a partial index, so run this script before deploying.
+CREATE UNIQUE INDEX IF NOT EXISTS idx_notifications_open_aggregate
+    ON notifications (user_id, type, reference_id)
+    WHERE is_read = false AND actor_ids IS NOT NULL;
+
+-- Superseded by idx_notifications_open_aggregate
+DROP INDEX IF EXISTS idx_notifications_user_type_reference;
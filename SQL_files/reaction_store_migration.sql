@@ -0,0 +1,56 @@
+-- Reaction store migration
+-- user_thread_reactions is now the only table behind likes and dislikes; thread_likes and
+-- thread_dislikes are no longer read or written. Copy over any reaction that only exists in
+-- the old tables (the newest one wins when a user is in both), then recount the threads.
+-- Keep the hot_rank formula in sync with TrendingService.calculateHotRank.
+
+DO $$
+BEGIN
+    IF to_regclass('public.thread_likes') IS NOT NULL AND to_regclass('public.thread_dislikes') IS NOT NULL THEN
+        INSERT INTO user_thread_reactions (id, created_at, reaction_type, updated_at, thread_id, user_id)
+        SELECT gen_random_uuid(), r.created_at, r.reaction_type, r.created_at, r.thread_id, r.user_id
+        FROM (
+            SELECT DISTINCT ON (user_id, thread_id) user_id, thread_id, reaction_type, created_at
+            FROM (
+                SELECT user_id, thread_id, 'LIKE' AS reaction_type, created_at FROM thread_likes
+                UNION ALL
+                SELECT user_id, thread_id, 'DISLIKE' AS reaction_type, created_at FROM thread_dislikes
+            ) legacy
+            ORDER BY user_id, thread_id, created_at DESC
+        ) r
+        WHERE NOT EXISTS (
+            SELECT 1 FROM user_thread_reactions u
+            WHERE u.user_id = r.user_id AND u.thread_id = r.thread_id
+        );
+    END IF;
+END $$;
+
+UPDATE threads
+SET like_count = COALESCE(c.likes, 0),
+    dislike_count = COALESCE(c.dislikes, 0)
+FROM threads t
+LEFT JOIN (
+    SELECT thread_id,
+           COUNT(*) FILTER (WHERE reaction_type = 'LIKE') AS likes,
+           COUNT(*) FILTER (WHERE reaction_type = 'DISLIKE') AS dislikes
+    FROM user_thread_reactions
+    GROUP BY thread_id
+) c ON c.thread_id = t.id
+WHERE threads.id = t.id;
+
+UPDATE threads
+SET hot_rank = SIGN(e.engagement) * LOG(GREATEST(ABS(e.engagement), 1))
+             + EXTRACT(EPOCH FROM (COALESCE(threads.created_at, TIMESTAMP '2025-01-01 00:00:00')
+                                   - TIMESTAMP '2025-01-01 00:00:00')) / (24 * 3600 / LOG(2))
+FROM (
+    SELECT id,
+           (COALESCE(like_count, 0) - COALESCE(dislike_count, 0) * 0.5) * 1.0
+           + COALESCE(comment_count, 0) * 2.0
+           + COALESCE(unique_viewer_count, 0) * 0.1 AS engagement
+    FROM threads
+) e
+WHERE threads.id = e.id;
+
+-- Once the application no longer needs a rollback path:
+-- DROP TABLE IF EXISTS thread_likes;
+-- DROP TABLE IF EXISTS thread_dislikes;
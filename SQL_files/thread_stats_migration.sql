@@ -0,0 +1,33 @@
+-- Thread stats migration
+-- GET /threads/{id}/stats reads comment statistics from thread_stats instead of counting
+-- the likes of every comment. The application keeps the rows current and recounts a thread
+-- that has no row yet; this backfill just saves those first reads the recount.
+-- Same aggregate as ThreadStatsService.REBUILD_SQL.
+
+CREATE TABLE IF NOT EXISTS thread_stats (
+    thread_id          UUID PRIMARY KEY,
+    comment_like_count BIGINT NOT NULL DEFAULT 0,
+    commenter_count    INTEGER NOT NULL DEFAULT 0,
+    last_comment_at    TIMESTAMP,
+    updated_at         TIMESTAMP NOT NULL
+);
+
+INSERT INTO thread_stats (thread_id, comment_like_count, commenter_count, last_comment_at, updated_at)
+SELECT t.id, COALESCE(l.likes, 0), COALESCE(c.commenters, 0), c.last_comment_at, NOW()
+FROM threads t
+LEFT JOIN (
+    SELECT thread_id, COUNT(DISTINCT created_by) AS commenters, MAX(created_at) AS last_comment_at
+    FROM comments
+    GROUP BY thread_id
+) c ON c.thread_id = t.id
+LEFT JOIN (
+    SELECT c.thread_id, COUNT(*) AS likes
+    FROM comment_likes cl
+    JOIN comments c ON c.id = cl.comment_id
+    GROUP BY c.thread_id
+) l ON l.thread_id = t.id
+ON CONFLICT (thread_id) DO UPDATE SET
+    comment_like_count = EXCLUDED.comment_like_count,
+    commenter_count = EXCLUDED.commenter_count,
+    last_comment_at = EXCLUDED.last_comment_at,
+    updated_at = EXCLUDED.updated_at;
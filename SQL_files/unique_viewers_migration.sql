@@ -0,0 +1,39 @@
+-- Unique viewers migration
+-- Ranking now weighs distinct viewers (a HyperLogLog estimate) instead of raw view_count.
+-- Keep the formula in sync with TrendingService.calculateHotRank:
+--   engagement = (likes - dislikes * 0.5) * 1.0 + comments * 2.0 + unique_viewers * 0.1
+--   hot_rank   = sign(engagement) * log10(max(|engagement|, 1))
+--              + seconds(created_at - 2025-01-01) / (24 * 3600 / log10(2))
+-- Sketches start empty and are seeded from user_thread_views by the application the first
+-- time each thread is viewed; the count below is the same seed, so ranks do not jump.
+
+ALTER TABLE threads ADD COLUMN IF NOT EXISTS unique_viewer_count INTEGER NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS thread_viewer_sketches (
+    thread_id  UUID PRIMARY KEY,
+    registers  BYTEA NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
+
+-- Backfill from the signed-in viewers recorded so far
+UPDATE threads
+SET unique_viewer_count = v.viewers
+FROM (
+    SELECT thread_id, COUNT(*) AS viewers
+    FROM user_thread_views
+    GROUP BY thread_id
+) v
+WHERE threads.id = v.thread_id;
+
+UPDATE threads
+SET hot_rank = SIGN(e.engagement) * LOG(GREATEST(ABS(e.engagement), 1))
+             + EXTRACT(EPOCH FROM (COALESCE(threads.created_at, TIMESTAMP '2025-01-01 00:00:00')
+                                   - TIMESTAMP '2025-01-01 00:00:00')) / (24 * 3600 / LOG(2))
+FROM (
+    SELECT id,
+           (COALESCE(like_count, 0) - COALESCE(dislike_count, 0) * 0.5) * 1.0
+           + COALESCE(comment_count, 0) * 2.0
+           + COALESCE(unique_viewer_count, 0) * 0.1 AS engagement
+    FROM threads
+) e
+WHERE threads.id = e.id;
@@ -0,0 +1,31 @@
+@echo off
+echo Starting hot rank migration...
+
+REM Database connection parameters
+set DB_HOST=localhost
+set DB_PORT=5432
+set DB_NAME=mediasphere_db
+set DB_USER=mediasphere_user
+
+REM Check if PGPASSWORD environment variable is set
+if "%PGPASSWORD%"=="" (
+    echo Please set PGPASSWORD environment variable or enter password when prompted
+)
+
+REM Apply the migration
+echo Applying hot rank migration...
+psql -h %DB_HOST% -p %DB_PORT% -U %DB_USER% -d %DB_NAME% -f ..\SQL_files\hot_rank_migration.sql
+
+REM Check if migration was successful
+if %errorlevel% equ 0 (
+    echo ✅ Hot rank migration completed successfully!
+    echo 📊 The following enhancements were added:
+    echo    - hot_rank column backfilled for existing threads
+    echo    - idx_threads_hot_rank_id index for ORDER BY hot_rank
+) else (
+    echo ❌ Migration failed. Please check the error messages above.
+    exit /b 1
+)
+
+echo 🚀 Trending and hot feeds can now be served from the index!
+pause
@@ -0,0 +1,34 @@
+#!/bin/bash
+
+# Hot Rank Migration Script
+# Adds and backfills the indexed hot_rank column used by the trending and hot feeds
+
+echo "Starting hot rank migration..."
+
+# Database connection parameters
+DB_HOST="localhost"
+DB_PORT="5432"
+DB_NAME="db_408"
+DB_USER="postgres"
+
+# Check if PGPASSWORD environment variable is set
+if [ -z "$PGPASSWORD" ]; then
+    echo "Please set PGPASSWORD environment variable or enter password when prompted"
+fi
+
+# Apply the migration
+echo "Applying hot rank migration..."
+psql -h $DB_HOST -p $DB_PORT -U $DB_USER -d $DB_NAME -f ../SQL_files/hot_rank_migration.sql
+
+# Check if migration was successful
+if [ $? -eq 0 ]; then
+    echo "✅ Hot rank migration completed successfully!"
+    echo "📊 The following enhancements were added:"
+    echo "   - hot_rank column backfilled for existing threads"
+    echo "   - idx_threads_hot_rank_id index for ORDER BY hot_rank"
+else
+    echo "❌ Migration failed. Please check the error messages above."
+    exit 1
+fi
+
+echo "🚀 Trending and hot feeds can now be served from the index!"